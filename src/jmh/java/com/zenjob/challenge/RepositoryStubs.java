@@ -0,0 +1,66 @@
+package com.zenjob.challenge;
+
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * This class creates repositories which answer from memory,
+ * so that the benchmarks measure the service code without a database
+ */
+public final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    /**
+     * @param talentShifts the shifts returned for every talent
+     * @param jobShifts    the shift views returned for every job
+     * @return a shift repository supporting only the reads used by the benchmarks
+     */
+    public static ShiftRepository shiftRepository(List<Shift> talentShifts, List<ShiftView> jobShifts) {
+        return (ShiftRepository) Proxy.newProxyInstance(ShiftRepository.class.getClassLoader(), new Class<?>[]{ShiftRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findAllShiftForTalent":
+                            return talentShifts;
+                        case "findViewsByJobId":
+                            return jobShifts;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * @return a job repository answering that every job stores all of its shifts,
+     * so that the shifts of the jobs are the ones of the shift repository
+     */
+    public static JobRepository jobRepository() {
+        return (JobRepository) Proxy.newProxyInstance(JobRepository.class.getClassLoader(), new Class<?>[]{JobRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findRecurrenceById":
+                            return Optional.of(new JobRecurrence((UUID) args[0], Instant.EPOCH, Instant.EPOCH, false, 1));
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,65 @@
+package com.zenjob.challenge.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zenjob.challenge.RepositoryStubs;
+import com.zenjob.challenge.dto.ResponseDto;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.service.JobService;
+import com.zenjob.challenge.service.JobServiceFixture;
+import com.zenjob.challenge.service.ShiftViewCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This benchmark measures the mapping of the shifts of a job to the response of
+ * GET /shift/{jobId}, with and without the JSON serialization of the response
+ */
+@State(Scope.Benchmark)
+public class ShiftResponseMappingBenchmark {
+
+    @Param({"1", "30", "365"})
+    int shifts;
+
+    UUID jobId;
+    ShiftController shiftController;
+    ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        jobId = UUID.randomUUID();
+        Instant start = Instant.parse("2100-01-01T08:00:00Z");
+        List<ShiftView> views = new ArrayList<>(shifts);
+        for (int idx = 0; idx < shifts; idx++) {
+            Instant shiftStart = start.plus(Duration.ofDays(idx));
+            views.add(new ShiftView(UUID.randomUUID(), idx % 2 == 0 ? UUID.randomUUID() : null, jobId,
+                    shiftStart, shiftStart.plus(Duration.ofHours(8))));
+        }
+        JobService jobService = JobServiceFixture.of(RepositoryStubs.jobRepository(), RepositoryStubs.shiftRepository(new ArrayList<>(), views))
+                .shiftViewCache(new ShiftViewCache(new SimpleMeterRegistry(), 10, 3600))
+                .build();
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        shiftController = new ShiftController(jobService, null, objectMapper, null);
+    }
+
+    @Benchmark
+    public ResponseDto<?> mapShifts() {
+        return shiftController.getShifts(jobId, null, null);
+    }
+
+    @Benchmark
+    public byte[] mapAndWriteShifts() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(shiftController.getShifts(jobId, null, null));
+    }
+}
@@ -0,0 +1,61 @@
+package com.zenjob.challenge.exceptions;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.Error;
+import com.zenjob.challenge.dto.Errors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This benchmark measures a rejected booking from the throw to the response body,
+ * once with a new exception filling in its stack trace and a new error list,
+ * and once with the shared stackless exception and the shared response.
+ * Run it with -PjmhProfilers=gc to see the allocation per rejection.
+ */
+@State(Scope.Benchmark)
+public class RejectionBenchmark {
+
+    /**
+     * depth is the number of frames between the controller and the throw
+     */
+    @Param({"20", "100"})
+    int depth;
+
+    @Benchmark
+    public Object stackTraceAndNewErrors() {
+        try {
+            reject(depth, true);
+            return null;
+        } catch (RuntimeException e) {
+            List<Error> errorList = new ArrayList<>();
+            errorList.add(new Error(e.getMessage()));
+            return Errors.of(errorList);
+        }
+    }
+
+    @Benchmark
+    public Object preallocated() {
+        try {
+            reject(depth, false);
+            return null;
+        } catch (ConstraintViolationException e) {
+            return Errors.of(e.getMessage());
+        }
+    }
+
+    private static void reject(int depth, boolean legacy) {
+        if (depth > 0) {
+            reject(depth - 1, legacy);
+            return;
+        }
+        if (legacy) {
+            throw new RuntimeException(ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID);
+        }
+        throw ConstraintViolationException.of(ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID);
+    }
+}
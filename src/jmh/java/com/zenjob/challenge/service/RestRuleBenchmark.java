@@ -0,0 +1,80 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.RepositoryStubs;
+import com.zenjob.challenge.config.ShardingProperties;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.sharding.ShardRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This benchmark measures the 6 hours break check for a talent with a shift history
+ * of the given size, on a loaded schedule and including the load of the schedule
+ */
+@State(Scope.Benchmark)
+public class RestRuleBenchmark {
+
+    private static final Instant HISTORY_START = Instant.parse("2000-01-01T08:00:00Z");
+
+    @Param({"10", "100", "1000", "10000"})
+    int history;
+
+    List<Shift> shifts;
+    UUID talentId;
+    TalentScheduleIndex loadedIndex;
+
+    /**
+     * a shift on a free day after the history
+     */
+    Instant freeStart;
+
+    /**
+     * a shift two hours after a shift in the middle of the history
+     */
+    Instant busyStart;
+
+    @Setup
+    public void setUp() {
+        talentId = UUID.randomUUID();
+        shifts = new ArrayList<>(history);
+        for (int idx = 0; idx < history; idx++) {
+            Instant start = HISTORY_START.plus(Duration.ofDays(idx));
+            shifts.add(Shift.builder()
+                    .id(UUID.randomUUID())
+                    .talentId(talentId)
+                    .startTime(start)
+                    .endTime(start.plus(Duration.ofHours(8)))
+                    .build());
+        }
+        freeStart = HISTORY_START.plus(Duration.ofDays(history + 1));
+        busyStart = HISTORY_START.plus(Duration.ofDays(history / 2)).plus(Duration.ofHours(10));
+        loadedIndex = new TalentScheduleIndex(RepositoryStubs.shiftRepository(shifts, Collections.emptyList()), new ShardRouter(new ShardingProperties(), null));
+        loadedIndex.hasConflictingShift(talentId, UUID.randomUUID(), freeStart, freeStart.plus(Duration.ofHours(8)));
+    }
+
+    @Benchmark
+    public boolean checkFreeSlot() {
+        return loadedIndex.hasConflictingShift(talentId, null, freeStart, freeStart.plus(Duration.ofHours(8)));
+    }
+
+    @Benchmark
+    public boolean checkBusySlot() {
+        return loadedIndex.hasConflictingShift(talentId, null, busyStart, busyStart.plus(Duration.ofHours(4)));
+    }
+
+    @Benchmark
+    public boolean loadScheduleAndCheck() {
+        TalentScheduleIndex index = new TalentScheduleIndex(RepositoryStubs.shiftRepository(shifts, Collections.emptyList()), new ShardRouter(new ShardingProperties(), null));
+        return index.hasConflictingShift(talentId, null, freeStart, freeStart.plus(Duration.ofHours(8)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Job;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * This benchmark measures building a job, which no longer depends on its number of days,
+ * and generating its shifts from the recurrence when they are listed
+ */
+@State(Scope.Benchmark)
+public class ShiftGenerationBenchmark {
+
+    @Param({"1", "7", "30", "365"})
+    int days;
+
+    UUID companyId;
+    LocalDateTime start;
+    LocalDateTime end;
+    JobRecurrence recurrence;
+
+    @Setup
+    public void setUp() {
+        companyId = UUID.randomUUID();
+        start = LocalDateTime.parse("2100-01-01T08:00:00");
+        end = start.plusDays(days - 1).withHour(16);
+        recurrence = JobRecurrence.of(JobService.buildJob(companyId, start, end));
+    }
+
+    @Benchmark
+    public Job buildJob() {
+        return JobService.buildJob(companyId, start, end);
+    }
+
+    @Benchmark
+    public List<ShiftView> generateShifts() {
+        return recurrence.shifts(Collections.emptyList(), null).collect(Collectors.toList());
+    }
+}
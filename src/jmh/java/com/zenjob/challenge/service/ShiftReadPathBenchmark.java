@@ -0,0 +1,68 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.Application;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Shift;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This benchmark measures listing the shifts of a year long job on the in-memory database
+ * as entities, as read-only views and from the cache,
+ * run it with -PjmhProfilers=gc to compare the allocation per listing
+ */
+@State(Scope.Benchmark)
+public class ShiftReadPathBenchmark {
+
+    ConfigurableApplicationContext context;
+    JobService jobService;
+
+    /**
+     * the service without its transactional proxy, so that the views can be read past the cache
+     */
+    JobService target;
+
+    UUID jobId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        jobService = context.getBean(JobService.class);
+        target = (JobService) AopProxyUtils.getSingletonTarget(jobService);
+        jobId = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-01-01T08:00:00"), LocalDateTime.parse("2100-12-31T12:00:00")).getId();
+        jobService.getShiftViews(jobId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Shift> readEntities() {
+        return jobService.getShifts(jobId);
+    }
+
+    @Benchmark
+    public List<ShiftView> readViews() {
+        return target.readShiftViews(jobId);
+    }
+
+    @Benchmark
+    public List<ShiftView> readCachedViews() {
+        return jobService.getShiftViews(jobId);
+    }
+}
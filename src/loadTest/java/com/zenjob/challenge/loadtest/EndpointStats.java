@@ -0,0 +1,92 @@
+package com.zenjob.challenge.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records the latencies and the response classes of one endpoint,
+ * recording is thread-safe and does not allocate
+ */
+class EndpointStats {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    final Operation operation;
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    EndpointStats(Operation operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * @param latencyNanos the time from the intended start of the request to the end of the response
+     * @param status       the HTTP status, or 0 if no response was received
+     */
+    void record(long latencyNanos, int status) {
+        recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+        if (status == 0) {
+            failures.increment();
+        } else if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        } else {
+            successes.increment();
+        }
+    }
+
+    /**
+     * skip counts an operation which had nothing to work on, like a job cancellation
+     * before any job was created by the run
+     */
+    void skip() {
+        skipped.increment();
+    }
+
+    /**
+     * reset drops everything recorded so far, it is used at the end of the warm up
+     */
+    void reset() {
+        recorder.reset();
+        successes.reset();
+        clientErrors.reset();
+        serverErrors.reset();
+        failures.reset();
+        skipped.reset();
+    }
+
+    /**
+     * @return the latencies recorded since the last reset, in nanoseconds
+     */
+    Histogram histogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+    long successes() {
+        return successes.sum();
+    }
+
+    long clientErrors() {
+        return clientErrors.sum();
+    }
+
+    long serverErrors() {
+        return serverErrors.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    long skipped() {
+        return skipped.sum();
+    }
+}
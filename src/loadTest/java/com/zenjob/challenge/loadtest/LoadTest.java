@@ -0,0 +1,159 @@
+package com.zenjob.challenge.loadtest;
+
+import com.zenjob.challenge.Application;
+import com.zenjob.challenge.service.JobService;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class starts the service on an in-memory H2 database, seeds it and drives
+ * a mixed workload of job and shift requests at a fixed request rate.
+ * <p>
+ * Requests are started on schedule whether earlier requests have finished or not,
+ * and every latency is measured from the time the request was scheduled to start,
+ * so a slow service shows up as high latency instead of as a lower request rate.
+ * <p>
+ * For every endpoint the run prints throughput and p50, p99, p99.9 latency, and writes
+ * the percentile distribution (.hgrm) and the histograms as an HdrHistogram log (.hlog)
+ * to the report directory. Runs with the same options before and after a change can be
+ * compared with any HdrHistogram plotter.
+ */
+public class LoadTest {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        System.out.println("load test: " + options);
+        ConfigurableApplicationContext context = SpringApplication.run(Application.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.threads.virtual.enabled=" + options.virtualThreads,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+            long seedStart = System.nanoTime();
+            try (Workload workload = Workload.seed(context.getBean(JobService.class), options, "http://localhost:" + port + contextPath)) {
+                System.out.printf("seeded %d jobs with %d shifts in %.1f s%n", workload.seededJobs(), workload.seededShifts(),
+                        (System.nanoTime() - seedStart) / 1e9);
+                Map<Operation, EndpointStats> stats = run(workload, options);
+                report(stats, options);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Map<Operation, EndpointStats> run(Workload workload, LoadTestOptions options) throws InterruptedException {
+        Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+        List<Operation> schedule = new ArrayList<>();
+        options.mix.forEach((operation, weight) -> {
+            stats.put(operation, new EndpointStats(operation));
+            for (int idx = 0; idx < weight; idx++) {
+                schedule.add(operation);
+            }
+        });
+
+        ExecutorService workers = Executors.newFixedThreadPool(options.threads);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        boolean measuring = options.warmupSeconds == 0;
+        for (long idx = 0; ; idx++) {
+            long intendedStart = start + idx * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            if (!measuring && intendedStart >= measureStart) {
+                // requests of the warm up which are still running are recorded, they are few at a stable rate
+                stats.values().forEach(EndpointStats::reset);
+                measuring = true;
+            }
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = schedule.get(ThreadLocalRandom.current().nextInt(schedule.size()));
+            EndpointStats endpointStats = stats.get(operation);
+            workers.execute(() -> {
+                int status = workload.execute(operation);
+                if (status == Workload.SKIPPED) {
+                    endpointStats.skip();
+                } else {
+                    endpointStats.record(System.nanoTime() - intendedStart, status);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        return stats;
+    }
+
+    private static void report(Map<Operation, EndpointStats> stats, LoadTestOptions options) throws IOException {
+        if (!options.reportDir.isDirectory() && !options.reportDir.mkdirs()) {
+            throw new IOException("cannot create " + options.reportDir);
+        }
+        long now = System.currentTimeMillis();
+        try (PrintStream summary = new PrintStream(new FileOutputStream(new File(options.reportDir, "summary.txt")));
+             PrintStream log = new PrintStream(new FileOutputStream(new File(options.reportDir, "latency.hlog")))) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(log);
+            logWriter.outputComment(options.toString());
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(now - TimeUnit.SECONDS.toMillis(options.durationSeconds));
+            logWriter.outputLegend();
+
+            String header = String.format("%-26s %8s %9s %9s %9s %9s %9s %7s %7s %7s %7s",
+                    "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "2xx", "4xx", "5xx", "failed");
+            System.out.println(header);
+            summary.println(options);
+            summary.println(header);
+            for (EndpointStats endpointStats : stats.values()) {
+                Histogram histogram = endpointStats.histogram();
+                String line = String.format("%-26s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %7d %7d %7d %7d",
+                        endpointStats.operation.endpoint,
+                        histogram.getTotalCount(),
+                        histogram.getTotalCount() / (double) options.durationSeconds,
+                        histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                        histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                        histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                        histogram.getMaxValue() / NANOS_PER_MILLI,
+                        endpointStats.successes(), endpointStats.clientErrors(), endpointStats.serverErrors(), endpointStats.failures());
+                System.out.println(line);
+                summary.println(line);
+                if (endpointStats.skipped() > 0) {
+                    summary.printf("%-26s skipped %d operations without a job to work on%n", "", endpointStats.skipped());
+                }
+
+                try (PrintStream distribution = new PrintStream(new FileOutputStream(
+                        new File(options.reportDir, endpointStats.operation.optionName + ".hgrm")))) {
+                    histogram.outputPercentileDistribution(distribution, NANOS_PER_MILLI);
+                }
+                histogram.setTag(endpointStats.operation.optionName);
+                histogram.setStartTimeStamp(now - TimeUnit.SECONDS.toMillis(options.durationSeconds));
+                histogram.setEndTimeStamp(now);
+                logWriter.outputIntervalHistogram(histogram);
+            }
+        }
+        System.out.println("histograms written to " + options.reportDir.getAbsolutePath());
+    }
+}
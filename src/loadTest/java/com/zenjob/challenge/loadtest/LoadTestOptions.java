@@ -0,0 +1,95 @@
+package com.zenjob.challenge.loadtest;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds the options of a load test run, given as --name=value arguments
+ */
+class LoadTestOptions {
+
+    /**
+     * the number of jobs created before the run
+     */
+    final int seedJobs;
+
+    /**
+     * the number of days, and so of shifts, of every seeded job
+     */
+    final int seedDays;
+
+    /**
+     * the number of requests started per second
+     */
+    final int rate;
+
+    /**
+     * the measured duration of the run in seconds
+     */
+    final int durationSeconds;
+
+    /**
+     * the duration in seconds before the measurement starts
+     */
+    final int warmupSeconds;
+
+    /**
+     * the number of threads sending requests
+     */
+    final int threads;
+
+    /**
+     * whether the service serves requests on virtual threads instead of the Tomcat thread pool
+     */
+    final boolean virtualThreads;
+
+    /**
+     * the relative weight of every operation in the workload
+     */
+    final Map<Operation, Integer> mix;
+
+    /**
+     * the directory the histograms are written to
+     */
+    final File reportDir;
+
+    private LoadTestOptions(Map<String, String> values) {
+        this.seedJobs = Integer.parseInt(values.getOrDefault("seed-jobs", "1000"));
+        this.seedDays = Integer.parseInt(values.getOrDefault("seed-days", "30"));
+        this.rate = Integer.parseInt(values.getOrDefault("rate", "200"));
+        this.durationSeconds = Integer.parseInt(values.getOrDefault("duration", "60"));
+        this.warmupSeconds = Integer.parseInt(values.getOrDefault("warmup", "10"));
+        this.threads = Integer.parseInt(values.getOrDefault("threads", "64"));
+        this.virtualThreads = Boolean.parseBoolean(values.getOrDefault("virtual-threads", "false"));
+        this.mix = parseMix(values.getOrDefault("mix", "create:1,list:10,book:4,cancel-shift:1,cancel-job:1"));
+        this.reportDir = new File(values.getOrDefault("report-dir", "build/reports/loadtest"));
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("arguments must look like --name=value: " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            weights.put(Operation.byName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("seed-jobs=%d seed-days=%d rate=%d/s duration=%ds warmup=%ds threads=%d virtual-threads=%b mix=%s",
+                seedJobs, seedDays, rate, durationSeconds, warmupSeconds, threads, virtualThreads, mix);
+    }
+}
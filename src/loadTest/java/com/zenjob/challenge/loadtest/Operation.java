@@ -0,0 +1,30 @@
+package com.zenjob.challenge.loadtest;
+
+/**
+ * This enum lists the operations of the workload and the endpoint each of them calls
+ */
+enum Operation {
+
+    CREATE("create", "POST /job"),
+    LIST("list", "GET /shift/{jobId}"),
+    BOOK("book", "PATCH /shift/{id}/book"),
+    CANCEL_SHIFT("cancel-shift", "DELETE /shift/{shiftId}"),
+    CANCEL_JOB("cancel-job", "DELETE /job/{jobId}");
+
+    final String optionName;
+    final String endpoint;
+
+    Operation(String optionName, String endpoint) {
+        this.optionName = optionName;
+        this.endpoint = endpoint;
+    }
+
+    static Operation byName(String optionName) {
+        for (Operation operation : values()) {
+            if (operation.optionName.equals(optionName)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("unknown operation " + optionName);
+    }
+}
@@ -0,0 +1,177 @@
+package com.zenjob.challenge.loadtest;
+
+import com.zenjob.challenge.dto.JobRequest;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.service.JobService;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class seeds the service with jobs and sends the requests of the workload.
+ * <p>
+ * Listings and bookings pick a random seeded job or shift, booking conflicts and shifts
+ * which were cancelled by the run answer with 400, which is expected and reported as a client error.
+ * Job cancellations only cancel jobs created by the run, so the seeded data stays available.
+ */
+class Workload implements Closeable {
+
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.parse("2100-01-01T08:00:00");
+    private static final int SEED_BATCH_SIZE = 100;
+    private static final Pattern JOB_ID = Pattern.compile("\"jobId\"\\s*:\\s*\"([0-9a-fA-F-]{36})\"");
+
+    /**
+     * the value returned by execute when the operation had nothing to work on
+     */
+    static final int SKIPPED = -1;
+
+    private final String baseUrl;
+    private final List<UUID> seededJobIds;
+    private final List<UUID> seededShiftIds;
+    private final ConcurrentLinkedQueue<UUID> createdJobIds = new ConcurrentLinkedQueue<>();
+    private final CloseableHttpClient httpClient;
+
+    private Workload(String baseUrl, List<UUID> seededJobIds, List<UUID> seededShiftIds, int connections) {
+        this.baseUrl = baseUrl;
+        this.seededJobIds = seededJobIds;
+        this.seededShiftIds = seededShiftIds;
+        this.httpClient = HttpClients.custom()
+                .setMaxConnTotal(connections)
+                .setMaxConnPerRoute(connections)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(5_000)
+                        .setSocketTimeout(30_000)
+                        .build())
+                .build();
+    }
+
+    /**
+     * seed creates the jobs of the data volume through the service, which is faster than through HTTP
+     *
+     * @param jobService the service of the started application
+     * @param options    the options of the run
+     * @param baseUrl    the URL of the started application, including the context path
+     * @return the workload working on the seeded jobs
+     */
+    static Workload seed(JobService jobService, LoadTestOptions options, String baseUrl) {
+        List<UUID> jobIds = new ArrayList<>(options.seedJobs);
+        List<UUID> shiftIds = new ArrayList<>(options.seedJobs * options.seedDays);
+        for (int first = 0; first < options.seedJobs; first += SEED_BATCH_SIZE) {
+            List<JobRequest> requests = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int idx = first; idx < Math.min(first + SEED_BATCH_SIZE, options.seedJobs); idx++) {
+                LocalDateTime start = FIRST_DAY.plusDays(idx % 365).plusHours(idx % 4);
+                requests.add(new JobRequest(UUID.randomUUID(), start, start.plusDays(options.seedDays - 1).plusHours(4)));
+            }
+            for (Job job : jobService.createJobs(requests)) {
+                jobIds.add(job.getId());
+            }
+        }
+        for (UUID jobId : jobIds) {
+            for (ShiftView shift : jobService.getShiftViews(jobId)) {
+                shiftIds.add(shift.getId());
+            }
+        }
+        return new Workload(baseUrl, jobIds, shiftIds, options.threads);
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    int seededJobs() {
+        return seededJobIds.size();
+    }
+
+    int seededShifts() {
+        return seededShiftIds.size();
+    }
+
+    /**
+     * execute sends the request of the operation and reads the whole response
+     *
+     * @param operation the operation to execute
+     * @return the HTTP status, 0 if the request failed, SKIPPED if there was nothing to work on
+     */
+    int execute(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case CREATE:
+                return createJob(random);
+            case LIST:
+                return send("GET", "/shift/" + pick(seededJobIds, random), null).status;
+            case BOOK:
+                return send("PATCH", "/shift/" + pick(seededShiftIds, random) + "/book",
+                        "{\"talent\":\"" + UUID.randomUUID() + "\"}").status;
+            case CANCEL_SHIFT:
+                return send("DELETE", "/shift/" + pick(seededShiftIds, random), null).status;
+            case CANCEL_JOB:
+                UUID jobId = createdJobIds.poll();
+                return jobId == null ? SKIPPED : send("DELETE", "/job/" + jobId, null).status;
+            default:
+                throw new IllegalArgumentException("unknown operation " + operation);
+        }
+    }
+
+    private int createJob(ThreadLocalRandom random) {
+        LocalDateTime start = FIRST_DAY.plusDays(random.nextInt(365)).plusHours(random.nextInt(4));
+        String body = "{\"companyId\":\"" + UUID.randomUUID() + "\","
+                + "\"start\":\"" + start + "\","
+                + "\"end\":\"" + start.plusDays(random.nextInt(7)).plusHours(2 + random.nextInt(6)) + "\"}";
+        Response response = send("POST", "/job", body);
+        if (response.status == 200) {
+            Matcher matcher = JOB_ID.matcher(response.body);
+            if (matcher.find()) {
+                createdJobIds.add(UUID.fromString(matcher.group(1)));
+            }
+        }
+        return response.status;
+    }
+
+    private Response send(String method, String path, String body) {
+        RequestBuilder request = RequestBuilder.create(method).setUri(baseUrl + path);
+        if (body != null) {
+            request.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        }
+        try (CloseableHttpResponse response = httpClient.execute(request.build())) {
+            HttpEntity entity = response.getEntity();
+            return new Response(response.getStatusLine().getStatusCode(), entity == null ? "" : EntityUtils.toString(entity));
+        } catch (IOException e) {
+            return new Response(0, "");
+        }
+    }
+
+    private static UUID pick(List<UUID> ids, ThreadLocalRandom random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private static class Response {
+
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.zenjob.challenge.admission;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class limits the number of JobService operations in progress, including their transactions,
+ * which are called while serving a web request, from the controllers or the streamed responses they return.
+ * The calls of the background threads, the BookingBatcher and the JobCancellationTracker, are not limited,
+ * they are bounded by their own threads and would otherwise fail the requests they work for.
+ * <p>
+ * An operation which finds every permit taken is rejected at once instead of waiting for one,
+ * so excess load does not hold threads and database connections while it queues.
+ * It runs inside the JobServiceMetricsAspect, which records the rejections as throttled.
+ * The limit is local to this instance of the service.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class AdmissionControlAspect {
+
+    static final String IN_FLIGHT_NAME = "admission.in.flight";
+    static final String LIMITER = "concurrency";
+
+    private final Semaphore permits;
+    private final int maxConcurrentCalls;
+    private final TooManyRequestsException rejection;
+
+    private final Counter admittedCounter;
+    private final Counter rejectedCounter;
+
+    public AdmissionControlAspect(MeterRegistry meterRegistry,
+                                  @Value("${admission.max-concurrent-calls:64}") int maxConcurrentCalls,
+                                  @Value("${admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.permits = new Semaphore(maxConcurrentCalls);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        // the rejection carries no stack trace and no per request state, it is shared
+        this.rejection = new TooManyRequestsException(ErrorMessages.TOO_MANY_CONCURRENT_REQUESTS, retryAfterSeconds);
+        this.admittedCounter = decisionCounter(meterRegistry, "admitted");
+        this.rejectedCounter = decisionCounter(meterRegistry, "rejected");
+        Gauge.builder(IN_FLIGHT_NAME, this, AdmissionControlAspect::inFlight)
+                .description("JobService operations in progress")
+                .register(meterRegistry);
+    }
+
+    @Around("execution(public * com.zenjob.challenge.service.JobService.*(..))")
+    public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return joinPoint.proceed();
+        }
+        if (!permits.tryAcquire()) {
+            rejectedCounter.increment();
+            throw rejection;
+        }
+        admittedCounter.increment();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * inFlight returns the number of operations in progress
+     *
+     * @return the number of taken permits
+     */
+    public int inFlight() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(CompanyRateLimiter.DECISIONS_NAME)
+                .description("Requests admitted or rejected by a limiter")
+                .tag("limiter", LIMITER)
+                .tag("tier", "none")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,176 @@
+package com.zenjob.challenge.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zenjob.challenge.config.RateLimitProperties;
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import com.zenjob.challenge.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * This class limits the rate of the write requests of every company with a token bucket per company.
+ * <p>
+ * The buckets are kept in a bounded map which is read without locking, a bucket is dropped
+ * once it was not used for long enough to be full again, so a dropped bucket is the same as a new one.
+ * The company of a shift or job is cached, the shifts of recurring jobs name their job in their id,
+ * and it is read from the shard of the shift or job.
+ * Shifts and jobs which do not exist are not limited, the service rejects them.
+ * The buckets are local to this instance of the service.
+ */
+@Component
+public class CompanyRateLimiter {
+
+    static final String DECISIONS_NAME = "admission.decisions";
+    static final String LIMITER = "company";
+
+    private final RateLimitProperties properties;
+    private final JobRepository jobRepository;
+    private final ShiftRepository shiftRepository;
+    private final ShardRouter shardRouter;
+    private final LongSupplier nanoTime;
+
+    private final Cache<UUID, TokenBucket> buckets;
+    private final Cache<UUID, UUID> companyIdsByJobId;
+    private final Map<String, Counter> admittedCounters = new HashMap<>();
+    private final Map<String, Counter> rejectedCounters = new HashMap<>();
+
+    @Autowired
+    public CompanyRateLimiter(RateLimitProperties properties, JobRepository jobRepository, ShiftRepository shiftRepository,
+                              ShardRouter shardRouter, MeterRegistry meterRegistry) {
+        this(properties, jobRepository, shiftRepository, shardRouter, meterRegistry, System::nanoTime);
+    }
+
+    CompanyRateLimiter(RateLimitProperties properties, JobRepository jobRepository, ShiftRepository shiftRepository,
+                       ShardRouter shardRouter, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        if (!properties.getTiers().containsKey(properties.getDefaultTier())) {
+            throw new IllegalStateException("rate-limit.default-tier " + properties.getDefaultTier() + " is not one of the tiers");
+        }
+        properties.getCompanies().forEach((companyId, tier) -> {
+            if (!properties.getTiers().containsKey(tier)) {
+                throw new IllegalStateException("rate-limit tier " + tier + " of company " + companyId + " is not one of the tiers");
+            }
+        });
+        this.properties = properties;
+        this.jobRepository = jobRepository;
+        this.shiftRepository = shiftRepository;
+        this.shardRouter = shardRouter;
+        this.nanoTime = nanoTime;
+        double longestRefillSeconds = properties.getTiers().values().stream()
+                .mapToDouble(tier -> tier.getCapacity() / tier.getRefillPerSecond())
+                .max()
+                .orElse(0);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumCompanies())
+                .expireAfterAccess(Duration.ofNanos((long) Math.ceil(longestRefillSeconds * TimeUnit.SECONDS.toNanos(1))))
+                .build();
+        this.companyIdsByJobId = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumCompanies())
+                .build();
+        for (String tier : properties.getTiers().keySet()) {
+            admittedCounters.put(tier, decisionCounter(meterRegistry, tier, "admitted"));
+            rejectedCounters.put(tier, decisionCounter(meterRegistry, tier, "rejected"));
+        }
+    }
+
+    /**
+     * acquire takes tokens from the bucket of the company
+     *
+     * @param companyId the unique id of the company
+     * @param permits   the number of requests
+     * @throws TooManyRequestsException when the bucket of the company does not hold enough tokens
+     */
+    public void acquire(UUID companyId, int permits) throws TooManyRequestsException {
+        long retryAfterSeconds = tryAcquire(companyId, permits);
+        if (retryAfterSeconds > 0) {
+            throw new TooManyRequestsException(ErrorMessages.RATE_LIMIT_EXCEEDED, retryAfterSeconds);
+        }
+    }
+
+    /**
+     * tryAcquire takes tokens from the bucket of the company if it holds enough of them
+     *
+     * @param companyId the unique id of the company
+     * @param permits   the number of requests
+     * @return 0 if the requests are admitted, otherwise the seconds after which they may be admitted
+     */
+    public long tryAcquire(UUID companyId, int permits) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        String tierName = properties.getCompanies().getOrDefault(companyId, properties.getDefaultTier());
+        RateLimitProperties.Tier tier = properties.getTiers().get(tierName);
+        long now = nanoTime.getAsLong();
+        long waitNanos = buckets.get(companyId, id -> new TokenBucket(tier.getCapacity(), tier.getRefillPerSecond(), now))
+                .tryAcquire(permits, now);
+        if (waitNanos == 0) {
+            admittedCounters.get(tierName).increment();
+            return 0;
+        }
+        rejectedCounters.get(tierName).increment();
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * acquireForJob takes a token from the bucket of the company of the job
+     *
+     * @param jobId the unique id of the job
+     * @throws TooManyRequestsException when the bucket of the company does not hold enough tokens
+     */
+    public void acquireForJob(UUID jobId) throws TooManyRequestsException {
+        if (properties.isEnabled()) {
+            companyIdOfJob(jobId).ifPresent(companyId -> acquire(companyId, 1));
+        }
+    }
+
+    /**
+     * acquireForShift takes a token from the bucket of the company of the shift
+     *
+     * @param shiftId the unique id of the shift
+     * @throws TooManyRequestsException when the bucket of the company does not hold enough tokens
+     */
+    public void acquireForShift(UUID shiftId) throws TooManyRequestsException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Optional<UUID> companyId = companyIdOfJob(JobRecurrence.jobIdOf(shiftId));
+        if (companyId.isEmpty()) {
+            companyId = shardRouter.onShardOf(shiftId, () -> shiftRepository.findCompanyIdById(shiftId));
+        }
+        companyId.ifPresent(id -> acquire(id, 1));
+    }
+
+    private Optional<UUID> companyIdOfJob(UUID jobId) {
+        UUID companyId = companyIdsByJobId.getIfPresent(jobId);
+        if (companyId != null) {
+            return Optional.of(companyId);
+        }
+        // the company of a job never changes, only jobs which exist are cached
+        Optional<UUID> found = shardRouter.onShardOf(jobId, () -> jobRepository.findCompanyIdById(jobId));
+        found.ifPresent(id -> companyIdsByJobId.put(jobId, id));
+        return found;
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String tier, String outcome) {
+        return Counter.builder(DECISIONS_NAME)
+                .description("Requests admitted or rejected by a limiter")
+                .tag("limiter", LIMITER)
+                .tag("tier", tier)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.zenjob.challenge.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a token bucket which holds up to capacity tokens and gains refillPerSecond tokens per second.
+ * <p>
+ * Instead of the tokens the bucket keeps the time at which it would be full again, so its whole state
+ * is one long which is updated with compare and set, acquiring tokens neither locks nor allocates.
+ * A bucket which was not used for capacity / refillPerSecond seconds is full.
+ */
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(long capacity, double refillPerSecond, long now) {
+        this.nanosPerToken = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = nanosPerToken * capacity;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * tryAcquire takes the tokens from the bucket if it holds enough of them
+     *
+     * @param permits the number of tokens
+     * @param now     the current time in nanoseconds of System.nanoTime
+     * @return 0 if the tokens were taken, otherwise the nanoseconds until the bucket holds enough tokens
+     */
+    long tryAcquire(int permits, long now) {
+        long cost = nanosPerToken * permits;
+        while (true) {
+            long current = fullAt.get();
+            // a bucket which is already full again has no debt to add the cost to
+            long next = (current - now > 0 ? current : now) + cost;
+            long debt = next - now;
+            if (debt > burstNanos) {
+                return debt - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
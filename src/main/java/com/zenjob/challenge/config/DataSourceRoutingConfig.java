@@ -0,0 +1,55 @@
+package com.zenjob.challenge.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zenjob.challenge.datasource.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * This class replaces the datasource by one which routes read-only transactions to a replica,
+ * the primary is configured by spring.datasource and the replica by spring.datasource.replica.
+ * The datasource of the ShardingConfig replaces it when sharding is enabled too, the shards have no replicas.
+ */
+@Configuration
+@ConditionalOnExpression(DataSourceRoutingConfig.ENABLED)
+public class DataSourceRoutingConfig {
+
+    public static final String ENABLED = "${datasource-routing.enabled:false} and !${sharding.enabled:false}";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * the pool of the replica is started with its first connection, so that the service starts without the replica
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                        @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                        @Value("${datasource-routing.replica-retry-millis:5000}") long replicaRetryMillis) {
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, replicaRetryMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,20 @@
+package com.zenjob.challenge.config;
+
+import com.zenjob.challenge.metrics.PersistenceActivityInterceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceMetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer persistenceActivityCustomizer() {
+        PersistenceActivityInterceptor interceptor = new PersistenceActivityInterceptor();
+        return properties -> {
+            properties.put(AvailableSettings.INTERCEPTOR, interceptor);
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, interceptor);
+        };
+    }
+}
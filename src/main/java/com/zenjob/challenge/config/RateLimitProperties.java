@@ -0,0 +1,49 @@
+package com.zenjob.challenge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This class holds the rate limits of the write endpoints per company.
+ * Every company is limited by the tier it is mapped to, or by the default tier.
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    private String defaultTier = "standard";
+
+    /**
+     * the maximum number of companies with a bucket, a company whose bucket is dropped starts with a full one
+     */
+    private long maximumCompanies = 100_000;
+
+    private Map<String, Tier> tiers = new HashMap<>(Map.of("standard", new Tier()));
+
+    /**
+     * the name of the tier by company id
+     */
+    private Map<UUID, String> companies = new HashMap<>();
+
+    @Data
+    public static class Tier {
+
+        /**
+         * the number of requests a company can send at once
+         */
+        private long capacity = 50;
+
+        /**
+         * the number of requests per second a company can send over time
+         */
+        private double refillPerSecond = 10;
+    }
+}
@@ -0,0 +1,88 @@
+package com.zenjob.challenge.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.Expirable;
+import com.zenjob.challenge.constants.CacheRegions;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.SerializationUtils;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * This class exports the regions of the second-level cache when it is enabled, with the l2cache profile.
+ * Every region is a Caffeine cache whose requests, hit ratio, evictions and number of entries are exported
+ * tagged with the name of the region.
+ * <p>
+ * The memory of a region is estimated from the serialized size of a sample of its entries times its number of entries,
+ * the entries hold the disassembled state of the entities so this is close to, but not, their size on the heap.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheMetricsConfig {
+
+    static final String HIT_RATIO_NAME = "cache.hit.ratio";
+    static final String ESTIMATED_MEMORY_NAME = "cache.memory.estimated";
+
+    private static final int SAMPLED_ENTRIES = 100;
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            CacheImplementor secondLevelCache = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache();
+            // query regions are created on their first use, they are created here to be exported from the start
+            secondLevelCache.getQueryResultsCache(CacheRegions.SHIFTS_OF_JOB);
+            CacheManager cacheManager = ((JCacheRegionFactory) secondLevelCache.getRegionFactory()).getCacheManager();
+            for (String region : cacheManager.getCacheNames()) {
+                Cache<?, ?> cache = cacheManager.getCache(region).unwrap(Cache.class);
+                CaffeineCacheMetrics.monitor(registry, cache, region);
+                Gauge.builder(HIT_RATIO_NAME, cache, regionCache -> regionCache.stats().hitRate())
+                        .description("The share of the requests to the region which were hits")
+                        .tag("cache", region)
+                        .register(registry);
+                Gauge.builder(ESTIMATED_MEMORY_NAME, cache, SecondLevelCacheMetricsConfig::estimatedBytes)
+                        .description("The estimated memory of the entries of the region")
+                        .baseUnit(BaseUnits.BYTES)
+                        .tag("cache", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * estimatedBytes serializes at most 100 entries of the region, so a scrape costs the same for every size of the region
+     */
+    static double estimatedBytes(Cache<?, ?> cache) {
+        long entries = cache.estimatedSize();
+        List<? extends Map.Entry<?, ?>> sample = cache.asMap().entrySet().stream()
+                .limit(SAMPLED_ENTRIES)
+                .collect(Collectors.toList());
+        if (entries == 0 || sample.isEmpty()) {
+            return 0;
+        }
+        long sampledBytes = sample.stream()
+                .mapToLong(entry -> serializedSize(entry.getKey()) + serializedSize(entry.getValue()))
+                .sum();
+        return (double) sampledBytes / sample.size() * entries;
+    }
+
+    /**
+     * The JCache adapter keeps every value in an Expirable, which is not serializable itself
+     */
+    private static long serializedSize(Object value) {
+        byte[] serialized = SerializationUtils.serialize(value instanceof Expirable ? ((Expirable<?>) value).get() : value);
+        return serialized == null ? 0 : serialized.length;
+    }
+}
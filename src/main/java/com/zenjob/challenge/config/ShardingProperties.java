@@ -0,0 +1,37 @@
+package com.zenjob.challenge.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class holds the databases jobs and shifts are sharded over, see application-sharded.yml.
+ * Without sharding everything is kept in the database configured by spring.datasource.
+ */
+@Component
+@ConfigurationProperties(prefix = "sharding")
+@Data
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * the connection pools of the shards, the position of a shard in the list is its index
+     * and shards may only be appended to the list
+     */
+    private List<HikariConfig> shards = new ArrayList<>();
+
+    /**
+     * moves the jobs which are stored on another shard than the one they belong to before the service starts
+     */
+    private boolean rebalanceOnStartup = false;
+
+    /**
+     * the number of jobs moved to another shard in one transaction
+     */
+    private int rebalanceBatchSize = 500;
+}
@@ -0,0 +1,29 @@
+package com.zenjob.challenge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This class holds the talents which substitute a talent whose shifts are cancelled.
+ * The shifts of a talent are only cancelled if the candidates can take over all of them.
+ */
+@Component
+@ConfigurationProperties(prefix = "substitution")
+@Data
+public class SubstitutionProperties {
+
+    /**
+     * the talents which may take over the shifts of another talent
+     */
+    private List<UUID> candidates = new ArrayList<>();
+
+    /**
+     * the number of days of shifts which are planned by one fork-join task
+     */
+    private int daysPerTask = 7;
+}
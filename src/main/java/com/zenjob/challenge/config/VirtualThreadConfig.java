@@ -0,0 +1,48 @@
+package com.zenjob.challenge.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves every web request, and so every service call made by a controller,
+ * on its own virtual thread instead of a thread of the Tomcat pool.
+ * It is switched on with spring.threads.virtual.enabled=true, the same property
+ * later versions of Spring Boot use for their own virtual thread support.
+ * <p>
+ * Tomcat does not stop an executor it was given, so the executor is a bean which is closed
+ * once the web server stopped, waiting for the requests which are still running.
+ * Since the executor replaces the task executor Spring Boot would configure, the streamed
+ * responses are written on its virtual threads as well.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService webRequestExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService webRequestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(webRequestExecutor);
+    }
+
+    @Bean
+    public WebMvcConfigurer virtualThreadAsyncSupport(ExecutorService webRequestExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new TaskExecutorAdapter(webRequestExecutor));
+            }
+        };
+    }
+}
@@ -4,4 +4,12 @@ public class APIConstants {
     public static final String APPLICATION_TITLE = "ZenJob Job Management API";
     public static final String APPLICATION_VERSION = "1.0";
     public static final String APPLICATION_DESCRIPTION = "This API is used to connect companies to Talents";
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final int IMPORT_CHUNK_SIZE = 500;
+    public static final int MAX_REPORTED_IMPORT_ERRORS = 1000;
+    public static final int MAX_IMPORT_RECORD_LENGTH = 1024;
 }
@@ -0,0 +1,11 @@
+package com.zenjob.challenge.constants;
+
+/**
+ * This class contains the regions of the Hibernate second-level cache,
+ * every region is configured with its bound in application.conf
+ */
+public class CacheRegions {
+    public static final String JOB = "job";
+    public static final String SHIFT = "shift";
+    public static final String SHIFTS_OF_JOB = "shiftsOfJob";
+}
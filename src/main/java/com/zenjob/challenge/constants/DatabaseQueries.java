@@ -5,7 +5,53 @@ package com.zenjob.challenge.constants;
  */
 public class DatabaseQueries {
 
-    public static final String CANCEL_ALL_SHIFTS_FOR_TALENT = "Update Shift set talentId = ?2 where talentId = ?1";
-    public static final String FIND_SHIFTS_FOR_TALENT = "from Shift s where s.talentId = ?1";
+    public static final String FIND_SHIFTS_FOR_TALENT = "from Shift s where s.talentId = ?1 order by s.startTime";
+    public static final String FIND_SHIFTS_FOR_TALENTS = "from Shift s where s.talentId in ?1";
+    public static final String FIND_SHIFTS_FOR_JOB = "from Shift s where s.job.id = ?1 order by s.startTime";
+    public static final String FIND_SHIFT_VIEWS_FOR_JOB = "select new com.zenjob.challenge.dto.ShiftView(s.id, s.talentId, s.job.id, s.startTime, s.endTime) from Shift s where s.job.id = ?1 order by s.startTime, s.id";
+    public static final String FIND_SHIFT_VIEWS_FOR_JOB_AFTER = "select new com.zenjob.challenge.dto.ShiftView(s.id, s.talentId, s.job.id, s.startTime, s.endTime) from Shift s where s.job.id = ?1 and (s.startTime > ?2 or (s.startTime = ?2 and s.id > ?3)) order by s.startTime, s.id";
+    public static final String FIND_SHIFT_VIEWS_FOR_TALENT = "select new com.zenjob.challenge.dto.ShiftView(s.id, s.talentId, s.job.id, s.startTime, s.endTime) from Shift s where s.talentId = ?1";
+    public static final String FIND_SHIFT_VIEWS_FOR_TALENT_STARTING_BETWEEN = "select new com.zenjob.challenge.dto.ShiftView(s.id, s.talentId, s.job.id, s.startTime, s.endTime) from Shift s where s.talentId = ?1 and s.startTime >= ?2 and s.startTime < ?3 order by s.startTime, s.id";
+    public static final String FIND_SHIFT_VIEWS_FOR_TALENT_STARTING_AFTER = "select new com.zenjob.challenge.dto.ShiftView(s.id, s.talentId, s.job.id, s.startTime, s.endTime) from Shift s where s.talentId = ?1 and (s.startTime > ?2 or (s.startTime = ?2 and s.id > ?3)) and s.startTime < ?4 order by s.startTime, s.id";
+    public static final String FIND_SHIFT_VIEWS_FOR_TALENTS_BETWEEN = "select new com.zenjob.challenge.dto.ShiftView(s.id, s.talentId, s.job.id, s.startTime, s.endTime) from Shift s where s.talentId in ?1 and s.startTime < ?2 and s.endTime > ?3";
+    public static final String FIND_CLOSE_SHIFT_IDS_FOR_TALENT = "select s.id from Shift s where s.talentId = ?1 and s.id <> ?2 and s.startTime > ?3 and s.startTime < ?4 and s.endTime > ?5";
+    public static final String FIND_STORED_SHIFT = "select new com.zenjob.challenge.dto.StoredShift(s.id, s.talentId, s.job.id, s.startTime, s.endTime, s.cancelled) from Shift s where s.id = ?1";
+    public static final String FIND_STORED_SHIFTS_FOR_JOB = "select new com.zenjob.challenge.dto.StoredShift(s.id, s.talentId, s.job.id, s.startTime, s.endTime, s.cancelled) from Shift s where s.job.id = ?1";
+    public static final String FIND_BOOKED_SHIFT_VIEWS_FOR_JOB = "select new com.zenjob.challenge.dto.ShiftView(s.id, s.talentId, s.job.id, s.startTime, s.endTime) from Shift s where s.job.id = ?1 and s.talentId is not null";
+    public static final String DELETE_SHIFTS_FOR_JOB = "delete from Shift s where s.job.id = ?1";
+    public static final String DELETE_SHIFT = "delete from Shift s where s.id = ?1";
+    public static final String CANCEL_SHIFT = "update Shift s set s.cancelled = true, s.talentId = null, s.version = s.version + 1 where s.id = ?1 and s.cancelled = false";
+    public static final String DECREMENT_ACTIVE_SHIFT_COUNT = "update Job j set j.activeShiftCount = j.activeShiftCount - 1 where j.id = ?1 and j.activeShiftCount > 1";
+    public static final String DELETE_JOB = "delete from Job j where j.id = ?1";
+    public static final String FIND_COMPANY_ID_OF_JOB = "select j.companyId from Job j where j.id = ?1";
+    public static final String FIND_COMPANY_ID_OF_SHIFT = "select s.job.companyId from Shift s where s.id = ?1";
+    public static final String FIND_JOB_RECURRENCE = "select new com.zenjob.challenge.dto.JobRecurrence(j.id, j.startTime, j.endTime, j.recurring, j.activeShiftCount) from Job j where j.id = ?1";
+    public static final String FIND_JOB_RECURRENCES = "select new com.zenjob.challenge.dto.JobRecurrence(j.id, j.startTime, j.endTime, j.recurring, j.activeShiftCount) from Job j where j.id in ?1";
+    public static final String STREAM_SHIFTS_FOR_JOB = "SELECT id, talent_id, job_id, start_time, end_time FROM shift WHERE job_id = ? ORDER BY start_time, id";
+    public static final String STREAM_SHIFTS_FOR_COMPANY = "SELECT j.id AS job_id, j.start_time AS job_start_time, j.end_time AS job_end_time, j.recurring, j.active_shift_count,"
+            + " s.id, s.talent_id, s.start_time, s.end_time, s.cancelled"
+            + " FROM job_process j LEFT JOIN shift s ON s.job_id = j.id AND s.start_time >= ? AND s.start_time < ?"
+            + " WHERE j.company_id = ? AND j.start_time < ? AND j.end_time > ?"
+            + " ORDER BY j.start_time, j.id, s.start_time, s.id";
+
+    // native queries of the reactive repositories, parameters are bound by name
+    public static final String R2DBC_INSERT_JOB = "INSERT INTO job_process (id, version, company_id, start_time, end_time, active_shift_count, recurring, created_at, updated_at) VALUES (:id, 0, :companyId, :startTime, :endTime, :activeShiftCount, :recurring, :now, :now)";
+    public static final String R2DBC_FIND_JOB_RECURRENCE = "SELECT id, start_time, end_time, recurring, active_shift_count FROM job_process WHERE id = :id";
+    public static final String R2DBC_INSERT_SHIFT = "INSERT INTO shift (id, version, talent_id, job_id, start_time, end_time, cancelled, created_at, updated_at) VALUES (:id, 0, :talentId, :jobId, :startTime, :endTime, :cancelled, :now, :now)";
+    public static final String R2DBC_DECREMENT_ACTIVE_SHIFT_COUNT = "UPDATE job_process SET active_shift_count = active_shift_count - 1 WHERE id = :id AND active_shift_count > 1";
+    public static final String R2DBC_DELETE_JOB = "DELETE FROM job_process WHERE id = :id";
+    public static final String R2DBC_FIND_SHIFT = "SELECT id, version, talent_id, job_id, start_time, end_time, cancelled FROM shift WHERE id = :id";
+    public static final String R2DBC_FIND_STORED_SHIFTS_FOR_JOB = "SELECT id, talent_id, job_id, start_time, end_time, cancelled FROM shift WHERE job_id = :jobId";
+    public static final String R2DBC_FIND_SHIFTS_FOR_JOB = "SELECT id, talent_id, job_id, start_time, end_time FROM shift WHERE job_id = :jobId ORDER BY start_time, id";
+    public static final String R2DBC_FIND_SHIFT_PAGE_FOR_JOB = "SELECT id, talent_id, job_id, start_time, end_time FROM shift WHERE job_id = :jobId ORDER BY start_time, id LIMIT :limit";
+    public static final String R2DBC_FIND_SHIFT_PAGE_FOR_JOB_AFTER = "SELECT id, talent_id, job_id, start_time, end_time FROM shift WHERE job_id = :jobId AND (start_time > :start OR (start_time = :start AND id > :id)) ORDER BY start_time, id LIMIT :limit";
+    public static final String R2DBC_EXISTS_CONFLICTING_SHIFT = "SELECT 1 FROM shift WHERE talent_id = :talentId AND id <> :shiftId AND start_time < :latestStart AND end_time > :earliestEnd LIMIT 1";
+    public static final String R2DBC_FIND_SHIFTS_FOR_TALENT = "SELECT id, talent_id, job_id, start_time, end_time FROM shift WHERE talent_id = :talentId";
+    public static final String R2DBC_FIND_SHIFTS_FOR_TALENT_BETWEEN = "SELECT id, talent_id, job_id, start_time, end_time FROM shift WHERE talent_id = :talentId AND start_time < :latestStart AND end_time > :earliestEnd";
+    public static final String R2DBC_BOOK_SHIFT = "UPDATE shift SET talent_id = :talentId, version = version + 1, updated_at = :now WHERE id = :id AND version = :version";
+    public static final String R2DBC_SUBSTITUTE_TALENT = "UPDATE shift SET talent_id = :newTalentId, version = version + 1, updated_at = :now WHERE id = :id AND talent_id = :talentId";
+    public static final String R2DBC_CANCEL_SHIFT = "UPDATE shift SET cancelled = TRUE, talent_id = NULL, version = version + 1, updated_at = :now WHERE id = :id AND cancelled = FALSE";
+    public static final String R2DBC_DELETE_SHIFT = "DELETE FROM shift WHERE id = :id";
+    public static final String R2DBC_DELETE_SHIFTS_FOR_JOB = "DELETE FROM shift WHERE job_id = :jobId";
 
 }
@@ -1,5 +1,12 @@
 package com.zenjob.challenge.constants;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * This class contains the Application Error Messages
  */
@@ -16,4 +23,58 @@ public class ErrorMessages {
     public static final String JOB_ID_NOT_PRESENT = "Job Id does not exist";
     public static final String SHIFT_NOT_CANCELLABLE = "Jobs have to have at least one shift";
     public static final String NO_TALENT_WITH_SHIFT_PRESENT = "No Shifts found for the provided Talent Id";
+    public static final String NO_SUBSTITUTE_AVAILABLE = "None of the substitution candidates can take over every shift of the Talent";
+    public static final String SUBSTITUTE_BOOKED_CONCURRENTLY = "A substitute was booked concurrently, please try again";
+    public static final String JOB_CANCELLATION_NOT_PRESENT = "No cancellation found for the provided Job Id";
+    public static final String JOB_CANCELLATION_REJECTED = "Too many job cancellations are in progress, please try again";
+    public static final String CURSOR_INVALID = "Cursor is Invalid";
+    public static final String PAGE_SIZE_INVALID = "Page size must be between 1 and 1000";
+    public static final String SHIFT_MODIFIED_CONCURRENTLY = "Shift was modified concurrently, please try again";
+    public static final String BATCH_SIZE_INVALID = "Batch must have at most 1000 jobs";
+    public static final String IMPORT_RECORD_INVALID = "Record is not a job, expected companyId, start and end";
+    public static final String IMPORT_RECORD_TOO_LONG = "Record is longer than 1024 characters";
+    public static final String TIME_RANGE_INVALID = "Time range is Invalid, from must be before to";
+    public static final String IMPORT_CHUNK_FAILED = "Job could not be stored, please import it again";
+    public static final String RATE_LIMIT_EXCEEDED = "Too many requests for the company, please try again later";
+    public static final String TOO_MANY_CONCURRENT_REQUESTS = "Too many requests are in progress, please try again later";
+    public static final String BOOKING_NOT_ACCEPTED = "Bookings are not accepted while the service is stopping, please try again";
+    public static final String BOOKING_NOT_COMPLETED_IN_TIME = "Booking did not complete in time and may still be made, please check the shift before trying again";
+
+    /**
+     * the name of every constant of this class by its message
+     */
+    private static final Map<String, String> NAMES = Collections.unmodifiableMap(namesByMessage());
+
+    /**
+     * all returns every message of this class, so that responses and exceptions can be built once per message
+     *
+     * @return the messages
+     */
+    public static Set<String> all() {
+        return NAMES.keySet();
+    }
+
+    /**
+     * nameOf returns the name of the constant holding the message
+     *
+     * @param message the message
+     * @return the name of the constant, null if the message is not one of this class
+     */
+    public static String nameOf(String message) {
+        return NAMES.get(message);
+    }
+
+    private static Map<String, String> namesByMessage() {
+        Map<String, String> names = new HashMap<>();
+        for (Field field : ErrorMessages.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    names.put((String) field.get(null), field.getName());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return names;
+    }
 }
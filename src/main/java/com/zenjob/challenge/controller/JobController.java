@@ -1,9 +1,19 @@
 package com.zenjob.challenge.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zenjob.challenge.admission.CompanyRateLimiter;
+import com.zenjob.challenge.constants.APIConstants;
 import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.Error;
+import com.zenjob.challenge.dto.JobCancellationStatus;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.dto.JobRequest;
 import com.zenjob.challenge.dto.ResponseDto;
 import com.zenjob.challenge.entity.Job;
 import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import com.zenjob.challenge.service.JobCancellationTracker;
 import com.zenjob.challenge.service.JobService;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,15 +21,32 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.FutureOrPresent;
 import javax.validation.constraints.NotNull;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * This class consists of REST endpoints for Job Resource
@@ -30,6 +57,10 @@ import java.util.UUID;
 public class JobController {
 
     private final JobService jobService;
+    private final Validator validator;
+    private final JobCancellationTracker jobCancellationTracker;
+    private final ObjectMapper objectMapper;
+    private final CompanyRateLimiter companyRateLimiter;
 
     /**
      * This method is used to create a Job
@@ -37,10 +68,12 @@ public class JobController {
      * @param dto the request object
      * @return the RequestJobResponse
      * @throws ConstraintViolationException when constraints or objective are not met
+     * @throws TooManyRequestsException     when the company sent too many requests
      */
     @PostMapping
     public ResponseDto<RequestJobResponse> requestJob(@RequestBody @Valid RequestJobRequestDto dto) throws ConstraintViolationException {
         this.validateShiftTimings(dto.start.getHour(), dto.end.getHour());
+        companyRateLimiter.acquire(dto.companyId, 1);
         Job job = jobService.createJob(dto.companyId, dto.start, dto.end);
         return ResponseDto.<RequestJobResponse>builder()
                 .data(RequestJobResponse.builder()
@@ -50,14 +83,283 @@ public class JobController {
     }
 
     /**
-     * This method is used to cancel a particular job
+     * This method is used to create many jobs at once,
+     * every job is validated on its own and all valid jobs are created in one transaction.
+     * Every job counts against the rate limit of its company, the jobs of a company which
+     * sent too many requests are rejected
+     *
+     * @param dtos the request objects, at most 1000
+     * @return the RequestJobBatchResponse with one result per requested job, in the order of the request
+     * @throws ConstraintViolationException if the batch has more than 1000 jobs
+     */
+    @PostMapping(path = "/batch")
+    public ResponseDto<RequestJobBatchResponse> requestJobs(@RequestBody List<RequestJobRequestDto> dtos) throws ConstraintViolationException {
+        if (dtos.size() > APIConstants.MAX_BATCH_SIZE) {
+            throw ConstraintViolationException.of(ErrorMessages.BATCH_SIZE_INVALID);
+        }
+        List<RequestJobBatchItemResponse> results = new ArrayList<>(dtos.size());
+        List<RequestJobBatchItemResponse> validResults = new ArrayList<>();
+        List<JobRequest> jobRequests = new ArrayList<>();
+        Map<UUID, Integer> jobCountsByCompanyId = new HashMap<>();
+        for (int idx = 0; idx < dtos.size(); idx++) {
+            RequestJobRequestDto dto = dtos.get(idx);
+            RequestJobBatchItemResponse result = RequestJobBatchItemResponse.builder()
+                    .index(idx)
+                    .errors(this.validateJobRequest(dto))
+                    .build();
+            results.add(result);
+            if (result.errors.isEmpty()) {
+                jobCountsByCompanyId.merge(dto.companyId, 1, Integer::sum);
+            }
+        }
+        Map<UUID, Boolean> admittedByCompanyId = new HashMap<>();
+        jobCountsByCompanyId.forEach((companyId, count) ->
+                admittedByCompanyId.put(companyId, companyRateLimiter.tryAcquire(companyId, count) == 0));
+        for (RequestJobBatchItemResponse result : results) {
+            if (!result.errors.isEmpty()) {
+                continue;
+            }
+            RequestJobRequestDto dto = dtos.get(result.index);
+            if (admittedByCompanyId.get(dto.companyId)) {
+                validResults.add(result);
+                jobRequests.add(new JobRequest(dto.companyId, dto.start, dto.end));
+            } else {
+                result.setErrors(Collections.singletonList(new Error(ErrorMessages.RATE_LIMIT_EXCEEDED)));
+            }
+        }
+        if (!jobRequests.isEmpty()) {
+            List<Job> jobs = jobService.createJobs(jobRequests);
+            for (int idx = 0; idx < jobs.size(); idx++) {
+                validResults.get(idx).setJobId(jobs.get(idx).getId());
+            }
+        }
+        return ResponseDto.<RequestJobBatchResponse>builder()
+                .data(RequestJobBatchResponse.builder()
+                        .jobs(results)
+                        .build())
+                .build();
+    }
+
+    /**
+     * This method is used to import jobs from a newline delimited JSON or a CSV body
+     * with the columns companyId, start and end. The records are read and validated one by one
+     * while the body is received, the valid jobs are created in transactions of a fixed number of jobs,
+     * and invalid records, records longer than 1024 characters and the records of chunks which could not be
+     * created are reported with their line number without stopping the import.
+     * Every job counts against the rate limit of its company, the lines of a company which sent too many requests are rejected
+     *
+     * @param contentType the type of the body, newline delimited JSON or CSV
+     * @param body        the records, one per line
+     * @return the JobImportResponse with the number of imported jobs and the errors of the rejected lines
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(path = "/import", consumes = {APIConstants.APPLICATION_NDJSON_VALUE, APIConstants.TEXT_CSV_VALUE})
+    public ResponseDto<JobImportResponse> importJobs(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                     InputStream body) throws IOException {
+        boolean csv = MediaType.parseMediaType(APIConstants.TEXT_CSV_VALUE).includes(contentType);
+        JobImportResponse response = JobImportResponse.builder()
+                .errors(new ArrayList<>())
+                .build();
+        List<JobRequest> chunk = new ArrayList<>(APIConstants.IMPORT_CHUNK_SIZE);
+        List<Integer> chunkLines = new ArrayList<>(APIConstants.IMPORT_CHUNK_SIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            boolean firstRecord = true;
+            int line = 0;
+            for (String record = readRecord(reader); record != null; record = readRecord(reader)) {
+                line++;
+                if (record.length() > APIConstants.MAX_IMPORT_RECORD_LENGTH) {
+                    firstRecord = false;
+                    response.reject(line, Collections.singletonList(new Error(ErrorMessages.IMPORT_RECORD_TOO_LONG)));
+                    continue;
+                }
+                if (record.trim().isEmpty()) {
+                    continue;
+                }
+                boolean header = csv && firstRecord && record.trim().toLowerCase().startsWith("companyid");
+                firstRecord = false;
+                if (header) {
+                    continue;
+                }
+                RequestJobRequestDto dto = null;
+                List<Error> errors;
+                try {
+                    dto = csv ? this.parseCsvRecord(record) : objectMapper.readValue(record, RequestJobRequestDto.class);
+                    errors = this.validateJobRequest(dto);
+                } catch (ConstraintViolationException e) {
+                    errors = Collections.singletonList(new Error(e.getMessage()));
+                } catch (JsonProcessingException e) {
+                    errors = Collections.singletonList(new Error(ErrorMessages.IMPORT_RECORD_INVALID));
+                }
+                if (!errors.isEmpty()) {
+                    response.reject(line, errors);
+                    continue;
+                }
+                chunk.add(new JobRequest(dto.companyId, dto.start, dto.end));
+                chunkLines.add(line);
+                if (chunk.size() == APIConstants.IMPORT_CHUNK_SIZE) {
+                    this.importChunk(chunk, chunkLines, response);
+                }
+            }
+        }
+        this.importChunk(chunk, chunkLines, response);
+        return ResponseDto.<JobImportResponse>builder()
+                .data(response)
+                .build();
+    }
+
+    /**
+     * readRecord reads the next line of the body, only the first characters of a line
+     * longer than the maximum record length are kept
+     *
+     * @param reader the body
+     * @return the line without its terminator, longer than the maximum record length if the line is too long,
+     * null at the end of the body
+     * @throws IOException if the body cannot be read
+     */
+    private static String readRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        StringBuilder record = new StringBuilder();
+        for (; c != -1 && c != '\n'; c = reader.read()) {
+            if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            }
+            if (record.length() <= APIConstants.MAX_IMPORT_RECORD_LENGTH) {
+                record.append((char) c);
+            }
+        }
+        return record.toString();
+    }
+
+    /**
+     * importChunk creates the jobs of the chunk in one transaction and empties the chunk.
+     * Like in a batch, every job counts against the rate limit of its company and the lines of the companies
+     * which sent too many requests are reported. If the transaction fails or is not admitted
+     * all lines of the chunk are reported, the import goes on in both cases
+     */
+    private void importChunk(List<JobRequest> chunk, List<Integer> chunkLines, JobImportResponse response) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<UUID, Integer> jobCountsByCompanyId = new HashMap<>();
+        chunk.forEach(jobRequest -> jobCountsByCompanyId.merge(jobRequest.getCompanyId(), 1, Integer::sum));
+        Map<UUID, Boolean> admittedByCompanyId = new HashMap<>();
+        jobCountsByCompanyId.forEach((companyId, count) ->
+                admittedByCompanyId.put(companyId, companyRateLimiter.tryAcquire(companyId, count) == 0));
+        List<JobRequest> admitted = new ArrayList<>(chunk.size());
+        List<Integer> admittedLines = new ArrayList<>(chunk.size());
+        List<Error> rateLimitErrors = Collections.singletonList(new Error(ErrorMessages.RATE_LIMIT_EXCEEDED));
+        for (int idx = 0; idx < chunk.size(); idx++) {
+            if (admittedByCompanyId.get(chunk.get(idx).getCompanyId())) {
+                admitted.add(chunk.get(idx));
+                admittedLines.add(chunkLines.get(idx));
+            } else {
+                response.reject(chunkLines.get(idx), rateLimitErrors);
+            }
+        }
+        try {
+            if (!admitted.isEmpty()) {
+                jobService.createJobs(admitted);
+                response.imported += admitted.size();
+            }
+        } catch (ConstraintViolationException | TooManyRequestsException e) {
+            List<Error> errors = Collections.singletonList(new Error(e.getMessage()));
+            admittedLines.forEach(line -> response.reject(line, errors));
+        } catch (RuntimeException e) {
+            List<Error> errors = Collections.singletonList(new Error(ErrorMessages.IMPORT_CHUNK_FAILED));
+            admittedLines.forEach(line -> response.reject(line, errors));
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    /**
+     * parseCsvRecord reads one CSV record with the columns companyId, start and end
+     *
+     * @param record the line of the record
+     * @return the request object, empty columns are null
+     * @throws ConstraintViolationException if the record does not have three columns or a column is invalid
+     */
+    private RequestJobRequestDto parseCsvRecord(String record) throws ConstraintViolationException {
+        String[] columns = record.split(",", -1);
+        if (columns.length != 3) {
+            throw ConstraintViolationException.of(ErrorMessages.IMPORT_RECORD_INVALID);
+        }
+        RequestJobRequestDto dto = new RequestJobRequestDto();
+        try {
+            String companyId = csvValue(columns[0]);
+            dto.companyId = companyId == null ? null : UUID.fromString(companyId);
+        } catch (IllegalArgumentException e) {
+            throw ConstraintViolationException.of(ErrorMessages.COMPANY_ID_INVALID);
+        }
+        dto.start = parseCsvDateTime(columns[1], ErrorMessages.SHIFT_START_DATE_TIME_INVALID);
+        dto.end = parseCsvDateTime(columns[2], ErrorMessages.SHIFT_END_DATE_TIME_INVALID);
+        return dto;
+    }
+
+    private static LocalDateTime parseCsvDateTime(String column, String message) throws ConstraintViolationException {
+        try {
+            String value = csvValue(column);
+            return value == null ? null : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw ConstraintViolationException.of(message);
+        }
+    }
+
+    private static String csvValue(String column) {
+        String value = column.trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * This method is used to cancel a particular job,
+     * with async the job is cancelled in the background and the progress
+     * can be followed on the location which is returned
      *
      * @param jobId the unique id of job
+     * @param async true to cancel the job in the background
+     * @return no content, or the status of the background cancellation
+     * @throws ConstraintViolationException if the job does not exist
+     * @throws TooManyRequestsException     when the company of the job sent too many requests
      */
     @DeleteMapping(path = "/{jobId}")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void cancelJob(@PathVariable("jobId") UUID jobId) {
-        jobService.cancelJob(jobId);
+    public ResponseEntity<ResponseDto<JobCancellationStatus>> cancelJob(@PathVariable("jobId") UUID jobId,
+                                                                        @RequestParam(name = "async", defaultValue = "false") boolean async) throws ConstraintViolationException {
+        companyRateLimiter.acquireForJob(jobId);
+        if (!async) {
+            jobService.cancelJob(jobId);
+            return ResponseEntity.noContent().build();
+        }
+        JobCancellationStatus status = jobCancellationTracker.submit(jobId);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/cancellation").build().toUri())
+                .body(ResponseDto.<JobCancellationStatus>builder()
+                        .data(status)
+                        .build());
+    }
+
+    /**
+     * This method is used to get the progress of a background job cancellation
+     *
+     * @param jobId the unique id of job
+     * @return the status of the cancellation
+     * @throws ConstraintViolationException if no cancellation is known for the job
+     */
+    @GetMapping(path = "/{jobId}/cancellation")
+    public ResponseDto<JobCancellationStatus> getCancellation(@PathVariable("jobId") UUID jobId) throws ConstraintViolationException {
+        return ResponseDto.<JobCancellationStatus>builder()
+                .data(jobCancellationTracker.statusOf(jobId)
+                        .orElseThrow(() -> ConstraintViolationException.of(ErrorMessages.JOB_CANCELLATION_NOT_PRESENT)))
+                .build();
     }
 
     /**
@@ -71,12 +373,39 @@ public class JobController {
      */
     public void validateShiftTimings(Integer shiftStartTime, Integer shiftEndTime) throws ConstraintViolationException {
         int totalShiftTime = shiftEndTime - shiftStartTime;
-        System.out.println(totalShiftTime);
         if (shiftStartTime > shiftEndTime || totalShiftTime > 8 || totalShiftTime < 2) {
-            throw new ConstraintViolationException(ErrorMessages.SHIFT_TIMING_RANGE_INVALID);
+            throw ConstraintViolationException.of(ErrorMessages.SHIFT_TIMING_RANGE_INVALID);
         }
     }
 
+    /**
+     * validateJobRequest applies the same rules as the single job endpoint
+     * to one job of a batch and collects the violations instead of throwing,
+     * including the number of days a job can have which the single job endpoint leaves to the JobService
+     *
+     * @param dto the request object
+     * @return the errors, empty if the job is valid
+     */
+    private List<Error> validateJobRequest(RequestJobRequestDto dto) {
+        if (dto == null) {
+            return Collections.singletonList(new Error(ErrorMessages.JOB_INVALID));
+        }
+        List<Error> errors = validator.validate(dto).stream()
+                .map(violation -> new Error(violation.getMessage()))
+                .collect(Collectors.toList());
+        if (errors.isEmpty()) {
+            try {
+                this.validateShiftTimings(dto.start.getHour(), dto.end.getHour());
+            } catch (ConstraintViolationException e) {
+                errors.add(new Error(e.getMessage()));
+            }
+        }
+        if (errors.isEmpty() && ChronoUnit.DAYS.between(dto.start, dto.end) + 1 > JobRecurrence.MAX_OCCURRENCES) {
+            errors.add(new Error(ErrorMessages.SHIFT_END_DATE_TIME_INVALID));
+        }
+        return errors;
+    }
+
     /**
      * This class is used to create request object
      */
@@ -124,4 +453,84 @@ public class JobController {
          */
         UUID jobId;
     }
+
+    /**
+     * This class is used to wrap the response of a batch
+     */
+    @Builder
+    @Data
+    private static class RequestJobBatchResponse {
+        /**
+         * jobs the result for every requested job
+         */
+        List<RequestJobBatchItemResponse> jobs;
+    }
+
+    /**
+     * This class is used to wrap the result of an import
+     */
+    @Builder
+    @Data
+    private static class JobImportResponse {
+        /**
+         * imported the number of created jobs
+         */
+        int imported;
+
+        /**
+         * rejected the number of lines which were not imported
+         */
+        int rejected;
+
+        /**
+         * errors the reasons why lines were not imported, only the first ones are reported
+         */
+        List<JobImportLineResponse> errors;
+
+        void reject(int line, List<Error> lineErrors) {
+            rejected++;
+            if (errors.size() < APIConstants.MAX_REPORTED_IMPORT_ERRORS) {
+                errors.add(new JobImportLineResponse(line, lineErrors));
+            }
+        }
+    }
+
+    /**
+     * This class is used to wrap the errors of one line of an import
+     */
+    @AllArgsConstructor
+    @Data
+    private static class JobImportLineResponse {
+        /**
+         * line the number of the line in the body, starting with 1
+         */
+        int line;
+
+        /**
+         * errors the reasons why the job of the line is invalid
+         */
+        List<Error> errors;
+    }
+
+    /**
+     * This class is used to wrap the result of one job of a batch
+     */
+    @Builder
+    @Data
+    private static class RequestJobBatchItemResponse {
+        /**
+         * index the position of the job in the request
+         */
+        int index;
+
+        /**
+         * jobId the unique id of the Job, null if the job is invalid
+         */
+        UUID jobId;
+
+        /**
+         * errors the reasons why the job is invalid or was not admitted
+         */
+        List<Error> errors;
+    }
 }
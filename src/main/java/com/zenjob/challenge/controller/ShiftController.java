@@ -1,7 +1,21 @@
 package com.zenjob.challenge.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zenjob.challenge.admission.CompanyRateLimiter;
+import com.zenjob.challenge.constants.APIConstants;
+import com.zenjob.challenge.constants.ErrorMessages;
 import com.zenjob.challenge.dto.ResponseDto;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ServiceUnavailableException;
 import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import com.zenjob.challenge.service.BookingCoordinator;
 import com.zenjob.challenge.service.JobService;
 
 import lombok.Builder;
@@ -9,14 +23,28 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -28,40 +56,163 @@ import java.util.stream.Collectors;
 public class ShiftController {
 
     private final JobService jobService;
+    private final BookingCoordinator bookingCoordinator;
+    private final ObjectMapper objectMapper;
+    private final CompanyRateLimiter companyRateLimiter;
 
     /**
-     * This method is used to get all shifts of a job
+     * This method is used to get the shifts of a job ordered by start time,
+     * all of them at once, or one page at a time when a limit or a cursor is given
      *
-     * @param uuid the unique id of the job
+     * @param uuid   the unique id of the job
+     * @param limit  the maximum number of shifts of the page
+     * @param cursor the nextCursor of the previous page
      * @return the GetShiftsResponse
+     * @throws ConstraintViolationException when the limit or the cursor is invalid
      */
     @GetMapping(path = "/{jobId}")
-    public ResponseDto<GetShiftsResponse> getShifts(@PathVariable("jobId") UUID uuid) {
-        List<ShiftResponse> shiftResponses = jobService.getShifts(uuid).stream()
-                .map(shift -> ShiftResponse.builder()
-                        .id(shift.getId())
-                        .talentId(shift.getTalentId())
-                        .jobId(shift.getJob().getId())
-                        .start(shift.getStartTime())
-                        .end(shift.getEndTime())
-                        .build())
-                .collect(Collectors.toList());
+    public ResponseDto<GetShiftsResponse> getShifts(@PathVariable("jobId") UUID uuid,
+                                                    @RequestParam(name = "limit", required = false) Integer limit,
+                                                    @RequestParam(name = "cursor", required = false) String cursor) throws ConstraintViolationException {
+        if (limit == null && cursor == null) {
+            return ResponseDto.<GetShiftsResponse>builder()
+                    .data(GetShiftsResponse.builder()
+                            .shifts(toShiftResponses(jobService.getShiftViews(uuid)))
+                            .build())
+                    .build();
+        }
+        int pageSize = limit == null ? APIConstants.DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > APIConstants.MAX_PAGE_SIZE) {
+            throw ConstraintViolationException.of(ErrorMessages.PAGE_SIZE_INVALID);
+        }
+        ShiftCursor after = cursor == null ? null : ShiftCursor.decode(cursor);
+
+        // one more shift than requested tells if there is a next page
+        List<ShiftView> shifts = jobService.getShiftViews(uuid, after, pageSize + 1);
+        String nextCursor = null;
+        if (shifts.size() > pageSize) {
+            shifts = shifts.subList(0, pageSize);
+            nextCursor = ShiftCursor.after(shifts.get(pageSize - 1)).encode();
+        }
         return ResponseDto.<GetShiftsResponse>builder()
                 .data(GetShiftsResponse.builder()
-                        .shifts(shiftResponses)
+                        .shifts(toShiftResponses(shifts))
+                        .nextCursor(nextCursor)
                         .build())
                 .build();
     }
 
+    /**
+     * This method is used to stream all shifts of a job as newline delimited JSON,
+     * the shifts are written while they are read from the database
+     *
+     * @param uuid the unique id of the job
+     * @return the body writing one ShiftResponse per line
+     */
+    @GetMapping(path = "/{jobId}/stream", produces = APIConstants.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamShifts(@PathVariable("jobId") UUID uuid) {
+        return ndjsonBody(consumer -> jobService.streamShifts(uuid, consumer));
+    }
+
+    /**
+     * This method is used to export the shifts of all jobs of a company which start in a time range,
+     * as newline delimited JSON or, if the client accepts text/csv, as CSV. The shifts are written
+     * while they are read from the database, grouped by job and ordered by start time within a job
+     *
+     * @param companyId the unique id of the company
+     * @param from      the earliest start of a shift, inclusive
+     * @param to        the latest start of a shift, exclusive
+     * @param accept    the media types accepted by the client
+     * @return the body writing one shift per line
+     * @throws ConstraintViolationException when the time range is invalid
+     */
+    @GetMapping(path = "/export", produces = {APIConstants.APPLICATION_NDJSON_VALUE, APIConstants.TEXT_CSV_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportShifts(@RequestParam("companyId") UUID companyId,
+                                                              @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                              @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                              @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) throws ConstraintViolationException {
+        if (!from.isBefore(to)) {
+            throw ConstraintViolationException.of(ErrorMessages.TIME_RANGE_INVALID);
+        }
+        Consumer<Consumer<ShiftView>> shifts = consumer -> jobService.streamShiftsOfCompany(companyId,
+                from.toInstant(ZoneOffset.UTC), to.toInstant(ZoneOffset.UTC), consumer);
+        boolean csv = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(mediaType -> mediaType.equalsTypeAndSubtype(MediaType.parseMediaType(APIConstants.TEXT_CSV_VALUE)));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? APIConstants.TEXT_CSV_VALUE : APIConstants.APPLICATION_NDJSON_VALUE))
+                .body(csv ? csvBody(shifts) : ndjsonBody(shifts));
+    }
+
+    /**
+     * ndjsonBody writes one ShiftResponse per line while the shifts are passed on
+     */
+    private StreamingResponseBody ndjsonBody(Consumer<Consumer<ShiftView>> shifts) {
+        return outputStream -> {
+            ObjectWriter writer = objectMapper.writerFor(ShiftResponse.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n");
+            try (SequenceWriter sequenceWriter = writer.writeValues(outputStream)) {
+                shifts.accept(shift -> {
+                    try {
+                        sequenceWriter.write(toShiftResponse(shift));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * csvBody writes a header and one line per shift while the shifts are passed on,
+     * a shift without a talent has an empty talentId
+     */
+    private StreamingResponseBody csvBody(Consumer<Consumer<ShiftView>> shifts) {
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write("id,talentId,jobId,start,end\n");
+            shifts.accept(shift -> {
+                try {
+                    writer.append(shift.getId().toString()).append(',')
+                            .append(shift.getTalentId() == null ? "" : shift.getTalentId().toString()).append(',')
+                            .append(shift.getJobId().toString()).append(',')
+                            .append(shift.getStart().toString()).append(',')
+                            .append(shift.getEnd().toString()).append('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+    }
+
+    private List<ShiftResponse> toShiftResponses(List<ShiftView> shifts) {
+        return shifts.stream()
+                .map(this::toShiftResponse)
+                .collect(Collectors.toList());
+    }
+
+    private ShiftResponse toShiftResponse(ShiftView shift) {
+        return ShiftResponse.builder()
+                .id(shift.getId())
+                .talentId(shift.getTalentId())
+                .jobId(shift.getJobId())
+                .start(shift.getStart())
+                .end(shift.getEnd())
+                .build();
+    }
+
     /**
      * This method is used to cancel shift by shift Id
      *
      * @param shiftId the unique id of the shift
      * @throws ConstraintViolationException when constraints or objective are not met
+     * @throws TooManyRequestsException     when the company of the shift sent too many requests
      */
     @DeleteMapping("/{shiftId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void cancelShiftByShiftId(@PathVariable("shiftId") UUID shiftId) throws ConstraintViolationException {
+        companyRateLimiter.acquireForShift(shiftId);
         jobService.cancelShiftByShiftId(shiftId);
     }
 
@@ -70,11 +221,12 @@ public class ShiftController {
      *
      * @param talentId the unique id of the talent
      * @throws ConstraintViolationException when constraints or objective are not met
+     * @throws ConflictException            when the shifts or the substitutes kept being booked concurrently
      */
     @PatchMapping("/talent/{talentId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void cancelShiftByTalentId(@PathVariable("talentId") UUID talentId) throws ConstraintViolationException {
-        jobService.cancelShiftForTalentId(talentId);
+    public void cancelShiftByTalentId(@PathVariable("talentId") UUID talentId) throws ConstraintViolationException, ConflictException {
+        bookingCoordinator.substitute(talentId);
     }
 
     /**
@@ -83,11 +235,15 @@ public class ShiftController {
      * @param shiftId the unique id of the shift
      * @param dto     the request object
      * @throws ConstraintViolationException when constraints or objective are not met
+     * @throws ConflictException            when the shift kept being modified concurrently
+     * @throws TooManyRequestsException     when the company of the shift sent too many requests
+     * @throws ServiceUnavailableException  when the bookings are batched and the service is stopping
      */
     @PatchMapping(path = "/{id}/book")
     @ResponseStatus(code = HttpStatus.NO_CONTENT)
     public void bookTalent(@PathVariable("id") UUID shiftId, @RequestBody @Valid ShiftController.BookTalentRequestDto dto) throws ConstraintViolationException {
-        jobService.bookTalent(shiftId, dto.talent);
+        companyRateLimiter.acquireForShift(shiftId);
+        bookingCoordinator.book(shiftId, dto.talent);
     }
 
     /**
@@ -103,6 +259,12 @@ public class ShiftController {
     @Data
     private static class GetShiftsResponse {
         List<ShiftResponse> shifts;
+
+        /**
+         * nextCursor is only set for paged requests which have a next page
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String nextCursor;
     }
 
     /**
@@ -0,0 +1,109 @@
+package com.zenjob.challenge.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zenjob.challenge.constants.APIConstants;
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.ResponseDto;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.service.JobService;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * This class consists of REST endpoints for the schedule of a Talent
+ */
+@RestController
+@RequestMapping(path = "/talent")
+@RequiredArgsConstructor
+public class TalentController {
+
+    private final JobService jobService;
+
+    /**
+     * This method is used to get the shifts a talent is booked for which start in a time range,
+     * one page at a time ordered by start time
+     *
+     * @param talentId the unique id of the talent
+     * @param from     the earliest start of a shift, inclusive
+     * @param to       the latest start of a shift, exclusive
+     * @param limit    the maximum number of shifts of the page
+     * @param cursor   the nextCursor of the previous page
+     * @return the GetTalentShiftsResponse
+     * @throws ConstraintViolationException when the time range, the limit or the cursor is invalid
+     */
+    @GetMapping(path = "/{talentId}/shifts")
+    public ResponseDto<GetTalentShiftsResponse> getShifts(@PathVariable("talentId") UUID talentId,
+                                                          @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                          @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                          @RequestParam(name = "limit", required = false) Integer limit,
+                                                          @RequestParam(name = "cursor", required = false) String cursor) throws ConstraintViolationException {
+        if (!from.isBefore(to)) {
+            throw ConstraintViolationException.of(ErrorMessages.TIME_RANGE_INVALID);
+        }
+        int pageSize = limit == null ? APIConstants.DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > APIConstants.MAX_PAGE_SIZE) {
+            throw ConstraintViolationException.of(ErrorMessages.PAGE_SIZE_INVALID);
+        }
+        ShiftCursor after = cursor == null ? null : ShiftCursor.decode(cursor);
+
+        // one more shift than requested tells if there is a next page
+        List<ShiftView> shifts = jobService.getTalentShiftViews(talentId, from.toInstant(ZoneOffset.UTC), to.toInstant(ZoneOffset.UTC),
+                after, pageSize + 1);
+        String nextCursor = null;
+        if (shifts.size() > pageSize) {
+            shifts = shifts.subList(0, pageSize);
+            nextCursor = ShiftCursor.after(shifts.get(pageSize - 1)).encode();
+        }
+        return ResponseDto.<GetTalentShiftsResponse>builder()
+                .data(GetTalentShiftsResponse.builder()
+                        .shifts(shifts.stream()
+                                .map(shift -> TalentShiftResponse.builder()
+                                        .id(shift.getId())
+                                        .jobId(shift.getJobId())
+                                        .start(shift.getStart())
+                                        .end(shift.getEnd())
+                                        .build())
+                                .collect(Collectors.toList()))
+                        .nextCursor(nextCursor)
+                        .build())
+                .build();
+    }
+
+    @Builder
+    @Data
+    private static class GetTalentShiftsResponse {
+        List<TalentShiftResponse> shifts;
+
+        /**
+         * nextCursor is only set if there is a next page
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String nextCursor;
+    }
+
+    /**
+     * This class is used to wrap the response, the talent is the one of the request
+     */
+    @Builder
+    @Data
+    private static class TalentShiftResponse {
+        UUID id;
+        UUID jobId;
+        Instant start;
+        Instant end;
+    }
+}
@@ -0,0 +1,96 @@
+package com.zenjob.challenge.datasource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class sends the connections of read-only transactions to the replica and every other connection to the primary.
+ * <p>
+ * A read-only transaction reads from the primary when it reads what was just written, see ReadYourWrites.
+ * When the replica does not hand out a connection, the read falls back to the primary and the replica
+ * is not asked again for a fixed time. The route is taken when the connection is obtained, so this class
+ * has to be wrapped into a LazyConnectionDataSourceProxy for the transaction to be known by then.
+ * The routed connections are exported as a MeterBinder, since the registry itself is bound to the datasources.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements MeterBinder {
+
+    static final String ROUTED_NAME = "datasource.routed";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long replicaRetryNanos;
+    private final AtomicLong replicaDownUntil;
+
+    private final LongAdder writeCounter = new LongAdder();
+    private final LongAdder stickyCounter = new LongAdder();
+    private final LongAdder replicaCounter = new LongAdder();
+    private final LongAdder fallbackCounter = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, long replicaRetryMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaRetryNanos = TimeUnit.MILLISECONDS.toNanos(replicaRetryMillis);
+        this.replicaDownUntil = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        routedCounter(registry, writeCounter, "primary", "write");
+        routedCounter(registry, stickyCounter, "primary", "read-your-writes");
+        routedCounter(registry, replicaCounter, "replica", "read");
+        routedCounter(registry, fallbackCounter, "primary", "replica-unavailable");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writeCounter.increment();
+            return primary.getConnection();
+        }
+        if (ReadYourWrites.isPrimaryRequested()) {
+            stickyCounter.increment();
+            return primary.getConnection();
+        }
+        if (replicaDownUntil.get() - System.nanoTime() > 0) {
+            fallbackCounter.increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            replicaCounter.increment();
+            return connection;
+        } catch (SQLException e) {
+            logger.warn("replica is unavailable, reading from the primary: {}", e.getMessage());
+            replicaDownUntil.set(System.nanoTime() + replicaRetryNanos);
+            fallbackCounter.increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("the connections of the primary and of the replica are configured with their pools");
+    }
+
+    private static void routedCounter(MeterRegistry registry, LongAdder counter, String target, String reason) {
+        FunctionCounter.builder(ROUTED_NAME, counter, LongAdder::sum)
+                .description("Connections handed out by the routing datasource")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
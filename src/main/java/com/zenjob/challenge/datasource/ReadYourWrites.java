@@ -0,0 +1,113 @@
+package com.zenjob.challenge.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zenjob.challenge.config.DataSourceRoutingConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class keeps the reads of what was just written on the primary database while the replica may lag behind.
+ * <p>
+ * The ids of the jobs and talents which were written are remembered for a fixed time after their transaction committed,
+ * measured on the clock of the service.
+ * A read-only transaction which reads one of them asks the ReadWriteRoutingDataSource for the primary,
+ * before its first statement, and is routed to the replica otherwise.
+ * The written ids are local to this instance of the service, without datasource routing nothing is remembered.
+ */
+@Component
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUESTED = new ThreadLocal<>();
+
+    private final Cache<UUID, Boolean> recentlyWritten;
+
+    public ReadYourWrites(@Value("#{" + DataSourceRoutingConfig.ENABLED + "}") boolean enabled,
+                          @Value("${datasource-routing.sticky-millis:2000}") long stickyMillis,
+                          @Value("${datasource-routing.maximum-sticky-ids:100000}") long maximumStickyIds,
+                          Clock clock) {
+        this.recentlyWritten = enabled
+                ? Caffeine.newBuilder()
+                .maximumSize(maximumStickyIds)
+                .expireAfterWrite(Duration.ofMillis(stickyMillis))
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build()
+                : null;
+    }
+
+    /**
+     * written remembers the ids once the current transaction committed, or at once without a transaction
+     *
+     * @param ids the unique ids of the jobs and talents which were written, null ids are ignored
+     */
+    public void written(UUID... ids) {
+        written(Arrays.asList(ids));
+    }
+
+    /**
+     * written remembers the ids once the current transaction committed, or at once without a transaction
+     *
+     * @param ids the unique ids of the jobs and talents which were written, null ids are ignored
+     */
+    public void written(Collection<UUID> ids) {
+        if (recentlyWritten == null || ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remember(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remember(ids);
+            }
+        });
+    }
+
+    /**
+     * readFromPrimaryIfWritten routes the current transaction to the primary if the id was written recently,
+     * it has to be called before the first statement of the transaction
+     *
+     * @param id the unique id of the job or talent which is read
+     */
+    public void readFromPrimaryIfWritten(UUID id) {
+        if (recentlyWritten == null || recentlyWritten.getIfPresent(id) == null
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PRIMARY_REQUESTED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PRIMARY_REQUESTED.remove();
+            }
+        });
+    }
+
+    /**
+     * isPrimaryRequested tells if the transaction of the current thread has to read from the primary
+     *
+     * @return true if it read something which was written recently
+     */
+    static boolean isPrimaryRequested() {
+        return PRIMARY_REQUESTED.get() != null;
+    }
+
+    private void remember(Collection<UUID> ids) {
+        for (UUID id : ids) {
+            if (id != null) {
+                recentlyWritten.put(id, Boolean.TRUE);
+            }
+        }
+    }
+}
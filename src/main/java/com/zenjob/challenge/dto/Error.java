@@ -1,13 +1,11 @@
 package com.zenjob.challenge.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
 /**
  * This class is used to store error messages
  */
-@Data
-@AllArgsConstructor
+@Value
 public class Error {
-    private String message;
+    String message;
 }
@@ -1,13 +1,53 @@
 package com.zenjob.challenge.dto;
 
-import java.util.List;
+import com.zenjob.challenge.constants.ErrorMessages;
+import lombok.Value;
 
-import lombok.Data;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * This class is wrapper for the errors
+ * This class is wrapper for the errors, it is immutable, and the response
+ * for every single ErrorMessages constant is created once and shared
  */
-@Data
+@Value
 public class Errors {
-    private List<Error> errors;
+
+    private static final Map<String, Errors> PRECOMPUTED = Collections.unmodifiableMap(ErrorMessages.all().stream()
+            .collect(Collectors.toMap(Function.identity(), Errors::create)));
+
+    List<Error> errors;
+
+    private Errors(List<Error> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * of returns the response for a single message
+     *
+     * @param message the message of the error
+     * @return the shared response if the message is an ErrorMessages constant, a new one otherwise
+     */
+    public static Errors of(String message) {
+        Errors errors = PRECOMPUTED.get(message);
+        return errors != null ? errors : create(message);
+    }
+
+    /**
+     * of returns the response for the errors
+     *
+     * @param errors the errors
+     * @return the response holding an unmodifiable copy of the errors
+     */
+    public static Errors of(List<Error> errors) {
+        return new Errors(Collections.unmodifiableList(new ArrayList<>(errors)));
+    }
+
+    private static Errors create(String message) {
+        return new Errors(Collections.singletonList(new Error(message)));
+    }
 }
@@ -0,0 +1,40 @@
+package com.zenjob.challenge.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * This class holds the progress of an asynchronous job cancellation
+ */
+@Value
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobCancellationStatus {
+
+    public enum State {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    UUID jobId;
+    State state;
+
+    /**
+     * shiftsRemoved is set once the cancellation is completed
+     */
+    Integer shiftsRemoved;
+
+    /**
+     * error is set if the cancellation failed
+     */
+    String error;
+
+    Instant updatedAt;
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+}
@@ -0,0 +1,178 @@
+package com.zenjob.challenge.dto;
+
+import com.zenjob.challenge.entity.Job;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * This class is the recurrence of the shifts of a job: one shift per day from the start of the job,
+ * each ending at the time of day the job ends, until the last day of the job.
+ * <p>
+ * A recurring job only stores the shifts which were booked or cancelled, the other shifts
+ * are generated when they are listed. The id of every shift is derived from the id of its job
+ * and the index of its day, so that a shift which is not stored can be found by its id.
+ * Jobs which are not recurring store all of their shifts.
+ */
+@Value
+public class JobRecurrence {
+
+    /**
+     * the low bits of the id of a recurring job are 0, in the ids of its shifts they hold the index of the day plus one
+     */
+    private static final long OCCURRENCE_BITS = (1L << 20) - 1;
+
+    /**
+     * the maximum number of days of a recurring job
+     */
+    public static final int MAX_OCCURRENCES = (int) OCCURRENCE_BITS;
+
+    UUID jobId;
+    Instant start;
+    Instant end;
+    boolean recurring;
+    int activeShiftCount;
+
+    public static JobRecurrence of(Job job) {
+        return new JobRecurrence(job.getId(), job.getStartTime(), job.getEndTime(), job.isRecurring(), job.getActiveShiftCount());
+    }
+
+    /**
+     * newJobId creates a random id for a recurring job
+     *
+     * @return the id, leaving room for the index of the day in the ids of its shifts
+     */
+    public static UUID newJobId() {
+        UUID id = UUID.randomUUID();
+        return new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits() & ~OCCURRENCE_BITS);
+    }
+
+    /**
+     * jobIdOf returns the id of the recurring job the shift would belong to
+     *
+     * @param shiftId the id of a shift
+     * @return the id of the job, it exists only if the shift is one of a recurring job
+     */
+    public static UUID jobIdOf(UUID shiftId) {
+        return new UUID(shiftId.getMostSignificantBits(), shiftId.getLeastSignificantBits() & ~OCCURRENCE_BITS);
+    }
+
+    /**
+     * isOccurrenceOf checks if the id of the shift is derived from the id of the job
+     *
+     * @param shiftId the id of the shift
+     * @param jobId   the id of the job of the shift
+     * @return true if the shift belongs to a recurring job
+     */
+    public static boolean isOccurrenceOf(UUID shiftId, UUID jobId) {
+        return !shiftId.equals(jobId) && jobIdOf(shiftId).equals(jobId);
+    }
+
+    /**
+     * occurrences returns the number of days of the job
+     *
+     * @return the number of shifts the job was created with
+     */
+    public int occurrences() {
+        return (int) ChronoUnit.DAYS.between(start, end) + 1;
+    }
+
+    public UUID shiftIdOf(int idx) {
+        return new UUID(jobId.getMostSignificantBits(), jobId.getLeastSignificantBits() | (idx + 1));
+    }
+
+    /**
+     * occurrence returns the shift of the given day as it was generated, without a talent
+     *
+     * @param idx the index of the day, starting with 0
+     * @return the shift of the day
+     */
+    public ShiftView occurrence(int idx) {
+        Instant shiftStart = start.plus(idx, ChronoUnit.DAYS);
+        Duration endOfShift = Duration.between(end.truncatedTo(ChronoUnit.DAYS), end);
+        return new ShiftView(shiftIdOf(idx), null, jobId, shiftStart, shiftStart.truncatedTo(ChronoUnit.DAYS).plus(endOfShift));
+    }
+
+    /**
+     * occurrence returns the generated shift with the given id
+     *
+     * @param shiftId the id of the shift
+     * @return the shift, empty if the job is not recurring or the id is not one of its shifts
+     */
+    public Optional<ShiftView> occurrence(UUID shiftId) {
+        if (!recurring || !isOccurrenceOf(shiftId, jobId)) {
+            return Optional.empty();
+        }
+        int idx = (int) (shiftId.getLeastSignificantBits() & OCCURRENCE_BITS) - 1;
+        return idx < occurrences() ? Optional.of(occurrence(idx)) : Optional.empty();
+    }
+
+    /**
+     * shifts generates the shifts of the recurring job ordered by start time, the stored shifts
+     * replace the generated ones of their day and cancelled shifts are left out,
+     * so the result is the same as if every shift had been stored
+     *
+     * @param stored the stored shifts of the job
+     * @param after  the position of the last shift of the previous page, null to start with the first shift
+     * @return the shifts, generated while the stream is consumed
+     */
+    public Stream<ShiftView> shifts(Collection<StoredShift> stored, ShiftCursor after) {
+        return shifts(stored, after == null ? 0 : indexAfter(after));
+    }
+
+    /**
+     * shifts generates the shifts of the recurring job which start in the given time range, ordered by start time
+     *
+     * @param stored the stored shifts of the job, at least the ones starting in the time range
+     * @param from   the earliest start of a shift, inclusive
+     * @param to     the latest start of a shift, exclusive
+     * @return the shifts, generated while the stream is consumed
+     */
+    public Stream<ShiftView> shifts(Collection<StoredShift> stored, Instant from, Instant to) {
+        int firstIdx = from.isAfter(start) ? (int) Math.min(ChronoUnit.DAYS.between(start, from), occurrences()) : 0;
+        return shifts(stored, firstIdx)
+                .dropWhile(shift -> shift.getStart().isBefore(from))
+                .takeWhile(shift -> shift.getStart().isBefore(to));
+    }
+
+    private Stream<ShiftView> shifts(Collection<StoredShift> stored, int firstIdx) {
+        Map<UUID, StoredShift> storedById = stored.stream()
+                .collect(Collectors.toMap(StoredShift::getId, Function.identity()));
+        return IntStream.range(firstIdx, occurrences())
+                .mapToObj(idx -> {
+                    StoredShift storedShift = storedById.get(shiftIdOf(idx));
+                    if (storedShift == null) {
+                        return occurrence(idx);
+                    }
+                    return storedShift.isCancelled() ? null : storedShift.toView();
+                })
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Every day has one shift, so the day of the position is the only one which can start at the same time
+     */
+    private int indexAfter(ShiftCursor after) {
+        if (after.getStart().isBefore(start)) {
+            return 0;
+        }
+        long idx = ChronoUnit.DAYS.between(start, after.getStart());
+        if (idx >= occurrences()) {
+            return occurrences();
+        }
+        ShiftView shift = occurrence((int) idx);
+        boolean following = shift.getStart().equals(after.getStart()) && shift.getId().compareTo(after.getId()) > 0;
+        return following ? (int) idx : (int) idx + 1;
+    }
+}
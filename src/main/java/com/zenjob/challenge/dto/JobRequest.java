@@ -0,0 +1,16 @@
+package com.zenjob.challenge.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * This class holds the details of a job to be created
+ */
+@Value
+public class JobRequest {
+    UUID companyId;
+    LocalDateTime start;
+    LocalDateTime end;
+}
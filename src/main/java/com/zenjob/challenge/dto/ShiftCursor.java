@@ -0,0 +1,69 @@
+package com.zenjob.challenge.dto;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * This class is the position of a shift in a listing ordered by start time and id,
+ * it is handed to clients as an opaque string
+ */
+@Value
+public class ShiftCursor {
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    Instant start;
+    UUID id;
+
+    /**
+     * after returns the cursor pointing behind the given shift
+     *
+     * @param shift the last shift of a page
+     * @return the cursor of the next page
+     */
+    public static ShiftCursor after(ShiftView shift) {
+        return new ShiftCursor(shift.getStart(), shift.getId());
+    }
+
+    /**
+     * encode turns the cursor into an url safe string
+     *
+     * @return the opaque cursor
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(start.getEpochSecond())
+                .putInt(start.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * decode reads a cursor created by encode
+     *
+     * @param cursor the opaque cursor
+     * @return the decoded cursor
+     * @throws ConstraintViolationException when the cursor was not created by encode
+     */
+    public static ShiftCursor decode(String cursor) throws ConstraintViolationException {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if (bytes.length != ENCODED_BYTES) {
+                throw ConstraintViolationException.of(ErrorMessages.CURSOR_INVALID);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Instant start = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            return new ShiftCursor(start, new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw ConstraintViolationException.of(ErrorMessages.CURSOR_INVALID);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.zenjob.challenge.dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * This class is a read-only view of a shift
+ */
+@Value
+public class ShiftView {
+    UUID id;
+    UUID talentId;
+    UUID jobId;
+    Instant start;
+    Instant end;
+}
@@ -0,0 +1,30 @@
+package com.zenjob.challenge.dto;
+
+import com.zenjob.challenge.entity.Shift;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * This class is a read-only view of a stored shift, including the cancelled
+ * shifts of recurring jobs which are kept so that their day is not listed again
+ */
+@Value
+public class StoredShift {
+    UUID id;
+    UUID talentId;
+    UUID jobId;
+    Instant start;
+    Instant end;
+    boolean cancelled;
+
+    public static StoredShift of(Shift shift) {
+        return new StoredShift(shift.getId(), shift.getTalentId(), shift.getJob().getId(),
+                shift.getStartTime(), shift.getEndTime(), shift.isCancelled());
+    }
+
+    public ShiftView toView() {
+        return new ShiftView(id, talentId, jobId, start, end);
+    }
+}
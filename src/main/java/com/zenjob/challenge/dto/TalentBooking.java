@@ -0,0 +1,14 @@
+package com.zenjob.challenge.dto;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * This class is the request to book a talent for a shift
+ */
+@Value
+public class TalentBooking {
+    UUID shiftId;
+    UUID talentId;
+}
@@ -1,15 +1,20 @@
 package com.zenjob.challenge.entity;
 
+import com.zenjob.challenge.constants.CacheRegions;
 import com.zenjob.challenge.constants.ErrorMessages;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.Id;
@@ -29,13 +34,19 @@ import java.util.UUID;
 @Data
 @Builder
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.JOB)
 public class Job {
 
     @Id
     private UUID id;
 
+    /**
+     * version is null until the entity is persisted, so that saving
+     * a new entity with an assigned id does not select it first
+     */
     @Version
-    private long version;
+    private Long version;
 
     @NotNull(message = ErrorMessages.COMPANY_ID_INVALID)
     private UUID companyId;
@@ -43,6 +54,20 @@ public class Job {
     private Instant startTime;
     private Instant endTime;
 
+    /**
+     * activeShiftCount is written on insert only, afterwards it is
+     * changed by conditional update statements of the repository
+     */
+    @Column(updatable = false)
+    private int activeShiftCount;
+
+    /**
+     * a recurring job has one shift per day from startTime until endTime,
+     * only the shifts which were booked or cancelled are stored
+     */
+    @Column(updatable = false)
+    private boolean recurring;
+
     @OneToMany(cascade = CascadeType.ALL,
             mappedBy = "job", orphanRemoval = true)
     @Builder.Default
@@ -1,11 +1,14 @@
 package com.zenjob.challenge.entity;
 
+import com.zenjob.challenge.constants.CacheRegions;
 import com.zenjob.challenge.constants.ErrorMessages;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -22,13 +25,19 @@ import java.util.UUID;
 @Builder
 @Accessors(chain = true)
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.SHIFT)
 public class Shift {
 
     @Id
     private UUID id;
 
+    /**
+     * version is null until the entity is persisted, so that saving
+     * a new entity with an assigned id does not select it first
+     */
     @Version
-    private long version;
+    private Long version;
 
     @ManyToOne
     @NotNull(message = ErrorMessages.JOB_INVALID)
@@ -39,6 +48,11 @@ public class Shift {
     private Instant startTime;
     private Instant endTime;
 
+    /**
+     * a cancelled shift of a recurring job is kept, so that its day is not listed again
+     */
+    private boolean cancelled;
+
     @CreatedDate
     private Instant createdAt;
 
@@ -0,0 +1,37 @@
+package com.zenjob.challenge.exceptions;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This Exception class is used when a resource was changed concurrently
+ * and the request could not be applied.
+ * <p>
+ * Like the ConstraintViolationException it does not record a stack trace
+ * and is shared per ErrorMessages constant.
+ */
+public class ConflictException extends RuntimeException {
+
+    private static final Map<String, ConflictException> PREALLOCATED = Collections.unmodifiableMap(ErrorMessages.all().stream()
+            .collect(Collectors.toMap(Function.identity(), ConflictException::new)));
+
+    public ConflictException(String message) {
+        super(message, null, false, false);
+    }
+
+    /**
+     * of returns the shared exception for the message
+     *
+     * @param message one of the ErrorMessages constants
+     * @return the shared exception, or a new one if the message is not a constant
+     */
+    public static ConflictException of(String message) {
+        ConflictException exception = PREALLOCATED.get(message);
+        return exception != null ? exception : new ConflictException(message);
+    }
+
+}
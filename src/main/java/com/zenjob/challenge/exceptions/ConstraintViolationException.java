@@ -1,12 +1,37 @@
 package com.zenjob.challenge.exceptions;
 
+import com.zenjob.challenge.constants.ErrorMessages;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
- * This Exception class is used when constraints or objective are not met
+ * This Exception class is used when constraints or objective are not met.
+ * <p>
+ * A rejection is an expected outcome rather than a failure, so the exception
+ * does not record a stack trace, and one instance per ErrorMessages constant is
+ * created up front and shared. It is immutable, so sharing it between threads is safe.
  */
 public class ConstraintViolationException extends RuntimeException {
 
+    private static final Map<String, ConstraintViolationException> PREALLOCATED = Collections.unmodifiableMap(ErrorMessages.all().stream()
+            .collect(Collectors.toMap(Function.identity(), ConstraintViolationException::new)));
+
     public ConstraintViolationException(String message) {
-        super(message);
+        super(message, null, false, false);
+    }
+
+    /**
+     * of returns the shared exception for the message
+     *
+     * @param message one of the ErrorMessages constants
+     * @return the shared exception, or a new one if the message is not a constant
+     */
+    public static ConstraintViolationException of(String message) {
+        ConstraintViolationException exception = PREALLOCATED.get(message);
+        return exception != null ? exception : new ConstraintViolationException(message);
     }
 
 }
@@ -5,7 +5,9 @@ import com.zenjob.challenge.dto.Error;
 import com.zenjob.challenge.dto.Errors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,30 +15,25 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.stream.Collectors;
 
 /**
- * This class is used to handle exceptions from the controllers
+ * This class is used to handle exceptions from the controllers.
+ * It keeps no state, every response is either a shared immutable Errors or a new one.
  */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    Errors errors = new Errors();
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseBody
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Errors handleMethodArgumentNotValidExceptions(MethodArgumentNotValidException e) {
         logger.error(e.getMessage());
-        List<Error> errorList = new ArrayList<>();
-        e.getBindingResult().getAllErrors().forEach(error -> {
-            Error inputError = new Error(error.getDefaultMessage());
-            errorList.add(inputError);
-        });
-        errors.setErrors(errorList);
-        return errors;
+        return Errors.of(e.getBindingResult().getAllErrors().stream()
+                .map(error -> new Error(error.getDefaultMessage()))
+                .collect(Collectors.toList()));
     }
 
     @ExceptionHandler(InvalidFormatException.class)
@@ -44,11 +41,7 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Errors handleInvalidFormatExceptions(InvalidFormatException e) {
         logger.error(e.getMessage());
-        List<Error> errorList = new ArrayList<>();
-        Error error = new Error("value '" + e.getValue().toString() + "' is of Invalid Format");
-        errorList.add(error);
-        errors.setErrors(errorList);
-        return errors;
+        return Errors.of("value '" + e.getValue().toString() + "' is of Invalid Format");
     }
 
     @ExceptionHandler(RestApplicationException.class)
@@ -56,23 +49,49 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Errors handleRestApplicationExceptions(RestApplicationException e) {
         logger.error(e.getMessage());
-        List<Error> errorList = new ArrayList<>();
-        Error error = new Error(e.getMessage());
-        errorList.add(error);
-        errors.setErrors(errorList);
-        return errors;
+        return Errors.of(e.getMessage());
     }
 
+    /**
+     * Rejections are expected outcomes of the business rules, they are logged at debug level
+     */
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseBody
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Errors handleConstraintViolationExceptions(ConstraintViolationException e) {
-        logger.error(e.getMessage());
-        List<Error> errorList = new ArrayList<>();
-        Error error = new Error(e.getMessage());
-        errorList.add(error);
-        errors.setErrors(errorList);
-        return errors;
+        logger.debug(e.getMessage());
+        return Errors.of(e.getMessage());
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Errors handleConflictExceptions(ConflictException e) {
+        logger.debug(e.getMessage());
+        return Errors.of(e.getMessage());
+    }
+
+    /**
+     * Requests which could not be served because the service is stopping were not applied
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Errors handleServiceUnavailableExceptions(ServiceUnavailableException e) {
+        logger.debug(e.getMessage());
+        return Errors.of(e.getMessage());
+    }
+
+    /**
+     * Requests which are not admitted are answered with the seconds after which they may be sent again
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseBody
+    public ResponseEntity<Errors> handleTooManyRequestsExceptions(TooManyRequestsException e) {
+        logger.debug(e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(Errors.of(e.getMessage()));
     }
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
@@ -80,11 +99,7 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Errors handleMethodArgumentTypeMismatchExceptions(MethodArgumentTypeMismatchException e) {
         logger.error(e.getMessage());
-        List<Error> errorList = new ArrayList<>();
-        Error error = new Error("value '" + e.getValue() + "' provided is Invalid");
-        errorList.add(error);
-        errors.setErrors(errorList);
-        return errors;
+        return Errors.of("value '" + e.getValue() + "' provided is Invalid");
     }
 
 }
@@ -0,0 +1,37 @@
+package com.zenjob.challenge.exceptions;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This Exception class is used when a request cannot be served because the service
+ * is stopping, the request was not applied and can be sent again to another instance.
+ * <p>
+ * Like the ConflictException it does not record a stack trace
+ * and is shared per ErrorMessages constant.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private static final Map<String, ServiceUnavailableException> PREALLOCATED = Collections.unmodifiableMap(ErrorMessages.all().stream()
+            .collect(Collectors.toMap(Function.identity(), ServiceUnavailableException::new)));
+
+    public ServiceUnavailableException(String message) {
+        super(message, null, false, false);
+    }
+
+    /**
+     * of returns the shared exception for the message
+     *
+     * @param message one of the ErrorMessages constants
+     * @return the shared exception, or a new one if the message is not a constant
+     */
+    public static ServiceUnavailableException of(String message) {
+        ServiceUnavailableException exception = PREALLOCATED.get(message);
+        return exception != null ? exception : new ServiceUnavailableException(message);
+    }
+
+}
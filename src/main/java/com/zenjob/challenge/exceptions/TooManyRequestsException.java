@@ -0,0 +1,27 @@
+package com.zenjob.challenge.exceptions;
+
+/**
+ * This Exception class is used when a request is not admitted because of the load,
+ * either of its company or of the whole service, and has to be sent again later.
+ * <p>
+ * Like the ConflictException it does not record a stack trace.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * getRetryAfterSeconds returns the whole number of seconds after which the request may be admitted
+     *
+     * @return the seconds, at least 1
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.zenjob.challenge.metrics;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class times every public operation of JobService, including its transaction,
+ * and counts the statements and entities the operation needed.
+ * <p>
+ * The timer is tagged with the outcome of the operation, and for rejected operations
+ * with the name of the ErrorMessages constraint which rejected it.
+ * The meters are registered once per combination of their tags and kept,
+ * so measuring an operation does not build and look up its meters again.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class JobServiceMetricsAspect {
+
+    static final String TIMER_NAME = "job.service";
+    static final String STATEMENTS_NAME = "job.service.statements";
+    static final String ENTITIES_NAME = "job.service.entities.loaded";
+
+    private static final String NONE = "none";
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> statements = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> entities = new ConcurrentHashMap<>();
+
+    public JobServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.zenjob.challenge.service.JobService.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        PersistenceActivity.Counters counters = PersistenceActivity.current();
+        PersistenceActivity.Snapshot before = counters.snapshot();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        String reason = NONE;
+        try {
+            return joinPoint.proceed();
+        } catch (ConstraintViolationException e) {
+            outcome = "rejected";
+            // the names of the ErrorMessages constants bound the values of the reason tag
+            String name = ErrorMessages.nameOf(e.getMessage());
+            reason = name == null ? UNKNOWN : name;
+            throw e;
+        } catch (ConflictException | ConcurrencyFailureException e) {
+            outcome = "conflict";
+            reason = e.getClass().getSimpleName();
+            throw e;
+        } catch (TooManyRequestsException e) {
+            outcome = "throttled";
+            reason = e.getClass().getSimpleName();
+            throw e;
+        } catch (Throwable e) {
+            outcome = "error";
+            reason = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(timers.computeIfAbsent(new TimerKey(operation, outcome, reason), this::timer));
+            statements.computeIfAbsent(operation, this::statementsSummary).record(before.statementsSince(counters));
+            entities.computeIfAbsent(operation, this::entitiesSummary).record(before.entitiesSince(counters));
+        }
+    }
+
+    private Timer timer(TimerKey key) {
+        return Timer.builder(TIMER_NAME)
+                .description("Duration of the JobService operations")
+                .tag("operation", key.getOperation())
+                .tag("outcome", key.getOutcome())
+                .tag("reason", key.getReason())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary statementsSummary(String operation) {
+        return DistributionSummary.builder(STATEMENTS_NAME)
+                .description("JDBC statements prepared by a JobService operation")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary entitiesSummary(String operation) {
+        return DistributionSummary.builder(ENTITIES_NAME)
+                .description("Entities loaded by a JobService operation")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    @Value
+    private static class TimerKey {
+        String operation;
+        String outcome;
+        String reason;
+    }
+}
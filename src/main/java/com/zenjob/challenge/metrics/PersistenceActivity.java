@@ -0,0 +1,71 @@
+package com.zenjob.challenge.metrics;
+
+/**
+ * This class counts the JDBC statements prepared and the entities loaded by Hibernate
+ * on the current thread, a unit of work is measured as the difference of two snapshots.
+ * <p>
+ * Statements run through a JdbcTemplate, like the shift stream, are not counted.
+ */
+public final class PersistenceActivity {
+
+    private static final ThreadLocal<Counters> COUNTERS = ThreadLocal.withInitial(Counters::new);
+
+    private PersistenceActivity() {
+    }
+
+    static void statementPrepared() {
+        COUNTERS.get().statements++;
+    }
+
+    static void entityLoaded() {
+        COUNTERS.get().entities++;
+    }
+
+    /**
+     * @return the counters of the current thread, they keep counting after they are returned
+     */
+    public static Counters current() {
+        return COUNTERS.get();
+    }
+
+    /**
+     * This class holds the counts of one thread
+     */
+    public static final class Counters {
+
+        private long statements;
+        private long entities;
+
+        public Snapshot snapshot() {
+            return new Snapshot(statements, entities);
+        }
+    }
+
+    /**
+     * This class holds the counts of one thread at a point in time
+     */
+    public static final class Snapshot {
+
+        private final long statements;
+        private final long entities;
+
+        private Snapshot(long statements, long entities) {
+            this.statements = statements;
+            this.entities = entities;
+        }
+
+        /**
+         * @return the statements prepared on this thread since the snapshot was taken
+         */
+        public long statementsSince(Counters counters) {
+            return counters.statements - statements;
+        }
+
+        /**
+         * @return the entities loaded on this thread since the snapshot was taken
+         */
+        public long entitiesSince(Counters counters) {
+            return counters.entities - entities;
+        }
+    }
+}
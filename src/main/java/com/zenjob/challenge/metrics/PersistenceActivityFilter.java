@@ -0,0 +1,72 @@
+package com.zenjob.challenge.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class counts the statements and entities every HTTP request needed,
+ * tagged like the http.server.requests timer so that both can be shown side by side.
+ * The summaries are registered once per tag combination, a request only looks them up
+ */
+@Component
+public class PersistenceActivityFilter extends OncePerRequestFilter {
+
+    static final String STATEMENTS_NAME = "http.server.requests.statements";
+    static final String ENTITIES_NAME = "http.server.requests.entities.loaded";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<SummaryKey, DistributionSummary> statements = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SummaryKey, DistributionSummary> entities = new ConcurrentHashMap<>();
+
+    public PersistenceActivityFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        PersistenceActivity.Counters counters = PersistenceActivity.current();
+        PersistenceActivity.Snapshot before = counters.snapshot();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            SummaryKey key = new SummaryKey(request.getMethod(), pattern == null ? "UNKNOWN" : pattern.toString(), response.getStatus());
+            statements.computeIfAbsent(key, this::statementsSummary).record(before.statementsSince(counters));
+            entities.computeIfAbsent(key, this::entitiesSummary).record(before.entitiesSince(counters));
+        }
+    }
+
+    private DistributionSummary statementsSummary(SummaryKey key) {
+        return DistributionSummary.builder(STATEMENTS_NAME)
+                .description("JDBC statements prepared by a request")
+                .tags("method", key.getMethod(), "uri", key.getUri(), "status", String.valueOf(key.getStatus()))
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary entitiesSummary(SummaryKey key) {
+        return DistributionSummary.builder(ENTITIES_NAME)
+                .description("Entities loaded by a request")
+                .tags("method", key.getMethod(), "uri", key.getUri(), "status", String.valueOf(key.getStatus()))
+                .register(meterRegistry);
+    }
+
+    @Value
+    private static class SummaryKey {
+        String method;
+        String uri;
+        int status;
+    }
+}
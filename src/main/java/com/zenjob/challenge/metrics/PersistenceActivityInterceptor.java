@@ -0,0 +1,26 @@
+package com.zenjob.challenge.metrics;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * This class is registered with the Hibernate session factory and
+ * feeds every prepared statement and every loaded entity into {@link PersistenceActivity}
+ */
+public class PersistenceActivityInterceptor extends EmptyInterceptor implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        PersistenceActivity.statementPrepared();
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        PersistenceActivity.entityLoaded();
+        return false;
+    }
+}
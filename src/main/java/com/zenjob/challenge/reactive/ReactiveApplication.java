@@ -0,0 +1,44 @@
+package com.zenjob.challenge.reactive;
+
+import com.zenjob.challenge.config.ClockConfig;
+import com.zenjob.challenge.config.SubstitutionProperties;
+import com.zenjob.challenge.service.TalentSubstitutionPlanner;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * This class starts the non-blocking variant of the service, WebFlux on Netty
+ * with R2DBC repositories, configured by the reactive profile.
+ * <p>
+ * Requests are served by the Netty event loop, which has one thread per core,
+ * rather than by Tomcat which is on the classpath for the blocking service.
+ * It is not a SpringBootConfiguration, so that tests of the blocking service
+ * keep finding the Application, and it scans only its own package.
+ */
+@Configuration
+@EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+@ComponentScan
+@Import({ClockConfig.class, SubstitutionProperties.class, TalentSubstitutionPlanner.class})
+public class ReactiveApplication {
+
+    public static final String PROFILE = "reactive";
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveApplication.class)
+                .profiles(PROFILE)
+                .run(args);
+    }
+}
@@ -0,0 +1,109 @@
+package com.zenjob.challenge.reactive.controller;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.ResponseDto;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.reactive.service.ReactiveJobService;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import javax.validation.constraints.FutureOrPresent;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * This class consists of the non-blocking REST endpoints for Job Resource,
+ * they validate requests like the JobController does
+ */
+@RestController
+@RequestMapping(path = "/job")
+@RequiredArgsConstructor
+public class ReactiveJobController {
+
+    private final ReactiveJobService jobService;
+
+    /**
+     * This method is used to create a Job
+     *
+     * @param dto the request object
+     * @return the RequestJobResponse
+     * @throws ConstraintViolationException when constraints or objective are not met
+     */
+    @PostMapping
+    public Mono<ResponseDto<RequestJobResponse>> requestJob(@RequestBody @Valid RequestJobRequestDto dto) throws ConstraintViolationException {
+        validateShiftTimings(dto.start.getHour(), dto.end.getHour());
+        return jobService.createJob(dto.companyId, dto.start, dto.end)
+                .map(job -> ResponseDto.<RequestJobResponse>builder()
+                        .data(RequestJobResponse.builder()
+                                .jobId(job.getId())
+                                .build())
+                        .build());
+    }
+
+    /**
+     * This method is used to cancel a particular job with all of its shifts
+     *
+     * @param jobId the unique id of job
+     * @return completes when the job is cancelled
+     */
+    @DeleteMapping(path = "/{jobId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> cancelJob(@PathVariable("jobId") UUID jobId) {
+        return jobService.cancelJob(jobId).then();
+    }
+
+    /**
+     * validateShiftTimings method is used to validate whether
+     * shift timing range is at most 8 hours and min 2 hours
+     *
+     * @param shiftStartTime valid start time of the shift
+     * @param shiftEndTime   valid end time of the shift
+     * @throws ConstraintViolationException if shift range is Invalid
+     */
+    private void validateShiftTimings(int shiftStartTime, int shiftEndTime) throws ConstraintViolationException {
+        int totalShiftTime = shiftEndTime - shiftStartTime;
+        if (shiftStartTime > shiftEndTime || totalShiftTime > 8 || totalShiftTime < 2) {
+            throw ConstraintViolationException.of(ErrorMessages.SHIFT_TIMING_RANGE_INVALID);
+        }
+    }
+
+    /**
+     * This class is used to create request object
+     */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Data
+    private static class RequestJobRequestDto {
+
+        @NotNull(message = ErrorMessages.COMPANY_ID_INVALID)
+        private UUID companyId;
+
+        @NotNull(message = ErrorMessages.SHIFT_START_DATE_TIME_INVALID)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        @FutureOrPresent(message = ErrorMessages.SHIFT_START_DATE_TIME_INVALID)
+        private LocalDateTime start;
+
+        @NotNull(message = ErrorMessages.SHIFT_END_DATE_TIME_INVALID)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        @FutureOrPresent(message = ErrorMessages.SHIFT_END_DATE_TIME_INVALID)
+        private LocalDateTime end;
+    }
+
+    /**
+     * This class is used to wrap the response
+     */
+    @Builder
+    @Data
+    private static class RequestJobResponse {
+        UUID jobId;
+    }
+}
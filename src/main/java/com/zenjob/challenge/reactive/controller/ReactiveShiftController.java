@@ -0,0 +1,173 @@
+package com.zenjob.challenge.reactive.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zenjob.challenge.constants.APIConstants;
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.ResponseDto;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.reactive.service.ReactiveJobService;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * This class consists of the non-blocking REST endpoints for Shift Resource,
+ * they have the same paths and responses as the ShiftController
+ */
+@RestController
+@RequestMapping(path = "/shift")
+@RequiredArgsConstructor
+public class ReactiveShiftController {
+
+    private final ReactiveJobService jobService;
+
+    /**
+     * This method is used to get the shifts of a job ordered by start time,
+     * all of them at once, or one page at a time when a limit or a cursor is given
+     *
+     * @param uuid   the unique id of the job
+     * @param limit  the maximum number of shifts of the page
+     * @param cursor the nextCursor of the previous page
+     * @return the GetShiftsResponse
+     * @throws ConstraintViolationException when the limit or the cursor is invalid
+     */
+    @GetMapping(path = "/{jobId}")
+    public Mono<ResponseDto<GetShiftsResponse>> getShifts(@PathVariable("jobId") UUID uuid,
+                                                          @RequestParam(name = "limit", required = false) Integer limit,
+                                                          @RequestParam(name = "cursor", required = false) String cursor) throws ConstraintViolationException {
+        if (limit == null && cursor == null) {
+            return jobService.getShiftViews(uuid)
+                    .collectList()
+                    .map(shifts -> toResponse(shifts, null));
+        }
+        int pageSize = limit == null ? APIConstants.DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > APIConstants.MAX_PAGE_SIZE) {
+            throw ConstraintViolationException.of(ErrorMessages.PAGE_SIZE_INVALID);
+        }
+        ShiftCursor after = cursor == null ? null : ShiftCursor.decode(cursor);
+
+        // one more shift than requested tells if there is a next page
+        return jobService.getShiftViews(uuid, after, pageSize + 1)
+                .collectList()
+                .map(shifts -> shifts.size() > pageSize
+                        ? toResponse(shifts.subList(0, pageSize), ShiftCursor.after(shifts.get(pageSize - 1)).encode())
+                        : toResponse(shifts, null));
+    }
+
+    /**
+     * This method is used to stream all shifts of a job as newline delimited JSON,
+     * the shifts are read from the database as the client consumes them
+     *
+     * @param uuid the unique id of the job
+     * @return one ShiftResponse per line
+     */
+    @GetMapping(path = "/{jobId}/stream", produces = APIConstants.APPLICATION_NDJSON_VALUE)
+    public Flux<ShiftResponse> streamShifts(@PathVariable("jobId") UUID uuid) {
+        return jobService.getShiftViews(uuid).map(this::toShiftResponse);
+    }
+
+    private ResponseDto<GetShiftsResponse> toResponse(List<ShiftView> shifts, String nextCursor) {
+        return ResponseDto.<GetShiftsResponse>builder()
+                .data(GetShiftsResponse.builder()
+                        .shifts(shifts.stream()
+                                .map(this::toShiftResponse)
+                                .collect(Collectors.toList()))
+                        .nextCursor(nextCursor)
+                        .build())
+                .build();
+    }
+
+    private ShiftResponse toShiftResponse(ShiftView shift) {
+        return ShiftResponse.builder()
+                .id(shift.getId())
+                .talentId(shift.getTalentId())
+                .jobId(shift.getJobId())
+                .start(shift.getStart())
+                .end(shift.getEnd())
+                .build();
+    }
+
+    /**
+     * This method is used to cancel shift by shift Id
+     *
+     * @param shiftId the unique id of the shift
+     * @return completes when the shift is cancelled
+     */
+    @DeleteMapping("/{shiftId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> cancelShiftByShiftId(@PathVariable("shiftId") UUID shiftId) {
+        return jobService.cancelShiftByShiftId(shiftId);
+    }
+
+    /**
+     * This method is used to cancel shift by talent id
+     *
+     * @param talentId the unique id of the talent
+     * @return completes when the shifts are given to a new talent
+     */
+    @PatchMapping("/talent/{talentId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> cancelShiftByTalentId(@PathVariable("talentId") UUID talentId) {
+        return jobService.cancelShiftForTalentId(talentId);
+    }
+
+    /**
+     * This method is used to book talent for the shift provided
+     *
+     * @param shiftId the unique id of the shift
+     * @param dto     the request object
+     * @return completes when the talent is booked
+     */
+    @PatchMapping(path = "/{id}/book")
+    @ResponseStatus(code = HttpStatus.NO_CONTENT)
+    public Mono<Void> bookTalent(@PathVariable("id") UUID shiftId, @RequestBody @Valid BookTalentRequestDto dto) {
+        return jobService.bookTalent(shiftId, dto.talent);
+    }
+
+    /**
+     * This class is used to create request object
+     */
+    @NoArgsConstructor
+    @Data
+    private static class BookTalentRequestDto {
+        UUID talent;
+    }
+
+    @Builder
+    @Data
+    private static class GetShiftsResponse {
+        List<ShiftResponse> shifts;
+
+        /**
+         * nextCursor is only set for paged requests which have a next page
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        String nextCursor;
+    }
+
+    /**
+     * This class is used to wrap the response
+     */
+    @Builder
+    @Data
+    private static class ShiftResponse {
+        UUID id;
+        UUID talentId;
+        UUID jobId;
+        Instant start;
+        Instant end;
+    }
+}
@@ -0,0 +1,73 @@
+package com.zenjob.challenge.reactive.exceptions;
+
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.zenjob.challenge.dto.Error;
+import com.zenjob.challenge.dto.Errors;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.exceptions.RestApplicationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.stream.Collectors;
+
+/**
+ * This class is used to handle exceptions from the reactive controllers,
+ * the responses are the ones of the GlobalExceptionHandler
+ */
+@RestControllerAdvice
+public class ReactiveExceptionHandler {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Errors handleWebExchangeBindExceptions(WebExchangeBindException e) {
+        logger.error(e.getMessage());
+        return Errors.of(e.getAllErrors().stream()
+                .map(error -> new Error(error.getDefaultMessage()))
+                .collect(Collectors.toList()));
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Errors handleServerWebInputExceptions(ServerWebInputException e) {
+        logger.error(e.getMessage());
+        Throwable cause = e.getMostSpecificCause();
+        if (cause instanceof InvalidFormatException) {
+            return Errors.of("value '" + ((InvalidFormatException) cause).getValue() + "' is of Invalid Format");
+        }
+        if (e.getCause() instanceof TypeMismatchException) {
+            return Errors.of("value '" + ((TypeMismatchException) e.getCause()).getValue() + "' provided is Invalid");
+        }
+        return Errors.of(e.getReason());
+    }
+
+    @ExceptionHandler(RestApplicationException.class)
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    public Errors handleRestApplicationExceptions(RestApplicationException e) {
+        logger.error(e.getMessage());
+        return Errors.of(e.getMessage());
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Errors handleConstraintViolationExceptions(ConstraintViolationException e) {
+        logger.debug(e.getMessage());
+        return Errors.of(e.getMessage());
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Errors handleConflictExceptions(ConflictException e) {
+        logger.debug(e.getMessage());
+        return Errors.of(e.getMessage());
+    }
+}
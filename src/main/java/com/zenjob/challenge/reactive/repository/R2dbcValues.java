@@ -0,0 +1,31 @@
+package com.zenjob.challenge.reactive.repository;
+
+import com.zenjob.challenge.repository.UuidBytes;
+import io.r2dbc.spi.Row;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * This class converts ids and times to and from the column types they are stored in,
+ * times are stored in UTC without a zone like the JPA repositories do
+ */
+final class R2dbcValues {
+
+    private R2dbcValues() {
+    }
+
+    static LocalDateTime of(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    static UUID uuid(Row row, String column) {
+        return UuidBytes.toUuid(row.get(column, byte[].class));
+    }
+
+    static Instant instant(Row row, String column) {
+        return row.get(column, LocalDateTime.class).toInstant(ZoneOffset.UTC);
+    }
+}
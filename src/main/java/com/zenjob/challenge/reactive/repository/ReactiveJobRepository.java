@@ -0,0 +1,90 @@
+package com.zenjob.challenge.reactive.repository;
+
+import com.zenjob.challenge.constants.DatabaseQueries;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.repository.UuidBytes;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * This class reads and writes jobs without blocking, the statements are the
+ * native counterparts of the queries of the JobRepository
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveJobRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * insert inserts the job without its shifts
+     *
+     * @param job the job to be inserted
+     * @param now the creation time
+     * @return completes when the job is inserted
+     */
+    public Mono<Void> insert(Job job, Instant now) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_INSERT_JOB)
+                .bind("id", UuidBytes.of(job.getId()))
+                .bind("companyId", UuidBytes.of(job.getCompanyId()))
+                .bind("startTime", R2dbcValues.of(job.getStartTime()))
+                .bind("endTime", R2dbcValues.of(job.getEndTime()))
+                .bind("activeShiftCount", job.getActiveShiftCount())
+                .bind("recurring", job.isRecurring())
+                .bind("now", R2dbcValues.of(now))
+                .then();
+    }
+
+    /**
+     * findRecurrenceById reads the recurrence of the shifts of the job
+     *
+     * @param jobId the unique id of the job
+     * @return the recurrence, empty if the job does not exist
+     */
+    public Mono<JobRecurrence> findRecurrenceById(UUID jobId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_FIND_JOB_RECURRENCE)
+                .bind("id", UuidBytes.of(jobId))
+                .map(row -> new JobRecurrence(
+                        R2dbcValues.uuid(row, "id"),
+                        R2dbcValues.instant(row, "start_time"),
+                        R2dbcValues.instant(row, "end_time"),
+                        row.get("recurring", Boolean.class),
+                        row.get("active_shift_count", Integer.class)))
+                .one();
+    }
+
+    /**
+     * decrementActiveShiftCount decrements the active shift count of the job
+     * only if the job keeps at least one shift
+     *
+     * @param jobId the unique id of the job
+     * @return the number of updated jobs, 0 if the job has a single shift left
+     */
+    public Mono<Long> decrementActiveShiftCount(UUID jobId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_DECREMENT_ACTIVE_SHIFT_COUNT)
+                .bind("id", UuidBytes.of(jobId))
+                .fetch()
+                .rowsUpdated()
+                .map(Number::longValue);
+    }
+
+    /**
+     * deleteJobById deletes the job, its shifts must have been deleted before
+     *
+     * @param jobId the unique id of the job
+     * @return the number of deleted jobs
+     */
+    public Mono<Long> deleteJobById(UUID jobId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_DELETE_JOB)
+                .bind("id", UuidBytes.of(jobId))
+                .fetch()
+                .rowsUpdated()
+                .map(Number::longValue);
+    }
+}
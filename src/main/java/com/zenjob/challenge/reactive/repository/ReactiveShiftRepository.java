@@ -0,0 +1,273 @@
+package com.zenjob.challenge.reactive.repository;
+
+import com.zenjob.challenge.constants.DatabaseQueries;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.dto.StoredShift;
+import com.zenjob.challenge.repository.UuidBytes;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * This class reads and writes shifts without blocking, the statements are the
+ * native counterparts of the queries of the ShiftRepository.
+ * Listings are emitted row by row as the subscriber requests them.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveShiftRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * insert stores a shift of a recurring job which was only generated until now,
+     * it fails with a DataIntegrityViolationException if the shift was stored concurrently
+     *
+     * @param shift     the shift as it was generated
+     * @param cancelled true to store the shift as cancelled
+     * @param now       the creation time
+     * @return completes when the shift is inserted
+     */
+    public Mono<Void> insert(ShiftView shift, boolean cancelled, Instant now) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(DatabaseQueries.R2DBC_INSERT_SHIFT)
+                .bind("id", UuidBytes.of(shift.getId()));
+        spec = shift.getTalentId() == null
+                ? spec.bindNull("talentId", byte[].class)
+                : spec.bind("talentId", UuidBytes.of(shift.getTalentId()));
+        return spec.bind("jobId", UuidBytes.of(shift.getJobId()))
+                .bind("startTime", R2dbcValues.of(shift.getStart()))
+                .bind("endTime", R2dbcValues.of(shift.getEnd()))
+                .bind("cancelled", cancelled)
+                .bind("now", R2dbcValues.of(now))
+                .then();
+    }
+
+    /**
+     * findById finds the shift together with its version
+     *
+     * @param shiftId the unique id of the shift
+     * @return the shift, empty if it does not exist
+     */
+    public Mono<VersionedShift> findById(UUID shiftId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_FIND_SHIFT)
+                .bind("id", UuidBytes.of(shiftId))
+                .map(row -> new VersionedShift(toShiftView(row), row.get("version", Long.class), row.get("cancelled", Boolean.class)))
+                .one();
+    }
+
+    /**
+     * findStoredByJobId reads the stored shifts of the job including the cancelled ones, unordered
+     *
+     * @param jobId the unique id of the job
+     * @return the stored shifts of the job
+     */
+    public Flux<StoredShift> findStoredByJobId(UUID jobId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_FIND_STORED_SHIFTS_FOR_JOB)
+                .bind("jobId", UuidBytes.of(jobId))
+                .map(row -> new StoredShift(
+                        R2dbcValues.uuid(row, "id"),
+                        R2dbcValues.uuid(row, "talent_id"),
+                        R2dbcValues.uuid(row, "job_id"),
+                        R2dbcValues.instant(row, "start_time"),
+                        R2dbcValues.instant(row, "end_time"),
+                        row.get("cancelled", Boolean.class)))
+                .all();
+    }
+
+    /**
+     * findViewsByJobId reads all shifts of the job ordered by start time and id
+     *
+     * @param jobId the unique id of the job
+     * @return the shifts of the job
+     */
+    public Flux<ShiftView> findViewsByJobId(UUID jobId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_FIND_SHIFTS_FOR_JOB)
+                .bind("jobId", UuidBytes.of(jobId))
+                .map(ReactiveShiftRepository::toShiftView)
+                .all();
+    }
+
+    /**
+     * findViewsByJobId reads one page of shifts of the job ordered by start time and id
+     *
+     * @param jobId the unique id of the job
+     * @param after the position of the last shift of the previous page, null for the first page
+     * @param limit the maximum number of shifts of the page
+     * @return the shifts following the given position
+     */
+    public Flux<ShiftView> findViewsByJobId(UUID jobId, ShiftCursor after, int limit) {
+        DatabaseClient.GenericExecuteSpec spec;
+        if (after == null) {
+            spec = databaseClient.sql(DatabaseQueries.R2DBC_FIND_SHIFT_PAGE_FOR_JOB);
+        } else {
+            spec = databaseClient.sql(DatabaseQueries.R2DBC_FIND_SHIFT_PAGE_FOR_JOB_AFTER)
+                    .bind("start", R2dbcValues.of(after.getStart()))
+                    .bind("id", UuidBytes.of(after.getId()));
+        }
+        return spec.bind("jobId", UuidBytes.of(jobId))
+                .bind("limit", limit)
+                .map(ReactiveShiftRepository::toShiftView)
+                .all();
+    }
+
+    /**
+     * existsConflictingShift checks if the talent has a shift, other than the given one,
+     * which starts before latestStart and ends after earliestEnd
+     *
+     * @param talentId    the talent to be checked
+     * @param shiftId     the shift the talent should be booked for
+     * @param latestStart the end of the new shift plus the minimum break
+     * @param earliestEnd the start of the new shift minus the minimum break
+     * @return true if such a shift exists
+     */
+    public Mono<Boolean> existsConflictingShift(UUID talentId, UUID shiftId, Instant latestStart, Instant earliestEnd) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_EXISTS_CONFLICTING_SHIFT)
+                .bind("talentId", UuidBytes.of(talentId))
+                .bind("shiftId", UuidBytes.of(shiftId))
+                .bind("latestStart", R2dbcValues.of(latestStart))
+                .bind("earliestEnd", R2dbcValues.of(earliestEnd))
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    /**
+     * findViewsByTalentId finds all shifts the talent is booked for
+     *
+     * @param talentId the unique id of the talent
+     * @return the shifts of the talent
+     */
+    public Flux<ShiftView> findViewsByTalentId(UUID talentId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_FIND_SHIFTS_FOR_TALENT)
+                .bind("talentId", UuidBytes.of(talentId))
+                .map(ReactiveShiftRepository::toShiftView)
+                .all();
+    }
+
+    /**
+     * findViewsByTalentId finds the shifts of the talent which start before latestStart and end after earliestEnd
+     *
+     * @param talentId    the unique id of the talent
+     * @param latestStart the time the shifts have to start before
+     * @param earliestEnd the time the shifts have to end after
+     * @return the shifts of the talent in the range
+     */
+    public Flux<ShiftView> findViewsByTalentId(UUID talentId, Instant latestStart, Instant earliestEnd) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_FIND_SHIFTS_FOR_TALENT_BETWEEN)
+                .bind("talentId", UuidBytes.of(talentId))
+                .bind("latestStart", R2dbcValues.of(latestStart))
+                .bind("earliestEnd", R2dbcValues.of(earliestEnd))
+                .map(ReactiveShiftRepository::toShiftView)
+                .all();
+    }
+
+    /**
+     * book sets the talent of the shift if the shift was not changed since it was read
+     *
+     * @param shift    the shift as it was read
+     * @param talentId the talent to be booked
+     * @param now      the modification time
+     * @return the number of updated shifts, 0 if the shift was changed concurrently
+     */
+    public Mono<Long> book(VersionedShift shift, UUID talentId, Instant now) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_BOOK_SHIFT)
+                .bind("talentId", UuidBytes.of(talentId))
+                .bind("now", R2dbcValues.of(now))
+                .bind("id", UuidBytes.of(shift.getShift().getId()))
+                .bind("version", shift.getVersion())
+                .fetch()
+                .rowsUpdated()
+                .map(Number::longValue);
+    }
+
+    /**
+     * substituteTalent gives the shift to the new talent if the current talent is still booked for it
+     *
+     * @param shiftId         the unique id of the shift
+     * @param currentTalentId the talent whose shift is taken away
+     * @param newTalentId     the talent who substitutes the current talent
+     * @param now             the modification time
+     * @return the number of updated shifts, 0 if the shift was given to someone else concurrently
+     */
+    public Mono<Long> substituteTalent(UUID shiftId, UUID currentTalentId, UUID newTalentId, Instant now) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_SUBSTITUTE_TALENT)
+                .bind("newTalentId", UuidBytes.of(newTalentId))
+                .bind("now", R2dbcValues.of(now))
+                .bind("id", UuidBytes.of(shiftId))
+                .bind("talentId", UuidBytes.of(currentTalentId))
+                .fetch()
+                .rowsUpdated()
+                .map(Number::longValue);
+    }
+
+    /**
+     * cancelShiftById marks the stored shift of a recurring job as cancelled and releases its talent
+     *
+     * @param shiftId the unique id of the shift
+     * @param now     the modification time
+     * @return the number of cancelled shifts, 0 if the shift was cancelled before
+     */
+    public Mono<Long> cancelShiftById(UUID shiftId, Instant now) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_CANCEL_SHIFT)
+                .bind("now", R2dbcValues.of(now))
+                .bind("id", UuidBytes.of(shiftId))
+                .fetch()
+                .rowsUpdated()
+                .map(Number::longValue);
+    }
+
+    /**
+     * deleteShiftById deletes the shift
+     *
+     * @param shiftId the unique id of the shift
+     * @return the number of deleted shifts
+     */
+    public Mono<Long> deleteShiftById(UUID shiftId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_DELETE_SHIFT)
+                .bind("id", UuidBytes.of(shiftId))
+                .fetch()
+                .rowsUpdated()
+                .map(Number::longValue);
+    }
+
+    /**
+     * deleteAllByJobId deletes all shifts of the job with one statement
+     *
+     * @param jobId the unique id of the job
+     * @return the number of deleted shifts
+     */
+    public Mono<Long> deleteAllByJobId(UUID jobId) {
+        return databaseClient.sql(DatabaseQueries.R2DBC_DELETE_SHIFTS_FOR_JOB)
+                .bind("jobId", UuidBytes.of(jobId))
+                .fetch()
+                .rowsUpdated()
+                .map(Number::longValue);
+    }
+
+    private static ShiftView toShiftView(Row row) {
+        return new ShiftView(
+                R2dbcValues.uuid(row, "id"),
+                R2dbcValues.uuid(row, "talent_id"),
+                R2dbcValues.uuid(row, "job_id"),
+                R2dbcValues.instant(row, "start_time"),
+                R2dbcValues.instant(row, "end_time"));
+    }
+
+    /**
+     * This class is a shift together with the version it was read with
+     */
+    @Value
+    public static class VersionedShift {
+        ShiftView shift;
+        long version;
+        boolean cancelled;
+    }
+}
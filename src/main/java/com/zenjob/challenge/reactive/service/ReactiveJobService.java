@@ -0,0 +1,309 @@
+package com.zenjob.challenge.reactive.service;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.reactive.repository.ReactiveJobRepository;
+import com.zenjob.challenge.reactive.repository.ReactiveShiftRepository;
+import com.zenjob.challenge.reactive.repository.ReactiveShiftRepository.VersionedShift;
+import com.zenjob.challenge.service.JobService;
+import com.zenjob.challenge.service.TalentScheduleIndex;
+import com.zenjob.challenge.service.TalentSubstitutionPlanner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * This class is the non-blocking counterpart of the JobService, it applies
+ * the same rules to jobs and shifts but never blocks the calling thread.
+ * <p>
+ * Every operation which changes data runs in one transaction. The transactions
+ * are applied with a TransactionalOperator, so that a booking which lost
+ * the optimistic lock on its shift can be retried as a whole.
+ */
+@Service
+public class ReactiveJobService {
+
+    private final ReactiveJobRepository jobRepository;
+    private final ReactiveShiftRepository shiftRepository;
+    private final TalentBookingSerializer talentBookingSerializer;
+    private final TalentSubstitutionPlanner talentSubstitutionPlanner;
+    private final TransactionalOperator transactionalOperator;
+    private final Clock clock;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public ReactiveJobService(ReactiveJobRepository jobRepository, ReactiveShiftRepository shiftRepository,
+                              TalentBookingSerializer talentBookingSerializer, TalentSubstitutionPlanner talentSubstitutionPlanner,
+                              TransactionalOperator transactionalOperator, Clock clock,
+                              @Value("${booking.retry.max-attempts:3}") int maxAttempts,
+                              @Value("${booking.retry.backoff-millis:10}") long backoffMillis) {
+        this.jobRepository = jobRepository;
+        this.shiftRepository = shiftRepository;
+        this.talentBookingSerializer = talentBookingSerializer;
+        this.talentSubstitutionPlanner = talentSubstitutionPlanner;
+        this.transactionalOperator = transactionalOperator;
+        this.clock = clock;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * createJob method allows a company to create the job,
+     * the job is stored like JobService does, without any of its shifts
+     *
+     * @param companyId      the id of the company who creates a job
+     * @param shiftStartDate the start date and time of shift
+     * @param shiftEndDate   the end date and Time of shift
+     * @return the Job that is created
+     */
+    public Mono<Job> createJob(UUID companyId, LocalDateTime shiftStartDate, LocalDateTime shiftEndDate) {
+        return Mono.defer(() -> {
+            Job job = JobService.buildJob(companyId, shiftStartDate, shiftEndDate);
+            return jobRepository.insert(job, clock.instant())
+                    .thenReturn(job);
+        }).as(transactionalOperator::transactional);
+    }
+
+    /**
+     * getShiftViews emits all shifts of a job ordered by start time,
+     * the shifts are read or generated as the subscriber requests them
+     *
+     * @param jobId the unique id of the job created by company
+     * @return the shifts of the job
+     */
+    public Flux<ShiftView> getShiftViews(UUID jobId) {
+        return jobRepository.findRecurrenceById(jobId)
+                .flatMapMany(recurrence -> recurrence.isRecurring()
+                        ? generateShifts(recurrence, null)
+                        : shiftRepository.findViewsByJobId(jobId));
+    }
+
+    /**
+     * getShiftViews emits one page of shifts of a job ordered by start time and id
+     *
+     * @param jobId the unique id of the job created by company
+     * @param after the position of the last shift of the previous page, null for the first page
+     * @param limit the maximum number of shifts of the page
+     * @return the shifts following the given position
+     */
+    public Flux<ShiftView> getShiftViews(UUID jobId, ShiftCursor after, int limit) {
+        return jobRepository.findRecurrenceById(jobId)
+                .flatMapMany(recurrence -> recurrence.isRecurring()
+                        ? generateShifts(recurrence, after).take(limit)
+                        : shiftRepository.findViewsByJobId(jobId, after, limit));
+    }
+
+    private Flux<ShiftView> generateShifts(JobRecurrence recurrence, ShiftCursor after) {
+        return shiftRepository.findStoredByJobId(recurrence.getJobId())
+                .collectList()
+                .flatMapMany(stored -> Flux.fromStream(() -> recurrence.shifts(stored, after)));
+    }
+
+    /**
+     * bookTalent books the talent for the shift after all earlier bookings of the talent completed,
+     * a booking which lost the optimistic lock on the shift is retried with a growing, jittered backoff
+     *
+     * @param shiftId  the identifier of the shift for which the talent needs to be booked
+     * @param talentId the identifier of the talent to be booked
+     * @return completes when the talent is booked, fails with ConstraintViolationException
+     * when constraints or objective are not met, or with ConflictException when the shift kept being modified concurrently
+     */
+    public Mono<Void> bookTalent(UUID shiftId, UUID talentId) {
+        return talentBookingSerializer.serialize(talentId, () -> bookTalentOnce(shiftId, talentId)
+                .as(transactionalOperator::transactional)
+                .retryWhen(Retry.backoff(maxAttempts - 1, Duration.ofMillis(backoffMillis))
+                        .filter(OptimisticLockingFailureException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY))));
+    }
+
+    private Mono<Void> bookTalentOnce(UUID shiftId, UUID talentId) {
+        return shiftRepository.findById(shiftId)
+                .flatMap(shift -> shift.isCancelled()
+                        ? Mono.<Long>error(ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT))
+                        : checkIfTalentIsEligibleToWorkInShift(shift.getShift(), talentId)
+                        .then(shiftRepository.book(shift, talentId, clock.instant())))
+                .switchIfEmpty(Mono.defer(() -> findOccurrence(shiftId)
+                        .flatMap(occurrence -> checkIfTalentIsEligibleToWorkInShift(occurrence, talentId)
+                                .then(insertOccurrence(occurrence, talentId)))))
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new OptimisticLockingFailureException(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY))
+                        : Mono.empty());
+    }
+
+    /**
+     * insertOccurrence stores the booked shift of a recurring job, the insert
+     * fails like a lost optimistic lock if the shift was stored concurrently
+     */
+    private Mono<Long> insertOccurrence(ShiftView occurrence, UUID talentId) {
+        ShiftView bookedShift = new ShiftView(occurrence.getId(), talentId, occurrence.getJobId(), occurrence.getStart(), occurrence.getEnd());
+        return shiftRepository.insert(bookedShift, false, clock.instant())
+                .thenReturn(1L)
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new OptimisticLockingFailureException(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY, e));
+    }
+
+    /**
+     * findOccurrence generates the shift of a recurring job which is not stored
+     *
+     * @param shiftId the unique id of the shift
+     * @return the shift, fails with ConstraintViolationException if the id is not the one of a shift of a recurring job
+     */
+    private Mono<ShiftView> findOccurrence(UUID shiftId) {
+        return jobRepository.findRecurrenceById(JobRecurrence.jobIdOf(shiftId))
+                .flatMap(recurrence -> Mono.justOrEmpty(recurrence.occurrence(shiftId)))
+                .switchIfEmpty(Mono.error(() -> ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT)));
+    }
+
+    /**
+     * checkIfTalentIsEligibleToWorkInShift checks if the talent has at least a 6 hour break between shifts,
+     * other shifts can only conflict if they start before the end of the shift plus the break
+     * and end after the start of the shift minus the break
+     *
+     * @param requiredShift the shift for which the company needs to book talent
+     * @param talentId      the talent which needs to be booked
+     * @return completes if the talent is eligible
+     */
+    private Mono<Void> checkIfTalentIsEligibleToWorkInShift(ShiftView requiredShift, UUID talentId) {
+        if (talentId.equals(requiredShift.getTalentId())) {
+            return Mono.error(ConstraintViolationException.of(ErrorMessages.TALENT_ALREADY_WORKING_FOR_PROVIDED_SHIFT));
+        }
+        Duration minimumBreak = TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS;
+        return shiftRepository.existsConflictingShift(talentId, requiredShift.getId(),
+                requiredShift.getEnd().plus(minimumBreak), requiredShift.getStart().minus(minimumBreak))
+                .flatMap(conflicting -> conflicting
+                        ? Mono.error(ConstraintViolationException.of(ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID))
+                        : Mono.empty());
+    }
+
+    /**
+     * cancelJob method is used to cancel job and all related shifts for a job,
+     * the shifts and the job are deleted with one statement each whatever the size of the job
+     *
+     * @param jobId the unique id of the job to be cancelled
+     * @return the number of cancelled shifts, fails with ConstraintViolationException if the job does not exist
+     */
+    public Mono<Long> cancelJob(UUID jobId) {
+        return jobRepository.findRecurrenceById(jobId)
+                .switchIfEmpty(Mono.error(() -> ConstraintViolationException.of(ErrorMessages.JOB_ID_NOT_PRESENT)))
+                .flatMap(recurrence -> shiftRepository.deleteAllByJobId(jobId)
+                        .then(jobRepository.deleteJobById(jobId))
+                        .flatMap(deletedJobs -> deletedJobs == 0
+                                ? Mono.<Long>error(ConstraintViolationException.of(ErrorMessages.JOB_ID_NOT_PRESENT))
+                                : Mono.just((long) recurrence.getActiveShiftCount())))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * cancelShiftByShiftId method is used to cancel shift by shift id,
+     * the active shift count of the job is decremented only if the job keeps at least one shift.
+     * The shifts of recurring jobs are stored as cancelled, other shifts are deleted
+     *
+     * @param shiftId the shift to be cancelled
+     * @return completes when the shift is cancelled, fails with ConstraintViolationException
+     * if the shift does not exist or is the last shift of its job, or with ConflictException
+     * if a shift which was not stored is booked or cancelled concurrently
+     */
+    public Mono<Void> cancelShiftByShiftId(UUID shiftId) {
+        return shiftRepository.findById(shiftId)
+                .flatMap(shift -> shift.isCancelled()
+                        ? Mono.<Long>error(ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT))
+                        : cancelStoredShift(shift.getShift()))
+                .switchIfEmpty(Mono.defer(() -> findOccurrence(shiftId).flatMap(this::cancelOccurrence)))
+                .then()
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Long> cancelStoredShift(ShiftView shift) {
+        return jobRepository.decrementActiveShiftCount(shift.getJobId())
+                .flatMap(decremented -> decremented == 0
+                        ? Mono.error(ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_CANCELLABLE))
+                        : JobRecurrence.isOccurrenceOf(shift.getId(), shift.getJobId())
+                        ? shiftRepository.cancelShiftById(shift.getId(), clock.instant())
+                        : shiftRepository.deleteShiftById(shift.getId()))
+                .flatMap(cancelled -> cancelled == 0
+                        ? Mono.error(ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT))
+                        : Mono.just(cancelled));
+    }
+
+    private Mono<Long> cancelOccurrence(ShiftView occurrence) {
+        return jobRepository.decrementActiveShiftCount(occurrence.getJobId())
+                .flatMap(decremented -> decremented == 0
+                        ? Mono.error(ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_CANCELLABLE))
+                        : shiftRepository.insert(occurrence, true, clock.instant())
+                        .onErrorMap(DataIntegrityViolationException.class, e -> ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY))
+                        .thenReturn(1L));
+    }
+
+    /**
+     * cancelShiftForTalentId cancels all shifts of a talent and gives them to substitutes,
+     * the TalentSubstitutionPlanner picks them like it does for the JobService. The substitution runs
+     * after the bookings of the candidates which were requested before, and the bookings requested
+     * later wait for it, so the shifts of the candidates it reads stay as they are until it committed
+     *
+     * @param currentTalentId the talent id to be removed from shift
+     * @return completes when the shifts are reassigned, fails with ConstraintViolationException
+     * if the talent has no shifts or the candidates cannot take over all of them,
+     * or with ConflictException if one of the shifts was given to someone else concurrently
+     */
+    public Mono<Void> cancelShiftForTalentId(UUID currentTalentId) {
+        List<UUID> candidates = talentSubstitutionPlanner.getCandidates();
+        return talentBookingSerializer.serializeAll(candidates, () -> shiftRepository.findViewsByTalentId(currentTalentId)
+                .collectList()
+                .flatMap(shifts -> shifts.isEmpty()
+                        ? Mono.<Void>error(ConstraintViolationException.of(ErrorMessages.NO_TALENT_WITH_SHIFT_PRESENT))
+                        : findBookedShifts(candidates, shifts)
+                        .flatMap(bookedShifts -> planSubstitutes(currentTalentId, shifts, bookedShifts))
+                        .flatMapMany(substitutes -> Flux.fromIterable(shifts)
+                                .concatMap(shift -> shiftRepository.substituteTalent(shift.getId(), currentTalentId, substitutes.get(shift.getId()), clock.instant())))
+                        .filter(updated -> updated == 0)
+                        .next()
+                        .flatMap(notUpdated -> Mono.<Void>error(ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY))))
+                .as(transactionalOperator::transactional));
+    }
+
+    /**
+     * findBookedShifts reads the shifts of the candidates which could be closer than 6 hours to one of the given shifts
+     */
+    private Mono<Map<UUID, List<ShiftView>>> findBookedShifts(List<UUID> candidates, List<ShiftView> shifts) {
+        Duration minimumBreak = TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS;
+        Instant latestStart = shifts.stream().map(ShiftView::getEnd).max(Comparator.naturalOrder()).orElseThrow().plus(minimumBreak);
+        Instant earliestEnd = shifts.stream().map(ShiftView::getStart).min(Comparator.naturalOrder()).orElseThrow().minus(minimumBreak);
+        return Flux.fromIterable(candidates)
+                .concatMap(candidate -> shiftRepository.findViewsByTalentId(candidate, latestStart, earliestEnd))
+                .collect(Collectors.groupingBy(ShiftView::getTalentId));
+    }
+
+    /**
+     * planSubstitutes runs the planner on the bounded elastic scheduler,
+     * since it waits for its fork-join tasks, and fails if the candidates cannot take over every shift
+     */
+    private Mono<Map<UUID, UUID>> planSubstitutes(UUID currentTalentId, List<ShiftView> shifts, Map<UUID, List<ShiftView>> bookedShifts) {
+        return Mono.fromCallable(() -> talentSubstitutionPlanner.plan(currentTalentId, shifts,
+                        TalentSubstitutionPlanner.hasBookedConflict(bookedShifts)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(substitutes -> substitutes.size() < shifts.size()
+                        ? Mono.error(ConstraintViolationException.of(ErrorMessages.NO_SUBSTITUTE_AVAILABLE))
+                        : Mono.just(substitutes));
+    }
+}
@@ -0,0 +1,70 @@
+package com.zenjob.challenge.reactive.service;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * This class runs the bookings of a talent one after another, so that two concurrent
+ * bookings of the same talent cannot both pass the 6 hours break check.
+ * <p>
+ * It is the non-blocking counterpart of the BookingCoordinator: instead of waiting for a lock,
+ * a booking is subscribed to once the previous booking of the same talent has completed,
+ * no thread waits in the meantime. The order is local to this instance of the service.
+ */
+@Component
+public class TalentBookingSerializer {
+
+    private final ConcurrentMap<UUID, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * serialize subscribes to the booking once all earlier bookings of the talent completed
+     *
+     * @param talentId the talent who is booked
+     * @param booking  creates the booking, it must complete after its transaction completed
+     * @return the result of the booking
+     */
+    public <T> Mono<T> serialize(UUID talentId, Supplier<Mono<T>> booking) {
+        return Mono.defer(() -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            CompletableFuture<Void> previous = tails.put(talentId, done);
+            CompletableFuture<Void> predecessor = previous == null ? CompletableFuture.completedFuture(null) : previous;
+            // the copy is subscribed to, so that a cancelled booking does not cancel its predecessor,
+            // and a cancelled booking lets the next one run only after its predecessor completed
+            return Mono.fromFuture(predecessor.copy())
+                    .then(Mono.defer(booking))
+                    .doFinally(signal -> predecessor.whenComplete((result, error) -> {
+                        tails.remove(talentId, done);
+                        done.complete(null);
+                    }));
+        });
+    }
+
+    /**
+     * serializeAll subscribes to the operation once all earlier bookings of every given talent completed,
+     * and lets later bookings of them run once it completed. The talents are queued for in the order
+     * of their ids, so two operations which need the same talents cannot wait for each other
+     *
+     * @param talentIds the talents whose bookings the operation changes
+     * @param operation creates the operation, it must complete after its transaction completed
+     * @return the result of the operation
+     */
+    public <T> Mono<T> serializeAll(Collection<UUID> talentIds, Supplier<Mono<T>> operation) {
+        List<UUID> sortedTalentIds = talentIds.stream().distinct().sorted().collect(Collectors.toList());
+        Supplier<Mono<T>> serialized = operation;
+        for (int idx = sortedTalentIds.size() - 1; idx >= 0; idx--) {
+            UUID talentId = sortedTalentIds.get(idx);
+            Supplier<Mono<T>> inner = serialized;
+            serialized = () -> serialize(talentId, inner);
+        }
+        return Mono.defer(serialized);
+    }
+}
@@ -1,11 +1,58 @@
 package com.zenjob.challenge.repository;
 
+import com.zenjob.challenge.constants.DatabaseQueries;
+import com.zenjob.challenge.dto.JobRecurrence;
 import com.zenjob.challenge.entity.Job;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface JobRepository extends JpaRepository<Job, UUID> {
+
+    /**
+     * findRecurrenceById reads the columns of the job which describe its shifts, without loading the job as an entity
+     */
+    @Query(DatabaseQueries.FIND_JOB_RECURRENCE)
+    Optional<JobRecurrence> findRecurrenceById(UUID jobId);
+
+    /**
+     * findRecurrencesByIdIn reads the recurrences of several jobs with one statement
+     */
+    @Query(DatabaseQueries.FIND_JOB_RECURRENCES)
+    List<JobRecurrence> findRecurrencesByIdIn(Collection<UUID> jobIds);
+
+    /**
+     * findCompanyIdById reads the company of the job, without loading the job as an entity
+     */
+    @Query(DatabaseQueries.FIND_COMPANY_ID_OF_JOB)
+    Optional<UUID> findCompanyIdById(UUID jobId);
+
+    /**
+     * decrementActiveShiftCount removes one active shift from the job unless it is the last one,
+     * the row lock taken by the update makes concurrent cancellations of the same job wait for each other.
+     * With the second-level cache Hibernate evicts the whole job region for it
+     *
+     * @param jobId the unique id of the job
+     * @return 1 if the count was decremented, 0 if the job has one shift left or does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(DatabaseQueries.DECREMENT_ACTIVE_SHIFT_COUNT)
+    int decrementActiveShiftCount(UUID jobId);
+
+    /**
+     * deleteJobById deletes the job row only, its shifts have to be deleted before
+     *
+     * @param jobId the unique id of the job
+     * @return the number of deleted jobs
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(DatabaseQueries.DELETE_JOB)
+    int deleteJobById(UUID jobId);
 }
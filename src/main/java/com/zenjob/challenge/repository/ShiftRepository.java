@@ -1,25 +1,150 @@
 package com.zenjob.challenge.repository;
 
+import com.zenjob.challenge.constants.CacheRegions;
 import com.zenjob.challenge.constants.DatabaseQueries;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.dto.StoredShift;
 import com.zenjob.challenge.entity.Shift;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface ShiftRepository extends JpaRepository<Shift, UUID> {
 
+    /**
+     * findAllByJob_Id is served by the (job_id, start_time) index, with the second-level cache enabled
+     * its result is cached until a shift is written
+     */
+    @Query(DatabaseQueries.FIND_SHIFTS_FOR_JOB)
+    @QueryHints({@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = CacheRegions.SHIFTS_OF_JOB)})
     List<Shift> findAllByJob_Id(UUID jobId);
 
-    @Modifying(clearAutomatically = true)
-    @Query(DatabaseQueries.CANCEL_ALL_SHIFTS_FOR_TALENT)
-    void cancelAllShiftsForTalent_Id(UUID currentTalentId, UUID newTalentId);
+    /**
+     * findViewsByJobId reads only the columns of a ShiftView, the job id comes from the
+     * foreign key column so neither the job nor the shifts become managed entities
+     */
+    @Query(DatabaseQueries.FIND_SHIFT_VIEWS_FOR_JOB)
+    List<ShiftView> findViewsByJobId(UUID jobId);
+
+    /**
+     * findViewsByJobId returns the first page of shifts of a job ordered by (start_time, id)
+     */
+    @Query(DatabaseQueries.FIND_SHIFT_VIEWS_FOR_JOB)
+    List<ShiftView> findViewsByJobId(UUID jobId, Pageable pageable);
+
+    /**
+     * findViewsByJobIdAfter returns the page of shifts of a job following the given position,
+     * the keyset condition keeps it a range scan on the (job_id, start_time) index however deep the page is
+     */
+    @Query(DatabaseQueries.FIND_SHIFT_VIEWS_FOR_JOB_AFTER)
+    List<ShiftView> findViewsByJobIdAfter(UUID jobId, Instant startTime, UUID shiftId, Pageable pageable);
+
+    /**
+     * findStoredById finds the stored shift, cancelled shifts of recurring jobs included
+     */
+    @Query(DatabaseQueries.FIND_STORED_SHIFT)
+    Optional<StoredShift> findStoredById(UUID shiftId);
+
+    /**
+     * findCompanyIdById reads the company of the job of the stored shift
+     */
+    @Query(DatabaseQueries.FIND_COMPANY_ID_OF_SHIFT)
+    Optional<UUID> findCompanyIdById(UUID shiftId);
+
+    /**
+     * findStoredByJobId reads the stored shifts of a job, for a recurring job these are
+     * only the booked and cancelled ones which are merged into its generated shifts
+     */
+    @Query(DatabaseQueries.FIND_STORED_SHIFTS_FOR_JOB)
+    List<StoredShift> findStoredByJobId(UUID jobId);
+
+    @Query(DatabaseQueries.FIND_BOOKED_SHIFT_VIEWS_FOR_JOB)
+    List<ShiftView> findBookedViewsByJobId(UUID jobId);
+
+    /**
+     * deleteAllByJobId deletes all shifts of a job with a single statement
+     *
+     * @param jobId the unique id of the job
+     * @return the number of deleted shifts
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(DatabaseQueries.DELETE_SHIFTS_FOR_JOB)
+    int deleteAllByJobId(UUID jobId);
+
+    /**
+     * deleteShiftById deletes the shift with a single statement,
+     * with the second-level cache Hibernate evicts the whole shift region for it
+     *
+     * @param shiftId the unique id of the shift
+     * @return the number of deleted shifts, 0 if it was already deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(DatabaseQueries.DELETE_SHIFT)
+    int deleteShiftById(UUID shiftId);
+
+    /**
+     * cancelShiftById marks the stored shift of a recurring job as cancelled and frees its talent,
+     * with the second-level cache Hibernate evicts the whole shift region for it
+     *
+     * @param shiftId the unique id of the shift
+     * @return the number of cancelled shifts, 0 if it was already cancelled
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(DatabaseQueries.CANCEL_SHIFT)
+    int cancelShiftById(UUID shiftId);
 
     @Query(DatabaseQueries.FIND_SHIFTS_FOR_TALENT)
     List<Shift> findAllShiftForTalent(UUID talentId);
 
+    /**
+     * findAllShiftForTalents reads the shifts of several talents with one statement
+     */
+    @Query(DatabaseQueries.FIND_SHIFTS_FOR_TALENTS)
+    List<Shift> findAllShiftForTalents(Collection<UUID> talentIds);
+
+    /**
+     * findViewsByTalentId reads the shifts the talent is booked for as projections
+     */
+    @Query(DatabaseQueries.FIND_SHIFT_VIEWS_FOR_TALENT)
+    List<ShiftView> findViewsByTalentId(UUID talentId);
+
+    /**
+     * findViewsByTalentId returns the first page of shifts of a talent starting in [from, to),
+     * ordered by (start_time, id) and served by a range scan on the (talent_id, start_time) index
+     */
+    @Query(DatabaseQueries.FIND_SHIFT_VIEWS_FOR_TALENT_STARTING_BETWEEN)
+    List<ShiftView> findViewsByTalentId(UUID talentId, Instant from, Instant to, Pageable pageable);
+
+    /**
+     * findViewsByTalentIdAfter returns the page of shifts of a talent following the given position
+     * and starting before to, the keyset condition keeps it a range scan however deep the page is
+     */
+    @Query(DatabaseQueries.FIND_SHIFT_VIEWS_FOR_TALENT_STARTING_AFTER)
+    List<ShiftView> findViewsByTalentIdAfter(UUID talentId, Instant startTime, UUID shiftId, Instant to, Pageable pageable);
+
+    /**
+     * findViewsByTalentIds reads the shifts of several talents which start before latestStart and end after earliestEnd
+     */
+    @Query(DatabaseQueries.FIND_SHIFT_VIEWS_FOR_TALENTS_BETWEEN)
+    List<ShiftView> findViewsByTalentIds(Collection<UUID> talentIds, Instant latestStart, Instant earliestEnd);
+
+    /**
+     * findCloseShiftIds reads the shifts of the talent, other than the given one, which start between earliestStart
+     * and latestStart and end after earliestEnd, the lower bound of the start keeps it a range scan
+     * on the (talent_id, start_time) index however long the history of the talent is
+     */
+    @Query(DatabaseQueries.FIND_CLOSE_SHIFT_IDS_FOR_TALENT)
+    List<UUID> findCloseShiftIds(UUID talentId, UUID shiftId, Instant earliestStart, Instant latestStart, Instant earliestEnd);
 }
@@ -0,0 +1,139 @@
+package com.zenjob.challenge.repository;
+
+import com.zenjob.challenge.constants.DatabaseQueries;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.dto.StoredShift;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * This class reads shifts with a forward-only JDBC cursor and hands them over
+ * one by one, so that no result is ever held in memory as a whole
+ */
+@Repository
+public class ShiftStreamRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShiftStreamRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * streamShiftsOfJob passes every shift of the job, ordered by start time, to the consumer
+     *
+     * @param jobId    the unique id of the job
+     * @param consumer the consumer of the shifts
+     */
+    public void streamShiftsOfJob(UUID jobId, Consumer<ShiftView> consumer) {
+        jdbcTemplate.query(DatabaseQueries.STREAM_SHIFTS_FOR_JOB,
+                statement -> statement.setBytes(1, UuidBytes.of(jobId)),
+                resultSet -> {
+                    consumer.accept(toShiftView(resultSet));
+                });
+    }
+
+    /**
+     * streamShiftsOfCompany passes every shift of the jobs of the company which starts in the time range
+     * to the consumer, grouped by job and ordered by start time within a job. The jobs and their stored shifts
+     * are read with one query, the stored shifts of one recurring job at a time are held to generate the others
+     *
+     * @param companyId the unique id of the company
+     * @param from      the earliest start of a shift, inclusive
+     * @param to        the latest start of a shift, exclusive
+     * @param consumer  the consumer of the shifts
+     */
+    public void streamShiftsOfCompany(UUID companyId, Instant from, Instant to, Consumer<ShiftView> consumer) {
+        CompanyShiftHandler handler = new CompanyShiftHandler(from, to, consumer);
+        jdbcTemplate.query(DatabaseQueries.STREAM_SHIFTS_FOR_COMPANY,
+                statement -> {
+                    statement.setTimestamp(1, Timestamp.from(from));
+                    statement.setTimestamp(2, Timestamp.from(to));
+                    statement.setBytes(3, UuidBytes.of(companyId));
+                    statement.setTimestamp(4, Timestamp.from(to));
+                    statement.setTimestamp(5, Timestamp.from(from));
+                },
+                handler);
+        handler.completeJob();
+    }
+
+    private ShiftView toShiftView(ResultSet resultSet) throws SQLException {
+        return new ShiftView(
+                UuidBytes.toUuid(resultSet.getBytes("id")),
+                UuidBytes.toUuid(resultSet.getBytes("talent_id")),
+                UuidBytes.toUuid(resultSet.getBytes("job_id")),
+                resultSet.getTimestamp("start_time").toInstant(),
+                resultSet.getTimestamp("end_time").toInstant());
+    }
+
+    /**
+     * This class receives the rows of a company export, a row is a job together with one of its stored shifts,
+     * or with none. Shifts of jobs which store all of their shifts are passed on at once,
+     * the shifts of a recurring job are generated when its last row was read
+     */
+    private static class CompanyShiftHandler implements RowCallbackHandler {
+
+        private final Instant from;
+        private final Instant to;
+        private final Consumer<ShiftView> consumer;
+        private final List<StoredShift> storedShifts = new ArrayList<>();
+        private JobRecurrence recurrence;
+
+        CompanyShiftHandler(Instant from, Instant to, Consumer<ShiftView> consumer) {
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            UUID jobId = UuidBytes.toUuid(resultSet.getBytes("job_id"));
+            if (recurrence == null || !recurrence.getJobId().equals(jobId)) {
+                completeJob();
+                recurrence = new JobRecurrence(jobId,
+                        resultSet.getTimestamp("job_start_time").toInstant(),
+                        resultSet.getTimestamp("job_end_time").toInstant(),
+                        resultSet.getBoolean("recurring"),
+                        resultSet.getInt("active_shift_count"));
+            }
+            byte[] shiftId = resultSet.getBytes("id");
+            if (shiftId == null) {
+                return;
+            }
+            StoredShift storedShift = new StoredShift(
+                    UuidBytes.toUuid(shiftId),
+                    UuidBytes.toUuid(resultSet.getBytes("talent_id")),
+                    jobId,
+                    resultSet.getTimestamp("start_time").toInstant(),
+                    resultSet.getTimestamp("end_time").toInstant(),
+                    resultSet.getBoolean("cancelled"));
+            if (recurrence.isRecurring()) {
+                storedShifts.add(storedShift);
+            } else if (!storedShift.isCancelled()) {
+                consumer.accept(storedShift.toView());
+            }
+        }
+
+        void completeJob() {
+            if (recurrence != null && recurrence.isRecurring()) {
+                recurrence.shifts(storedShifts, from, to).forEach(consumer);
+            }
+            storedShifts.clear();
+        }
+    }
+}
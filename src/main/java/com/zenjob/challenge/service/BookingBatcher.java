@@ -0,0 +1,219 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.TalentBooking;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.exceptions.ServiceUnavailableException;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import com.zenjob.challenge.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * This class books talents in batches, so that a burst of bookings shares one transaction and one commit.
+ * <p>
+ * A single thread takes the first waiting booking, collects the bookings which arrive during the window
+ * after it, up to the maximum size of a batch, and books all of them with JobService.bookTalents,
+ * one transaction per shard. Every caller waits for the outcome of its own booking only.
+ * A batch whose commit fails, because one of its shifts was changed concurrently, is booked again one
+ * booking at a time. Batches are booked one after the other, so two bookings of a talent never race each other.
+ * A caller waits at most booking.batching.timeout-millis, a booking which was not taken into a batch by then
+ * is withdrawn and rejected like a request which is not admitted. A booking whose batch is still running by then
+ * is answered with a conflict, the batch goes on and may still commit it. Once the thread has stopped,
+ * bookings are rejected at once as the service is unavailable.
+ * It is switched on with booking.batching.enabled=true, the BookingCoordinator hands its bookings over then.
+ */
+@Component
+public class BookingBatcher {
+
+    private final JobService jobService;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private final BlockingQueue<PendingBooking> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Counter fallbackCounter;
+
+    public BookingBatcher(JobService jobService, ShardRouter shardRouter, MeterRegistry meterRegistry,
+                          @Value("${booking.batching.enabled:false}") boolean enabled,
+                          @Value("${booking.batching.window-millis:2}") long windowMillis,
+                          @Value("${booking.batching.max-batch-size:64}") int maxBatchSize,
+                          @Value("${booking.batching.timeout-millis:5000}") long timeoutMillis) {
+        this.jobService = jobService;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timeoutMillis = timeoutMillis;
+        this.batchSizeSummary = DistributionSummary.builder("booking.batch.size")
+                .description("Bookings booked together in one batch")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("booking.batch.fallbacks")
+                .description("Batches which failed to commit and were booked one booking at a time")
+                .register(meterRegistry);
+        this.dispatcher = enabled ? Thread.ofPlatform().name("booking-batcher").daemon().start(this::dispatch) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * close stops the thread and rejects the bookings which are still waiting,
+     * it waits until the thread has stopped, at most the booking timeout
+     */
+    @PreDestroy
+    public void close() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            try {
+                dispatcher.join(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * book books the talent for the shift with the next batch and waits until it is booked
+     *
+     * @param shiftId  the identifier of the shift for which the talent needs to be booked
+     * @param talentId the identifier of the talent to be booked
+     * @throws ConstraintViolationException when constraints or objective are not met
+     * @throws ConflictException            when the shift was modified concurrently
+     * @throws ConflictException            when the batch of the booking did not complete in time, the booking may still be made
+     *                                      by the batch, so the caller has to read the shift before booking it again
+     * @throws TooManyRequestsException     when the booking was not taken into a batch in time, it is not booked then
+     * @throws ServiceUnavailableException  when the batcher is stopped, or the caller was interrupted while waiting
+     */
+    public void book(UUID shiftId, UUID talentId) throws ConstraintViolationException, ConflictException {
+        if (dispatcher == null || !dispatcher.isAlive()) {
+            throw ServiceUnavailableException.of(ErrorMessages.BOOKING_NOT_ACCEPTED);
+        }
+        PendingBooking pending = new PendingBooking(new TalentBooking(shiftId, talentId));
+        queue.add(pending);
+        try {
+            pending.outcome.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            if (pending.claimed.compareAndSet(false, true)) {
+                queue.remove(pending);
+                throw new TooManyRequestsException(ErrorMessages.TOO_MANY_CONCURRENT_REQUESTS, 1);
+            }
+            throw ConflictException.of(ErrorMessages.BOOKING_NOT_COMPLETED_IN_TIME);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ServiceUnavailableException.of(ErrorMessages.BOOKING_NOT_ACCEPTED);
+        }
+    }
+
+    private void dispatch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<PendingBooking> batch = new ArrayList<>(maxBatchSize);
+                claim(batch, queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingBooking next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    claim(batch, next);
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                batchSizeSummary.record(batch.size());
+                // a failing batch must neither stop the thread nor leave its callers waiting
+                try {
+                    batch.stream()
+                            .collect(Collectors.groupingBy(pending -> shardRouter.shardOf(pending.booking.getShiftId())))
+                            .values()
+                            .forEach(this::bookBatch);
+                } catch (Throwable e) {
+                    batch.forEach(pending -> pending.outcome.completeExceptionally(e));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingBooking> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(pending -> pending.outcome.completeExceptionally(ServiceUnavailableException.of(ErrorMessages.BOOKING_NOT_ACCEPTED)));
+    }
+
+    /**
+     * claim adds the booking to the batch unless its caller withdrew it
+     */
+    private static void claim(List<PendingBooking> batch, PendingBooking pending) {
+        if (pending.claimed.compareAndSet(false, true)) {
+            batch.add(pending);
+        }
+    }
+
+    private void bookBatch(List<PendingBooking> batch) {
+        List<ConstraintViolationException> rejections;
+        try {
+            rejections = jobService.bookTalents(batch.stream().map(pending -> pending.booking).collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            fallbackCounter.increment();
+            batch.forEach(this::bookAlone);
+            return;
+        }
+        for (int idx = 0; idx < batch.size(); idx++) {
+            if (rejections.get(idx) == null) {
+                batch.get(idx).outcome.complete(null);
+            } else {
+                batch.get(idx).outcome.completeExceptionally(rejections.get(idx));
+            }
+        }
+    }
+
+    private void bookAlone(PendingBooking pending) {
+        try {
+            jobService.bookTalent(pending.booking.getShiftId(), pending.booking.getTalentId());
+            pending.outcome.complete(null);
+        } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+            pending.outcome.completeExceptionally(ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY));
+        } catch (RuntimeException e) {
+            pending.outcome.completeExceptionally(e);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingBooking {
+
+        private final TalentBooking booking;
+        private final CompletableFuture<Void> outcome = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+    }
+}
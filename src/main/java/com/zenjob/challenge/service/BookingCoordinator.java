@@ -0,0 +1,155 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class serializes the bookings of a talent, so that two concurrent bookings
+ * of the same talent cannot both pass the 6 hours break check.
+ * <p>
+ * Talents are mapped onto a fixed number of lock stripes, bookings of talents on
+ * different stripes never wait for each other. The lock is held until the booking
+ * transaction is committed. A booking that loses the optimistic lock on the shift,
+ * or the first insert of a shift of a recurring job, to a concurrent change
+ * is retried with a growing, jittered backoff, like a substitution whose plan was overtaken by a concurrent change.
+ * The locks are local to this instance of the service.
+ * With booking.batching.enabled=true the bookings are handed over to the BookingBatcher instead.
+ */
+@Component
+public class BookingCoordinator {
+
+    private final JobService jobService;
+    private final BookingBatcher bookingBatcher;
+    private final ReentrantLock[] stripes;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final Timer lockWaitTimer;
+    private final Counter contentionCounter;
+    private final Counter retryCounter;
+    private final Counter exhaustedRetryCounter;
+
+    public BookingCoordinator(JobService jobService, BookingBatcher bookingBatcher, MeterRegistry meterRegistry,
+                              @Value("${booking.lock-stripes:64}") int lockStripes,
+                              @Value("${booking.retry.max-attempts:3}") int maxAttempts,
+                              @Value("${booking.retry.backoff-millis:10}") long backoffMillis) {
+        this.jobService = jobService;
+        this.bookingBatcher = bookingBatcher;
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1];
+        for (int idx = 0; idx < stripes.length; idx++) {
+            stripes[idx] = new ReentrantLock();
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.lockWaitTimer = Timer.builder("booking.lock.wait")
+                .description("Time a booking waits for the lock of its talent")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.contentionCounter = Counter.builder("booking.lock.contended")
+                .description("Bookings which had to wait for another booking of the same lock stripe")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("booking.retries")
+                .description("Bookings and substitutions retried after a concurrent change")
+                .register(meterRegistry);
+        this.exhaustedRetryCounter = Counter.builder("booking.retries.exhausted")
+                .description("Bookings and substitutions rejected because every attempt failed on a concurrent change")
+                .register(meterRegistry);
+    }
+
+    /**
+     * book books the talent for the shift while holding the lock of the talent
+     *
+     * @param shiftId  the identifier of the shift for which the talent needs to be booked
+     * @param talentId the identifier of the talent to be booked
+     * @throws ConstraintViolationException when constraints or objective are not met
+     * @throws ConflictException            when the shift kept being modified concurrently, or its batch did not complete in time
+     * @throws ServiceUnavailableException  when the bookings are batched and the service is stopping
+     */
+    public void book(UUID shiftId, UUID talentId) throws ConstraintViolationException, ConflictException {
+        if (bookingBatcher.isEnabled()) {
+            bookingBatcher.book(shiftId, talentId);
+            return;
+        }
+        ReentrantLock lock = stripeOf(talentId);
+        long waitStart = System.nanoTime();
+        if (!lock.tryLock()) {
+            contentionCounter.increment();
+            lock.lock();
+        }
+        lockWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        try {
+            bookWithRetry(shiftId, talentId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * substitute gives the shifts of the talent to substitutes, the substitutes are planned again
+     * when a shift or a planned substitute was booked concurrently
+     *
+     * @param talentId the identifier of the talent whose shifts are cancelled
+     * @throws ConstraintViolationException if the talent is not booked for any shift, or the candidates cannot take over all of them
+     * @throws ConflictException            when every plan was overtaken by a concurrent change
+     */
+    public void substitute(UUID talentId) throws ConstraintViolationException, ConflictException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jobService.cancelShiftForTalentId(talentId);
+                return;
+            } catch (ConflictException e) {
+                if (attempt >= maxAttempts) {
+                    exhaustedRetryCounter.increment();
+                    throw e;
+                }
+                retryCounter.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void bookWithRetry(UUID shiftId, UUID talentId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jobService.bookTalent(shiftId, talentId);
+                return;
+            } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt >= maxAttempts) {
+                    exhaustedRetryCounter.increment();
+                    throw ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY);
+                }
+                retryCounter.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long maxDelay = backoffMillis * attempt;
+        try {
+            Thread.sleep(maxDelay / 2 + ThreadLocalRandom.current().nextLong(maxDelay / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY);
+        }
+    }
+
+    private ReentrantLock stripeOf(UUID talentId) {
+        int hash = talentId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,133 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.JobCancellationStatus;
+import com.zenjob.challenge.dto.JobCancellationStatus.State;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * This class cancels jobs in the background, so that the caller of a cancellation
+ * of a long job does not wait for all of its shifts to be removed.
+ * <p>
+ * The status of every cancellation is kept in memory for a limited time after it finished,
+ * so it is local to this instance of the service.
+ */
+@Component
+public class JobCancellationTracker {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final JobService jobService;
+    private final Clock clock;
+    private final Duration retention;
+    private final ExecutorService executor;
+    private final ConcurrentMap<UUID, JobCancellationStatus> statuses = new ConcurrentHashMap<>();
+
+    public JobCancellationTracker(JobService jobService, Clock clock,
+                                  @Value("${job.cancellation.threads:2}") int threads,
+                                  @Value("${job.cancellation.queue-capacity:1000}") int queueCapacity,
+                                  @Value("${job.cancellation.retention-minutes:60}") long retentionMinutes) {
+        this.jobService = jobService;
+        this.clock = clock;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "job-cancellation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * submit schedules the cancellation of the job,
+     * a cancellation which is already in progress for the job is returned instead of scheduling another one
+     *
+     * @param jobId the unique id of the job
+     * @return the status of the cancellation
+     * @throws ConstraintViolationException if the job does not exist
+     * @throws ConflictException            if too many cancellations are waiting
+     */
+    public JobCancellationStatus submit(UUID jobId) throws ConstraintViolationException, ConflictException {
+        if (!jobService.jobExists(jobId)) {
+            throw ConstraintViolationException.of(ErrorMessages.JOB_ID_NOT_PRESENT);
+        }
+        purgeFinished();
+        JobCancellationStatus pending = JobCancellationStatus.builder()
+                .jobId(jobId)
+                .state(State.PENDING)
+                .updatedAt(clock.instant())
+                .build();
+        JobCancellationStatus current = statuses.merge(jobId, pending,
+                (existing, requested) -> existing.isFinished() ? requested : existing);
+        if (current != pending) {
+            return current;
+        }
+        try {
+            executor.execute(() -> cancel(jobId));
+        } catch (RejectedExecutionException e) {
+            statuses.remove(jobId, pending);
+            throw ConflictException.of(ErrorMessages.JOB_CANCELLATION_REJECTED);
+        }
+        return pending;
+    }
+
+    /**
+     * statusOf returns the status of the latest cancellation of the job
+     *
+     * @param jobId the unique id of the job
+     * @return the status, empty if the job was never cancelled asynchronously or the status expired
+     */
+    public Optional<JobCancellationStatus> statusOf(UUID jobId) {
+        return Optional.ofNullable(statuses.get(jobId));
+    }
+
+    private void cancel(UUID jobId) {
+        update(jobId, status -> status.state(State.RUNNING));
+        try {
+            int shiftsRemoved = jobService.cancelJob(jobId);
+            update(jobId, status -> status.state(State.COMPLETED).shiftsRemoved(shiftsRemoved));
+        } catch (RuntimeException e) {
+            logger.error("Cancellation of job {} failed", jobId, e);
+            update(jobId, status -> status.state(State.FAILED).error(e.getMessage()));
+        }
+    }
+
+    private void update(UUID jobId, UnaryOperator<JobCancellationStatus.JobCancellationStatusBuilder> change) {
+        statuses.computeIfPresent(jobId, (id, status) -> change.apply(status.toBuilder())
+                .updatedAt(clock.instant())
+                .build());
+    }
+
+    private void purgeFinished() {
+        Instant expiry = clock.instant().minus(retention);
+        statuses.values().removeIf(status -> status.isFinished() && status.getUpdatedAt().isBefore(expiry));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,30 +1,64 @@
 package com.zenjob.challenge.service;
 
 import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.datasource.ReadYourWrites;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.dto.JobRequest;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.dto.StoredShift;
+import com.zenjob.challenge.dto.TalentBooking;
 import com.zenjob.challenge.entity.Job;
 import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConflictException;
 import com.zenjob.challenge.exceptions.ConstraintViolationException;
 import com.zenjob.challenge.repository.JobRepository;
 import com.zenjob.challenge.repository.ShiftRepository;
+import com.zenjob.challenge.repository.ShiftStreamRepository;
+import com.zenjob.challenge.sharding.ShardKeys;
+import com.zenjob.challenge.sharding.ShardRouter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.LongStream;
 
 @RequiredArgsConstructor
 @Repository
 @Transactional
 public class JobService {
 
+    /**
+     * the order of the shift listings, ids are compared as the unsigned bytes they are stored in
+     */
+    private static final Comparator<ShiftView> LISTING_ORDER = Comparator.comparing(ShiftView::getStart)
+            .thenComparing(ShiftView::getId, Comparator.<UUID, Long>comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+                    .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned));
+
     private final JobRepository jobRepository;
     private final ShiftRepository shiftRepository;
+    private final ShiftStreamRepository shiftStreamRepository;
+    private final TalentScheduleIndex talentScheduleIndex;
+    private final ShiftViewCache shiftViewCache;
+    private final ReadYourWrites readYourWrites;
+    private final ShardRouter shardRouter;
+    private final TalentSubstitutionPlanner talentSubstitutionPlanner;
 
     /**
      * createJob method allows a company to create the job
@@ -35,122 +69,497 @@ public class JobService {
      * @return the Job that is created
      */
     public Job createJob(UUID companyId, LocalDateTime shiftStartDate, LocalDateTime shiftEndDate) {
+        Job newJob = buildJob(companyId, shiftStartDate, shiftEndDate);
+        shardRouter.bindToShardOf(newJob.getId());
+        Job job = jobRepository.save(newJob);
+        readYourWrites.written(job.getId());
+        return job;
+    }
+
+    /**
+     * createJobs method creates all given jobs in one transaction per shard,
+     * the inserts are sent to the database in JDBC batches
+     *
+     * @param jobRequests the jobs to be created
+     * @return the Jobs that are created, in the order of the requests
+     */
+    public List<Job> createJobs(List<JobRequest> jobRequests) {
+        List<Job> jobs = jobRequests.stream()
+                .map(jobRequest -> buildJob(jobRequest.getCompanyId(), jobRequest.getStart(), jobRequest.getEnd()))
+                .collect(Collectors.toList());
+        Map<Integer, List<Job>> jobsByShard = jobs.stream()
+                .collect(Collectors.groupingBy(job -> shardRouter.shardOf(job.getId())));
+        Map<UUID, Job> savedJobs = shardRouter.onShards(jobsByShard.keySet(), false, shard -> jobRepository.saveAll(jobsByShard.get(shard))).stream()
+                .collect(Collectors.toMap(Job::getId, Function.identity()));
+        readYourWrites.written(savedJobs.keySet());
+        return jobs.stream().map(job -> savedJobs.get(job.getId())).collect(Collectors.toList());
+    }
 
+    /**
+     * buildJob creates the recurring job with one shift per day between start and end, the shifts are
+     * generated when they are read, it is shared with the reactive service so that both store jobs the same way
+     *
+     * @throws ConstraintViolationException if the job has more days than a recurrence can hold
+     */
+    public static Job buildJob(UUID companyId, LocalDateTime shiftStartDate, LocalDateTime shiftEndDate) throws ConstraintViolationException {
         Job job = Job.builder()
-                .id(UUID.randomUUID())
+                .id(ShardKeys.inBucketOfCompany(JobRecurrence.newJobId(), companyId))
                 .companyId(companyId)
                 .startTime(shiftStartDate.toInstant(ZoneOffset.UTC))
                 .endTime(shiftEndDate.toInstant(ZoneOffset.UTC))
+                .recurring(true)
                 .build();
+        int occurrences = JobRecurrence.of(job).occurrences();
+        if (occurrences > JobRecurrence.MAX_OCCURRENCES) {
+            throw ConstraintViolationException.of(ErrorMessages.SHIFT_END_DATE_TIME_INVALID);
+        }
+        job.setActiveShiftCount(occurrences);
+        return job;
+    }
 
-        List<Shift> shifts = LongStream.range(0, ChronoUnit.DAYS.between(shiftStartDate, shiftEndDate) + 1)
-                .mapToObj(idx -> shiftStartDate.plus(idx, ChronoUnit.DAYS))
-                .map(date -> Shift.builder()
-                        .id(UUID.randomUUID())
-                        .job(job)
-                        .startTime(date.toInstant(ZoneOffset.UTC))
-                        .endTime(date.toLocalDate().atTime(shiftEndDate.getHour(), shiftEndDate.getMinute(), shiftEndDate.getSecond(), shiftEndDate.getNano()).toInstant(ZoneOffset.UTC))
-                        .build())
+    /**
+     * getShifts is used to get all shifts for a specified jobId,
+     * the shifts of a recurring job which are not stored are new entities which are not persisted
+     *
+     * @param jobId the unique id of the job created by company
+     * @return List of Shifts for the specified job ID
+     */
+    public List<Shift> getShifts(UUID jobId) {
+        shardRouter.bindToShardOf(jobId);
+        Job job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return Collections.emptyList();
+        }
+        List<Shift> storedShifts = shiftRepository.findAllByJob_Id(jobId);
+        if (!job.isRecurring()) {
+            return storedShifts;
+        }
+        Map<UUID, Shift> storedById = storedShifts.stream()
+                .collect(Collectors.toMap(Shift::getId, Function.identity()));
+        return JobRecurrence.of(job).shifts(storedShifts.stream().map(StoredShift::of).collect(Collectors.toList()), null)
+                .map(shift -> storedById.containsKey(shift.getId()) ? storedById.get(shift.getId()) : toShift(job, shift))
                 .collect(Collectors.toList());
+    }
 
-        job.setShifts(shifts);
-        return jobRepository.save(job);
+    /**
+     * getShiftViews is used to get all shifts for a specified jobId as read-only views,
+     * without loading the shifts or their job as entities, the listing is served from the cache when possible
+     *
+     * @param jobId the unique id of the job created by company
+     * @return List of ShiftViews for the specified job ID, ordered by start time
+     */
+    @Transactional(readOnly = true)
+    public List<ShiftView> getShiftViews(UUID jobId) {
+        shardRouter.bindToShardOf(jobId);
+        readYourWrites.readFromPrimaryIfWritten(jobId);
+        return shiftViewCache.get(jobId, this::readShiftViews);
     }
 
+    /**
+     * readShiftViews reads the shifts of a job past the cache, a recurring job is read with one
+     * statement for its recurrence and one for its stored shifts whatever the length of the job
+     */
+    List<ShiftView> readShiftViews(UUID jobId) {
+        return jobRepository.findRecurrenceById(jobId)
+                .map(recurrence -> recurrence.isRecurring()
+                        ? recurrence.shifts(shiftRepository.findStoredByJobId(jobId), null).collect(Collectors.toList())
+                        : shiftRepository.findViewsByJobId(jobId))
+                .orElse(Collections.emptyList());
+    }
 
     /**
-     * getShifts is used to get all shifts for a specified jobId
+     * getShiftViews is used to get one page of shifts for a specified jobId,
+     * ordered by start time and id
      *
      * @param jobId the unique id of the job created by company
-     * @return List of Shifts for the specified job ID
+     * @param after the position of the last shift of the previous page, null for the first page
+     * @param limit the maximum number of shifts of the page
+     * @return List of ShiftViews following the given position
      */
-    public List<Shift> getShifts(UUID jobId) {
-        return shiftRepository.findAllByJob_Id(jobId);
+    @Transactional(readOnly = true)
+    public List<ShiftView> getShiftViews(UUID jobId, ShiftCursor after, int limit) {
+        shardRouter.bindToShardOf(jobId);
+        readYourWrites.readFromPrimaryIfWritten(jobId);
+        JobRecurrence recurrence = jobRepository.findRecurrenceById(jobId).orElse(null);
+        if (recurrence == null) {
+            return Collections.emptyList();
+        }
+        if (recurrence.isRecurring()) {
+            return recurrence.shifts(shiftRepository.findStoredByJobId(jobId), after)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        Pageable page = PageRequest.of(0, limit);
+        if (after == null) {
+            return shiftRepository.findViewsByJobId(jobId, page);
+        }
+        return shiftRepository.findViewsByJobIdAfter(jobId, after.getStart(), after.getId(), page);
+    }
+
+    /**
+     * getTalentShiftViews is used to get one page of the shifts a talent is booked for,
+     * starting in the given time range and ordered by start time and id.
+     * The page is read from every shard and the pages of the shards are merged
+     *
+     * @param talentId the unique id of the talent
+     * @param from     the earliest start of a shift, inclusive
+     * @param to       the latest start of a shift, exclusive
+     * @param after    the position of the last shift of the previous page, null for the first page
+     * @param limit    the maximum number of shifts of the page
+     * @return List of ShiftViews following the given position
+     */
+    @Transactional(readOnly = true)
+    public List<ShiftView> getTalentShiftViews(UUID talentId, Instant from, Instant to, ShiftCursor after, int limit) {
+        readYourWrites.readFromPrimaryIfWritten(talentId);
+        Pageable page = PageRequest.of(0, limit);
+        List<ShiftView> shifts = shardRouter.onEveryShard(true, shard -> after == null || after.getStart().isBefore(from)
+                ? shiftRepository.findViewsByTalentId(talentId, from, to, page)
+                : shiftRepository.findViewsByTalentIdAfter(talentId, after.getStart(), after.getId(), to, page));
+        if (shardRouter.shardCount() == 1) {
+            return shifts;
+        }
+        return shifts.stream().sorted(LISTING_ORDER).limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * streamShifts passes all shifts of a job to the consumer while they are read from the database,
+     * the shifts of a recurring job are passed while they are generated
+     *
+     * @param jobId    the unique id of the job created by company
+     * @param consumer the consumer of the shifts, ordered by start time
+     */
+    @Transactional(readOnly = true)
+    public void streamShifts(UUID jobId, Consumer<ShiftView> consumer) {
+        shardRouter.bindToShardOf(jobId);
+        readYourWrites.readFromPrimaryIfWritten(jobId);
+        JobRecurrence recurrence = jobRepository.findRecurrenceById(jobId).orElse(null);
+        if (recurrence == null) {
+            return;
+        }
+        if (recurrence.isRecurring()) {
+            recurrence.shifts(shiftRepository.findStoredByJobId(jobId), null).forEach(consumer);
+        } else {
+            shiftStreamRepository.streamShiftsOfJob(jobId, consumer);
+        }
+    }
+
+    /**
+     * streamShiftsOfCompany passes all shifts of the jobs of a company which start in the time range
+     * to the consumer while they are read from the database, grouped by job
+     *
+     * @param companyId the unique id of the company
+     * @param from      the earliest start of a shift, inclusive
+     * @param to        the latest start of a shift, exclusive
+     * @param consumer  the consumer of the shifts, ordered by start time within a job
+     */
+    @Transactional(readOnly = true)
+    public void streamShiftsOfCompany(UUID companyId, Instant from, Instant to, Consumer<ShiftView> consumer) {
+        shardRouter.bindToShardOfCompany(companyId);
+        shiftStreamRepository.streamShiftsOfCompany(companyId, from, to, consumer);
     }
 
     /**
-     * The menthod allows company to book talent for a specified shift
+     * The menthod allows company to book talent for a specified shift,
+     * a shift of a recurring job is stored when it is booked for the first time
      *
      * @param shiftId  the identifier of the shift for which the talent needs to be booked
      * @param talentId the identifier of the talent to be booked
      */
     public void bookTalent(UUID shiftId, UUID talentId) throws ConstraintViolationException {
-        if (!shiftRepository.existsById(shiftId)) {
-            throw new ConstraintViolationException(ErrorMessages.SHIFT_NOT_PRESENT);
+        shardRouter.bindToShardOf(shiftId);
+        Optional<Shift> storedShift = shiftRepository.findById(shiftId);
+        Shift requiredShift = storedShift.orElseGet(() -> findOccurrence(shiftId));
+        // a shift which was not stored is inserted at once, so that a concurrent booking or cancellation of it fails here
+        book(requiredShift, talentId, storedShift.isEmpty());
+    }
+
+    /**
+     * bookTalents books talents for several shifts in one transaction, the shifts, the recurrences of their jobs
+     * and the schedules of the talents are read with one statement each. The bookings are checked in their order,
+     * each one against the bookings before it, and a rejected booking does not change the others.
+     * All shifts have to be on the same shard
+     *
+     * @param bookings the shifts and the talents to be booked for them
+     * @return the rejections in the order of the bookings, null for every booking which was made
+     */
+    public List<ConstraintViolationException> bookTalents(List<TalentBooking> bookings) {
+        List<UUID> shiftIds = bookings.stream().map(TalentBooking::getShiftId).distinct().collect(Collectors.toList());
+        shiftIds.forEach(shardRouter::bindToShardOf);
+        Map<UUID, Shift> shifts = shiftRepository.findAllById(shiftIds).stream()
+                .collect(Collectors.toMap(Shift::getId, Function.identity()));
+        Set<UUID> jobIdsOfOccurrences = shiftIds.stream()
+                .filter(shiftId -> !shifts.containsKey(shiftId))
+                .map(JobRecurrence::jobIdOf)
+                .collect(Collectors.toSet());
+        Map<UUID, JobRecurrence> recurrences = jobIdsOfOccurrences.isEmpty() ? Collections.emptyMap()
+                : jobRepository.findRecurrencesByIdIn(jobIdsOfOccurrences).stream()
+                .collect(Collectors.toMap(JobRecurrence::getJobId, Function.identity()));
+        talentScheduleIndex.load(bookings.stream().map(TalentBooking::getTalentId).collect(Collectors.toSet()));
+        List<ConstraintViolationException> rejections = new ArrayList<>(bookings.size());
+        for (TalentBooking booking : bookings) {
+            try {
+                Shift requiredShift = shifts.containsKey(booking.getShiftId())
+                        ? shifts.get(booking.getShiftId())
+                        : toOccurrence(booking.getShiftId(), Optional.ofNullable(recurrences.get(JobRecurrence.jobIdOf(booking.getShiftId()))));
+                // the shifts which were not stored are inserted with the commit of the batch
+                shifts.put(requiredShift.getId(), book(requiredShift, booking.getTalentId(), false));
+                rejections.add(null);
+            } catch (ConstraintViolationException e) {
+                rejections.add(e);
+            }
+        }
+        return rejections;
+    }
+
+    private Shift book(Shift requiredShift, UUID talentId, boolean flush) throws ConstraintViolationException {
+        if (requiredShift.isCancelled()) {
+            throw ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT);
+        }
+        reserveShiftForTalent(requiredShift, talentId);
+        UUID previousTalentId = requiredShift.getTalentId();
+        if (previousTalentId != null) {
+            talentScheduleIndex.release(previousTalentId, requiredShift);
         }
-        Optional<Shift> requiredShift = shiftRepository.findById(shiftId);
-        checkIfTalentIsEligibleToWorkInShift(requiredShift.get(), talentId);
-        requiredShift.map(shift -> shiftRepository.save(shift.setTalentId(talentId)));
+        requiredShift.setTalentId(talentId);
+        Shift bookedShift = flush ? shiftRepository.saveAndFlush(requiredShift) : shiftRepository.save(requiredShift);
+        shiftViewCache.invalidate(bookedShift.getJob().getId());
+        readYourWrites.written(bookedShift.getJob().getId(), talentId, previousTalentId);
+        return bookedShift;
     }
 
     /**
-     * checkIfTalentIsEligileToWorkInShift method is used to check
-     * if the talent has at least a 6 hour break between shifts
+     * reserveShiftForTalent method is used to check
+     * if the talent has at least a 6 hour break between shifts.
+     * The stored shifts close to the shift are read within the booking transaction, so a booking another
+     * instance of the service committed is seen although the in-memory schedule of this one missed it.
+     * Then the in-memory schedule of the talent answers the check and takes the shift in the same step,
+     * so a concurrent booking or substitution of the talent on this instance cannot pass it too
      *
      * @param requiredShift the shift for which the company needs to book talent
      * @param talentId      the talent which needs to be booked
      */
-    private void checkIfTalentIsEligibleToWorkInShift(Shift requiredShift, UUID talentId) throws ConstraintViolationException {
+    private void reserveShiftForTalent(Shift requiredShift, UUID talentId) throws ConstraintViolationException {
         if (talentId.equals(requiredShift.getTalentId())) {
-            throw new ConstraintViolationException(ErrorMessages.TALENT_ALREADY_WORKING_FOR_PROVIDED_SHIFT);
+            throw ConstraintViolationException.of(ErrorMessages.TALENT_ALREADY_WORKING_FOR_PROVIDED_SHIFT);
         }
-        List<Shift> allCurrentShiftsOfTheTalent = shiftRepository.findAllShiftForTalent(talentId);
-
-        //since there has to be at least a 6 hours break between shifts
-        //so 6 hours  = 3600 minutes is the filter condition to be checked
-        if (allCurrentShiftsOfTheTalent.size() != 0 && allCurrentShiftsOfTheTalent.stream()
-                .filter(
-                        currentShift -> Duration.between(
-                                currentShift.getEndTime(), requiredShift.getStartTime()).toMinutes() < 3600 &&
-                                currentShift.getEndTime().truncatedTo(ChronoUnit.DAYS).equals(requiredShift.getStartTime().truncatedTo(ChronoUnit.DAYS))
-                ).findAny().isPresent()) {
-            throw new ConstraintViolationException(ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID);
+        if (hasStoredCloseShift(talentId, requiredShift) || !talentScheduleIndex.tryBook(talentId, requiredShift)) {
+            throw ConstraintViolationException.of(ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID);
         }
     }
 
     /**
-     * cancelJob method is used to cancel job and all related shifts for a job
+     * hasStoredCloseShift checks on every shard if the talent is booked for a shift,
+     * other than the given one, which starts or ends less than 6 hours away from it
+     */
+    private boolean hasStoredCloseShift(UUID talentId, Shift shift) {
+        Duration minimumBreak = TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS;
+        Instant earliestStart = shift.getStartTime().minus(minimumBreak).minus(TalentScheduleIndex.MAXIMUM_SHIFT_LENGTH);
+        Instant latestStart = shift.getEndTime().plus(minimumBreak);
+        Instant earliestEnd = shift.getStartTime().minus(minimumBreak);
+        return !shardRouter.onEveryShard(true,
+                shard -> shiftRepository.findCloseShiftIds(talentId, shift.getId(), earliestStart, latestStart, earliestEnd)).isEmpty();
+    }
+
+    /**
+     * findOccurrence returns the shift of a recurring job which is not stored yet
+     *
+     * @param shiftId the unique id of the shift
+     * @return the shift as a new entity which is not persisted
+     * @throws ConstraintViolationException if the id is not the one of a shift of a recurring job
+     */
+    private Shift findOccurrence(UUID shiftId) throws ConstraintViolationException {
+        return toOccurrence(shiftId, jobRepository.findRecurrenceById(JobRecurrence.jobIdOf(shiftId)));
+    }
+
+    private Shift toOccurrence(UUID shiftId, Optional<JobRecurrence> recurrence) throws ConstraintViolationException {
+        ShiftView occurrence = recurrence
+                .flatMap(jobRecurrence -> jobRecurrence.occurrence(shiftId))
+                .orElseThrow(() -> ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT));
+        return toShift(jobRepository.getReferenceById(occurrence.getJobId()), occurrence);
+    }
+
+    private static Shift toShift(Job job, ShiftView occurrence) {
+        return Shift.builder()
+                .id(occurrence.getId())
+                .job(job)
+                .startTime(occurrence.getStart())
+                .endTime(occurrence.getEnd())
+                .build();
+    }
+
+    /**
+     * jobExists checks if the job is present
+     *
+     * @param jobId the unique id of the job
+     * @return true if the job exists
+     */
+    @Transactional(readOnly = true)
+    public boolean jobExists(UUID jobId) {
+        shardRouter.bindToShardOf(jobId);
+        readYourWrites.readFromPrimaryIfWritten(jobId);
+        return jobRepository.existsById(jobId);
+    }
+
+    /**
+     * cancelJob method is used to cancel job and all related shifts for a job,
+     * the shifts and the job are deleted with one statement each whatever the size of the job
      *
      * @param jobId the unique id of the job to be cancelled
+     * @return the number of cancelled shifts
      */
-    public void cancelJob(UUID jobId) {
-        if (!jobRepository.existsById(jobId)) {
-            throw new ConstraintViolationException(ErrorMessages.JOB_ID_NOT_PRESENT);
+    public int cancelJob(UUID jobId) {
+        shardRouter.bindToShardOf(jobId);
+        JobRecurrence recurrence = jobRepository.findRecurrenceById(jobId)
+                .orElseThrow(() -> ConstraintViolationException.of(ErrorMessages.JOB_ID_NOT_PRESENT));
+        shiftRepository.findBookedViewsByJobId(jobId).forEach(talentScheduleIndex::release);
+        shiftRepository.deleteAllByJobId(jobId);
+        if (jobRepository.deleteJobById(jobId) == 0) {
+            throw ConstraintViolationException.of(ErrorMessages.JOB_ID_NOT_PRESENT);
         }
-        jobRepository.deleteById(jobId);
+        shiftViewCache.invalidate(jobId);
+        readYourWrites.written(jobId);
+        return recurrence.getActiveShiftCount();
     }
 
     /**
      * cancelShiftByShiftId method is used to cancel shift by shift id
-     * First the shift record corresponding to the given shift id is retrieved from table
-     * the retrieved shift record consists of job id
-     * with the help of job id check if there is at least one shift
+     * the active shift count of the job is decremented only if the job keeps at least one shift,
+     * so concurrent cancellations of the same job can never remove its last shift.
+     * The shifts of recurring jobs are stored as cancelled, other shifts are deleted
      *
      * @param shiftId the shift to be cancelled
+     * @throws ConstraintViolationException if the shift does not exist or is the last shift of its job
+     * @throws ConflictException            if a shift which was not stored is booked or cancelled concurrently
      */
-    public void cancelShiftByShiftId(UUID shiftId) {
-        if (!shiftRepository.existsById(shiftId)) {
-            throw new ConstraintViolationException(ErrorMessages.SHIFT_NOT_PRESENT);
+    public void cancelShiftByShiftId(UUID shiftId) throws ConstraintViolationException, ConflictException {
+        shardRouter.bindToShardOf(shiftId);
+        Optional<StoredShift> storedShift = shiftRepository.findStoredById(shiftId);
+        if (storedShift.isPresent()) {
+            cancelStoredShift(storedShift.get());
+        } else {
+            cancelOccurrence(findOccurrence(shiftId));
+        }
+    }
+
+    private void cancelStoredShift(StoredShift shift) {
+        if (shift.isCancelled()) {
+            throw ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT);
+        }
+        if (jobRepository.decrementActiveShiftCount(shift.getJobId()) == 0) {
+            throw ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_CANCELLABLE);
+        }
+        int cancelledShifts = JobRecurrence.isOccurrenceOf(shift.getId(), shift.getJobId())
+                ? shiftRepository.cancelShiftById(shift.getId())
+                : shiftRepository.deleteShiftById(shift.getId());
+        if (cancelledShifts == 0) {
+            throw ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT);
         }
-        Shift shift = shiftRepository.findById(shiftId).get();
-        List<Shift> shifts = shiftRepository.findAllByJob_Id(shift.getJob().getId());
-        if (shifts.size() == 1) {
-            throw new ConstraintViolationException(ErrorMessages.SHIFT_NOT_CANCELLABLE);
+        if (shift.getTalentId() != null) {
+            talentScheduleIndex.release(shift.toView());
         }
-        shiftRepository.deleteById(shiftId);
+        shiftViewCache.invalidate(shift.getJobId());
+        readYourWrites.written(shift.getJobId(), shift.getTalentId());
+    }
+
+    private void cancelOccurrence(Shift occurrence) {
+        if (jobRepository.decrementActiveShiftCount(occurrence.getJob().getId()) == 0) {
+            throw ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_CANCELLABLE);
+        }
+        try {
+            shiftRepository.saveAndFlush(occurrence.setCancelled(true));
+        } catch (DataIntegrityViolationException e) {
+            throw ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY);
+        }
+        shiftViewCache.invalidate(occurrence.getJob().getId());
+        readYourWrites.written(occurrence.getJob().getId());
     }
 
     /**
-     * This method is used to cancel all shift of a talent and hire
-     * a new talent for the shift
+     * This method is used to cancel all shift of a talent and give the shifts to
+     * substitutes, the TalentSubstitutionPlanner picks them from the configured candidates so that every
+     * substitute keeps a 6 hours break between its shifts. The shifts of every shard are given
+     * to the substitutes with one batched update in a transaction of their shard, which also
+     * updates the schedules of the talents, so a shard which fails leaves the others as they were committed
      *
      * @param currentTalentId the talent id to be removed from shift
+     * @throws ConstraintViolationException if the talent is not booked for any shift, or the candidates cannot take over all of them
+     * @throws ConflictException            if a shift of the talent was changed, or a substitute was booked for a close shift,
+     *                                      while the substitutes were picked
+     */
+    public void cancelShiftForTalentId(UUID currentTalentId) throws ConstraintViolationException, ConflictException {
+        List<ShiftView> shifts = shardRouter.onEveryShard(true, shard -> shiftRepository.findViewsByTalentId(currentTalentId));
+        if (shifts.isEmpty()) {
+            throw ConstraintViolationException.of(ErrorMessages.NO_TALENT_WITH_SHIFT_PRESENT);
+        }
+        Map<UUID, List<ShiftView>> bookedShifts = findBookedShifts(talentSubstitutionPlanner.getCandidates(), shifts);
+        Map<UUID, UUID> substitutes = talentSubstitutionPlanner.plan(currentTalentId, shifts,
+                TalentSubstitutionPlanner.hasBookedConflict(bookedShifts));
+        if (substitutes.size() < shifts.size()) {
+            throw ConstraintViolationException.of(ErrorMessages.NO_SUBSTITUTE_AVAILABLE);
+        }
+        Map<Integer, List<ShiftView>> shiftsByShard = shifts.stream()
+                .collect(Collectors.groupingBy(shift -> shardRouter.shardOf(shift.getId())));
+        shardRouter.onShards(shiftsByShard.keySet(), false,
+                shard -> substituteTalent(currentTalentId, shiftsByShard.get(shard), substitutes));
+    }
+
+    /**
+     * findBookedShifts reads the shifts of the candidates which could be closer than 6 hours to one of the given shifts,
+     * before the plan is made, since the planner must not read the database from the threads of the fork-join pool
      */
-    public void cancelShiftForTalentId(UUID currentTalentId) throws ConstraintViolationException {
-        if (shiftRepository.findAllShiftForTalent(currentTalentId).size() == 0) {
-            throw new ConstraintViolationException(ErrorMessages.NO_TALENT_WITH_SHIFT_PRESENT);
+    private Map<UUID, List<ShiftView>> findBookedShifts(List<UUID> candidates, List<ShiftView> shifts) {
+        if (candidates.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Duration minimumBreak = TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS;
+        Instant latestStart = shifts.stream().map(ShiftView::getEnd).max(Comparator.naturalOrder()).orElseThrow().plus(minimumBreak);
+        Instant earliestEnd = shifts.stream().map(ShiftView::getStart).min(Comparator.naturalOrder()).orElseThrow().minus(minimumBreak);
+        return shardRouter.onEveryShard(true, shard -> shiftRepository.findViewsByTalentIds(candidates, latestStart, earliestEnd)).stream()
+                .collect(Collectors.groupingBy(ShiftView::getTalentId));
+    }
+
+    /**
+     * substituteTalent gives the shifts of the shard to their planned substitutes, a substitute who was booked
+     * for a shift closer than 6 hours since the plan was made fails the shard, so that the caller can plan again.
+     * Like a booking, the stored shifts of the substitutes are read again within the transaction before their
+     * in-memory schedules take the shifts
+     */
+    private List<Shift> substituteTalent(UUID currentTalentId, List<ShiftView> plannedShifts, Map<UUID, UUID> substitutes) {
+        Map<UUID, ShiftView> plannedShiftsById = plannedShifts.stream()
+                .collect(Collectors.toMap(ShiftView::getId, Function.identity()));
+        List<Shift> shifts = shiftRepository.findAllById(plannedShiftsById.keySet());
+        if (shifts.size() != plannedShifts.size()) {
+            throw ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY);
+        }
+        List<UUID> plannedSubstitutes = plannedShifts.stream()
+                .map(shift -> substitutes.get(shift.getId()))
+                .distinct()
+                .collect(Collectors.toList());
+        BiPredicate<UUID, ShiftView> hasStoredConflict = TalentSubstitutionPlanner.hasBookedConflict(findBookedShifts(plannedSubstitutes, plannedShifts));
+        for (Shift shift : shifts) {
+            if (!currentTalentId.equals(shift.getTalentId())) {
+                throw ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY);
+            }
+            UUID substitute = substitutes.get(shift.getId());
+            talentScheduleIndex.release(currentTalentId, shift);
+            if (hasStoredConflict.test(substitute, plannedShiftsById.get(shift.getId())) || !talentScheduleIndex.tryBook(substitute, shift)) {
+                throw ConflictException.of(ErrorMessages.SUBSTITUTE_BOOKED_CONCURRENTLY);
+            }
+            shift.setTalentId(substitute);
+        }
+        List<UUID> affectedJobIds = shifts.stream()
+                .map(shift -> shift.getJob().getId())
+                .distinct()
+                .collect(Collectors.toList());
+        shiftViewCache.invalidateAll(affectedJobIds);
+        readYourWrites.written(affectedJobIds);
+        readYourWrites.written(currentTalentId);
+        readYourWrites.written(shifts.stream().map(Shift::getTalentId).collect(Collectors.toSet()));
+        // the updates are sent in JDBC batches, a shift booked concurrently fails on its version
+        try {
+            return shiftRepository.saveAllAndFlush(shifts);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY);
         }
-        UUID newTalentId = UUID.randomUUID();
-        shiftRepository.cancelAllShiftsForTalent_Id(currentTalentId, newTalentId);
     }
 }
@@ -0,0 +1,109 @@
+package com.zenjob.challenge.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zenjob.challenge.dto.ShiftView;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * This class caches the shift listing of a job, keyed by job id.
+ * <p>
+ * The cache is bounded in size and entries expire after a fixed time since they were loaded.
+ * A job is evicted when one of its shifts changes and once more after the changing transaction
+ * completed, a listing which is loaded at that moment is evicted together with its pending entry,
+ * so a listing read before the commit is never kept.
+ * <p>
+ * Entries are pending futures which are completed by the thread that inserted them,
+ * concurrent readers of the same job wait for that future instead of blocking inside the map,
+ * so a virtual thread loading a listing never pins its carrier thread.
+ * The cache is local to this instance of the service.
+ */
+@Component
+public class ShiftViewCache {
+
+    static final String CACHE_NAME = "shiftViews";
+
+    private final AsyncCache<UUID, List<ShiftView>> cache;
+
+    public ShiftViewCache(MeterRegistry meterRegistry,
+                          @Value("${shift-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${shift-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * get returns the cached listing of the job or loads it
+     *
+     * @param jobId  the unique id of the job
+     * @param loader reads the listing from the database
+     * @return the unmodifiable listing of the job
+     */
+    public List<ShiftView> get(UUID jobId, Function<UUID, List<ShiftView>> loader) {
+        CompletableFuture<List<ShiftView>> created = new CompletableFuture<>();
+        CompletableFuture<List<ShiftView>> listing = cache.get(jobId, (id, executor) -> created);
+        if (listing == created) {
+            try {
+                created.complete(Collections.unmodifiableList(loader.apply(jobId)));
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return listing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * invalidate evicts the listing of the job now and after the current transaction completed
+     *
+     * @param jobId the unique id of the job whose shifts changed
+     */
+    public void invalidate(UUID jobId) {
+        invalidateAll(Collections.singleton(jobId));
+    }
+
+    /**
+     * invalidateAll evicts the listings of the jobs now and after the current transaction completed
+     *
+     * @param jobIds the unique ids of the jobs whose shifts changed
+     */
+    public void invalidateAll(Collection<UUID> jobIds) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        cache.synchronous().invalidateAll(jobIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.synchronous().invalidateAll(jobIds);
+                }
+            });
+        }
+    }
+}
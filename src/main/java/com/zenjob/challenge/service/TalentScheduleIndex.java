@@ -0,0 +1,368 @@
+package com.zenjob.challenge.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.repository.ShiftRepository;
+import com.zenjob.challenge.sharding.ShardRouter;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This class keeps an in-memory schedule of booked shifts per talent,
+ * ordered by start time, so that the 6 hours break rule can be checked
+ * in logarithmic time without reading the shift history of the talent.
+ * <p>
+ * The schedule of a talent is loaded from all shards the first time it is needed
+ * and is kept consistent by the booking, cancellation and substitution operations.
+ * Changes are applied immediately, so that concurrent bookings also see
+ * uncommitted ones, and are reverted if the surrounding transaction rolls back.
+ * <p>
+ * At most schedule-index.maximum-size schedules are kept, the least used ones are dropped
+ * and loaded again when they are needed. A schedule is pinned while it is used and until the
+ * transaction which changed it completes, so that its uncommitted changes are never dropped.
+ * <p>
+ * The schedules are local to this instance of the service, like the locks of the BookingCoordinator.
+ * The JobService also reads the stored shifts close to a booked one, which catches the bookings other instances
+ * committed, but two bookings of a talent on different instances at the same time can both pass,
+ * so the bookings of a talent have to be served by a single instance.
+ * <p>
+ * Every schedule is guarded by a {@link ReentrantLock} rather than its monitor,
+ * since the schedule is loaded while holding the lock and a virtual thread
+ * blocked on I/O inside a monitor would pin its carrier thread.
+ */
+@Component
+public class TalentScheduleIndex {
+
+    /**
+     * the minimum break a talent needs between two shifts
+     */
+    public static final Duration MINIMUM_BREAK_BETWEEN_SHIFTS = Duration.ofHours(6);
+
+    /**
+     * a shift starts and ends on the same day, so it is never longer than that
+     */
+    static final Duration MAXIMUM_SHIFT_LENGTH = Duration.ofDays(1);
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    private final ShiftRepository shiftRepository;
+    private final ShardRouter shardRouter;
+
+    private final Cache<UUID, TalentSchedule> schedules;
+
+    public TalentScheduleIndex(ShiftRepository shiftRepository, ShardRouter shardRouter) {
+        this(shiftRepository, shardRouter, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    @Autowired
+    public TalentScheduleIndex(ShiftRepository shiftRepository, ShardRouter shardRouter,
+                               @org.springframework.beans.factory.annotation.Value("${schedule-index.maximum-size:100000}") long maximumSize) {
+        this.shiftRepository = shiftRepository;
+        this.shardRouter = shardRouter;
+        // a pinned schedule weighs nothing, so it is never dropped to make room for others
+        this.schedules = Caffeine.newBuilder()
+                .maximumWeight(maximumSize)
+                .weigher((UUID talentId, TalentSchedule schedule) -> schedule.pins > 0 ? 0 : 1)
+                .build();
+    }
+
+    /**
+     * hasConflictingShift checks if the talent has a shift, other than the given one,
+     * which starts or ends less than 6 hours away from the given time range
+     *
+     * @param talentId the talent to be checked
+     * @param shiftId  the shift the talent should be booked for
+     * @param start    the start time of the shift
+     * @param end      the end time of the shift
+     * @return true if the talent is not allowed to work in the given time range
+     */
+    public boolean hasConflictingShift(UUID talentId, UUID shiftId, Instant start, Instant end) {
+        return withSchedule(talentId, schedule -> {
+            loadIfRequired(talentId, schedule);
+            return schedule.hasConflict(shiftId, start, end);
+        });
+    }
+
+    /**
+     * load loads the schedules of all given talents which are not loaded yet with one read of their shifts.
+     * The schedules are locked in the order of the talent ids while they are loaded, every other
+     * operation locks one schedule at a time so this cannot deadlock
+     *
+     * @param talentIds the talents whose schedules are needed
+     */
+    public void load(Collection<UUID> talentIds) {
+        List<UUID> sortedTalentIds = talentIds.stream().distinct().sorted().collect(Collectors.toList());
+        Map<UUID, TalentSchedule> locked = new HashMap<>();
+        try {
+            sortedTalentIds.forEach(talentId -> locked.put(talentId, pin(talentId)));
+            sortedTalentIds.forEach(talentId -> locked.get(talentId).lock.lock());
+            try {
+                List<UUID> unloadedTalentIds = sortedTalentIds.stream()
+                        .filter(talentId -> !locked.get(talentId).loaded)
+                        .collect(Collectors.toList());
+                if (unloadedTalentIds.isEmpty()) {
+                    return;
+                }
+                shardRouter.onEveryShard(true, shard -> shiftRepository.findAllShiftForTalents(unloadedTalentIds))
+                        .forEach(shift -> locked.get(shift.getTalentId()).add(ScheduledShift.of(shift)));
+                unloadedTalentIds.forEach(talentId -> locked.get(talentId).loaded = true);
+            } finally {
+                locked.values().forEach(schedule -> schedule.lock.unlock());
+            }
+        } finally {
+            locked.keySet().forEach(this::unpin);
+        }
+    }
+
+    /**
+     * tryBook adds the shift to the schedule of the talent unless the talent has a shift, other than the given one,
+     * which starts or ends less than 6 hours away from it. The check and the addition hold the lock of the schedule,
+     * so two bookings of the talent which are too close to each other never both succeed
+     *
+     * @param talentId the talent who is booked
+     * @param shift    the booked shift
+     * @return false if the talent is not allowed to work in the shift
+     */
+    public boolean tryBook(UUID talentId, Shift shift) {
+        ScheduledShift scheduledShift = ScheduledShift.of(shift);
+        return withSchedule(talentId, schedule -> {
+            loadIfRequired(talentId, schedule);
+            if (schedule.hasConflict(scheduledShift.getId(), scheduledShift.getStart(), scheduledShift.getEnd())) {
+                return false;
+            }
+            schedule.add(scheduledShift);
+            onRollback(talentId, () -> remove(talentId, scheduledShift.getId()));
+            return true;
+        });
+    }
+
+    /**
+     * book adds the shift to the schedule of the talent
+     *
+     * @param talentId the talent who is booked
+     * @param shift    the booked shift
+     */
+    public void book(UUID talentId, Shift shift) {
+        ScheduledShift scheduledShift = ScheduledShift.of(shift);
+        updateSchedule(talentId, schedule -> {
+            schedule.add(scheduledShift);
+            onRollback(talentId, () -> remove(talentId, scheduledShift.getId()));
+        });
+    }
+
+    /**
+     * release removes the shift from the schedule of the talent,
+     * it is used when a booked shift is cancelled or given to another talent
+     *
+     * @param talentId the talent who was booked
+     * @param shift    the released shift
+     */
+    public void release(UUID talentId, Shift shift) {
+        release(talentId, ScheduledShift.of(shift));
+    }
+
+    /**
+     * release removes the shift from the schedule of its talent
+     *
+     * @param shift the released shift, it must have a talent
+     */
+    public void release(ShiftView shift) {
+        release(shift.getTalentId(), new ScheduledShift(shift.getId(), shift.getStart(), shift.getEnd()));
+    }
+
+    private void release(UUID talentId, ScheduledShift scheduledShift) {
+        updateSchedule(talentId, schedule -> {
+            schedule.remove(scheduledShift.getId());
+            onRollback(talentId, () -> add(talentId, scheduledShift));
+        });
+    }
+
+    /**
+     * reassign moves all shifts of the current talent to the new talent
+     *
+     * @param currentTalentId the talent whose shifts are taken away
+     * @param newTalentId     the talent who substitutes the current talent
+     */
+    public void reassign(UUID currentTalentId, UUID newTalentId) {
+        NavigableSet<ScheduledShift> moved = withSchedule(currentTalentId, current -> {
+            loadIfRequired(currentTalentId, current);
+            NavigableSet<ScheduledShift> shifts = new TreeSet<>(current.shifts);
+            shifts.forEach(shift -> current.remove(shift.getId()));
+            onRollback(currentTalentId, () -> shifts.forEach(shift -> add(currentTalentId, shift)));
+            return shifts;
+        });
+        updateSchedule(newTalentId, schedule -> {
+            moved.forEach(schedule::add);
+            onRollback(newTalentId, () -> moved.forEach(shift -> remove(newTalentId, shift.getId())));
+        });
+    }
+
+    private void add(UUID talentId, ScheduledShift shift) {
+        updateSchedule(talentId, schedule -> schedule.add(shift));
+    }
+
+    private void remove(UUID talentId, UUID shiftId) {
+        updateSchedule(talentId, schedule -> schedule.remove(shiftId));
+    }
+
+    private void updateSchedule(UUID talentId, Consumer<TalentSchedule> update) {
+        withSchedule(talentId, schedule -> {
+            update.accept(schedule);
+            return null;
+        });
+    }
+
+    /**
+     * withSchedule runs the action holding the lock of the schedule of the talent, which is pinned meanwhile
+     */
+    private <T> T withSchedule(UUID talentId, Function<TalentSchedule, T> action) {
+        TalentSchedule schedule = pin(talentId);
+        try {
+            schedule.lock.lock();
+            try {
+                return action.apply(schedule);
+            } finally {
+                schedule.lock.unlock();
+            }
+        } finally {
+            unpin(talentId);
+        }
+    }
+
+    /**
+     * pin finds or creates the schedule of the talent and keeps it until it is unpinned as often as it was pinned,
+     * the schedule is weighed again by the cache on every change of its pins
+     */
+    private TalentSchedule pin(UUID talentId) {
+        return schedules.asMap().compute(talentId, (id, schedule) -> {
+            TalentSchedule pinned = schedule == null ? new TalentSchedule() : schedule;
+            pinned.pins++;
+            return pinned;
+        });
+    }
+
+    private void unpin(UUID talentId) {
+        schedules.asMap().computeIfPresent(talentId, (id, schedule) -> {
+            schedule.pins--;
+            return schedule;
+        });
+    }
+
+    /**
+     * The schedule is loaded while holding its lock, changes applied before
+     * are kept since adding and removing a shift are idempotent.
+     * A schedule which was dropped from the cache is created again unloaded
+     */
+    private void loadIfRequired(UUID talentId, TalentSchedule schedule) {
+        if (!schedule.loaded) {
+            shardRouter.onEveryShard(true, shard -> shiftRepository.findAllShiftForTalent(talentId)).stream()
+                    .map(ScheduledShift::of)
+                    .forEach(schedule::add);
+            schedule.loaded = true;
+        }
+    }
+
+    /**
+     * onRollback registers the compensation of a change of the schedule of the talent,
+     * it is called while the schedule is pinned and keeps it pinned until the transaction completed
+     */
+    private void onRollback(UUID talentId, Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        pin(talentId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status != TransactionSynchronization.STATUS_COMMITTED) {
+                        compensation.run();
+                    }
+                } finally {
+                    unpin(talentId);
+                }
+            }
+        });
+    }
+
+    /**
+     * This class holds the booked shifts of a single talent,
+     * it is guarded by its own lock, its pins are only changed within a compute of the cache
+     */
+    private static class TalentSchedule {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final NavigableSet<ScheduledShift> shifts = new TreeSet<>(ScheduledShift.ORDER);
+        private final Map<UUID, ScheduledShift> shiftsById = new HashMap<>();
+        private boolean loaded;
+        private int pins;
+
+        private void add(ScheduledShift shift) {
+            if (shiftsById.putIfAbsent(shift.getId(), shift) == null) {
+                shifts.add(shift);
+            }
+        }
+
+        private void remove(UUID shiftId) {
+            ScheduledShift shift = shiftsById.remove(shiftId);
+            if (shift != null) {
+                shifts.remove(shift);
+            }
+        }
+
+        /**
+         * Only the shifts starting between (start - 6 hours - max shift length)
+         * and (end + 6 hours) can be closer than 6 hours to the given range
+         */
+        private boolean hasConflict(UUID shiftId, Instant start, Instant end) {
+            Instant earliestStart = start.minus(MINIMUM_BREAK_BETWEEN_SHIFTS).minus(MAXIMUM_SHIFT_LENGTH);
+            Instant latestStart = end.plus(MINIMUM_BREAK_BETWEEN_SHIFTS);
+            return shifts.subSet(ScheduledShift.lowerBound(earliestStart), true, ScheduledShift.lowerBound(latestStart), false)
+                    .stream()
+                    .anyMatch(shift -> !shift.getId().equals(shiftId)
+                            && shift.getStart().isBefore(latestStart)
+                            && shift.getEnd().plus(MINIMUM_BREAK_BETWEEN_SHIFTS).isAfter(start));
+        }
+    }
+
+    @Value
+    private static class ScheduledShift {
+
+        private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+        private static final Comparator<ScheduledShift> ORDER = Comparator.comparing(ScheduledShift::getStart)
+                .thenComparing(ScheduledShift::getId);
+
+        UUID id;
+        Instant start;
+        Instant end;
+
+        private static ScheduledShift of(Shift shift) {
+            return new ScheduledShift(shift.getId(), shift.getStartTime(), shift.getEndTime());
+        }
+
+        private static ScheduledShift lowerBound(Instant start) {
+            return new ScheduledShift(MIN_ID, start, start);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.config.SubstitutionProperties;
+import com.zenjob.challenge.dto.ShiftView;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * This class picks the talents which substitute a talent whose shifts are cancelled, so that every
+ * substitute keeps a 6 hours break to the shifts it is booked for and to the other shifts it takes over.
+ * <p>
+ * The shifts are grouped by their day in UTC and the days are split in halves with fork-join until a part
+ * has at most substitution.days-per-task days. A shift is given to the first candidate who can work it,
+ * starting at another candidate every day so that the shifts are spread over the pool, a shift no candidate can work
+ * is left without a substitute. When two parts are joined, only the shifts of the later part which are closer than
+ * 6 hours to a shift its substitute got in the earlier part are given to someone else.
+ */
+@Component
+public class TalentSubstitutionPlanner {
+
+    private static final Comparator<ShiftView> ORDER = Comparator.comparing(ShiftView::getStart)
+            .thenComparing(ShiftView::getId);
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final List<UUID> candidates;
+    private final int daysPerTask;
+
+    public TalentSubstitutionPlanner(SubstitutionProperties properties) {
+        this.candidates = properties.getCandidates().stream().distinct().collect(Collectors.toUnmodifiableList());
+        this.daysPerTask = Math.max(1, properties.getDaysPerTask());
+    }
+
+    public List<UUID> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * plan picks a substitute for every shift a candidate can work. The booked check is called from the threads
+     * of the fork-join pool, so it must only read memory, see {@link #hasBookedConflict(Map)}
+     *
+     * @param talentId          the talent who is substituted, it is never picked
+     * @param shifts            the shifts of the talent
+     * @param hasBookedConflict tells if a candidate is booked for a shift closer than 6 hours to the given one
+     * @return the substitute by shift id, the shifts no candidate can work are missing
+     */
+    public Map<UUID, UUID> plan(UUID talentId, List<ShiftView> shifts, BiPredicate<UUID, ShiftView> hasBookedConflict) {
+        List<List<ShiftView>> days = new ArrayList<>(shifts.stream()
+                .sorted(ORDER)
+                .collect(Collectors.groupingBy(shift -> LocalDate.ofInstant(shift.getStart(), ZoneOffset.UTC), TreeMap::new, Collectors.toList()))
+                .values());
+        if (days.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<UUID> pool = candidates.stream()
+                .filter(candidate -> !candidate.equals(talentId))
+                .collect(Collectors.toList());
+        return ForkJoinPool.commonPool().invoke(new PlanTask(pool, hasBookedConflict, days, 0, days.size())).substitutes;
+    }
+
+    /**
+     * hasBookedConflict checks the candidates against the shifts they were booked for when the plan was made
+     *
+     * @param bookedShifts the shifts of every candidate which could be closer than 6 hours to one of the planned shifts
+     * @return tells if a candidate is booked for a shift closer than 6 hours to the given one
+     */
+    public static BiPredicate<UUID, ShiftView> hasBookedConflict(Map<UUID, List<ShiftView>> bookedShifts) {
+        Duration minimumBreak = TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS;
+        return (candidate, shift) -> bookedShifts.getOrDefault(candidate, List.of()).stream()
+                .anyMatch(booked -> booked.getStart().isBefore(shift.getEnd().plus(minimumBreak))
+                        && booked.getEnd().isAfter(shift.getStart().minus(minimumBreak)));
+    }
+
+    /**
+     * This class plans the shifts of the days from (inclusive) to (exclusive)
+     */
+    private class PlanTask extends RecursiveTask<Plan> {
+
+        private final List<UUID> pool;
+        private final BiPredicate<UUID, ShiftView> hasBookedConflict;
+        private final List<List<ShiftView>> days;
+        private final int from;
+        private final int to;
+
+        private PlanTask(List<UUID> pool, BiPredicate<UUID, ShiftView> hasBookedConflict, List<List<ShiftView>> days, int from, int to) {
+            this.pool = pool;
+            this.hasBookedConflict = hasBookedConflict;
+            this.days = days;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Plan compute() {
+            if (to - from <= daysPerTask) {
+                Plan plan = new Plan(pool, hasBookedConflict);
+                days.subList(from, to).forEach(day -> day.forEach(plan::assign));
+                return plan;
+            }
+            int middle = (from + to) >>> 1;
+            PlanTask earlier = new PlanTask(pool, hasBookedConflict, days, from, middle);
+            earlier.fork();
+            Plan later = new PlanTask(pool, hasBookedConflict, days, middle, to).compute();
+            return earlier.join().append(later);
+        }
+    }
+
+    /**
+     * This class holds the substitutes picked for the shifts of some consecutive days
+     */
+    private static class Plan {
+
+        private final List<UUID> pool;
+        private final BiPredicate<UUID, ShiftView> hasBookedConflict;
+
+        private final Map<UUID, UUID> substitutes = new HashMap<>();
+        private final Map<UUID, NavigableSet<ShiftView>> shiftsBySubstitute = new HashMap<>();
+        private final List<ShiftView> planned = new ArrayList<>();
+
+        private Plan(List<UUID> pool, BiPredicate<UUID, ShiftView> hasBookedConflict) {
+            this.pool = pool;
+            this.hasBookedConflict = hasBookedConflict;
+        }
+
+        /**
+         * assign gives the shift to the first candidate who can work it, the shift is planned even without one,
+         * so that it is assigned again when the plan is appended to another one
+         */
+        private void assign(ShiftView shift) {
+            planned.add(shift);
+            int offset = Math.floorMod(LocalDate.ofInstant(shift.getStart(), ZoneOffset.UTC).toEpochDay(), Math.max(1, pool.size()));
+            for (int idx = 0; idx < pool.size(); idx++) {
+                UUID candidate = pool.get((offset + idx) % pool.size());
+                if (canWork(candidate, shift) && !hasBookedConflict.test(candidate, shift)) {
+                    put(candidate, shift);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * append adds the shifts of the plan of the following days, keeping their substitutes where they can work them
+         */
+        private Plan append(Plan later) {
+            for (ShiftView shift : later.planned) {
+                UUID substitute = later.substitutes.get(shift.getId());
+                if (substitute != null && canWork(substitute, shift)) {
+                    planned.add(shift);
+                    put(substitute, shift);
+                } else {
+                    assign(shift);
+                }
+            }
+            return this;
+        }
+
+        private void put(UUID substitute, ShiftView shift) {
+            substitutes.put(shift.getId(), substitute);
+            shiftsBySubstitute.computeIfAbsent(substitute, id -> new TreeSet<>(ORDER)).add(shift);
+        }
+
+        /**
+         * Only the planned shifts starting between (start - 6 hours - max shift length)
+         * and (end + 6 hours) can be closer than 6 hours to the shift
+         */
+        private boolean canWork(UUID substitute, ShiftView shift) {
+            NavigableSet<ShiftView> shifts = shiftsBySubstitute.get(substitute);
+            if (shifts == null) {
+                return true;
+            }
+            Instant earliestStart = shift.getStart().minus(TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS).minus(TalentScheduleIndex.MAXIMUM_SHIFT_LENGTH);
+            Instant latestStart = shift.getEnd().plus(TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS);
+            return shifts.subSet(lowerBound(earliestStart), true, lowerBound(latestStart), false)
+                    .stream()
+                    .noneMatch(other -> other.getStart().isBefore(latestStart)
+                            && other.getEnd().plus(TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS).isAfter(shift.getStart()));
+        }
+
+        private static ShiftView lowerBound(Instant start) {
+            return new ShiftView(MIN_ID, null, null, start, start);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.zenjob.challenge.sharding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.repository.UuidBytes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * This class finds the shard of the jobs and shifts whose ids do not carry the bucket of their company,
+ * the ones stored before the jobs were sharded and the shifts of jobs which are not recurring.
+ * <p>
+ * The shard of such an id is kept in the shard_directory table of the first shard, the ShardRebalancer
+ * registers the jobs it places by their company together with their shifts. The shift of a recurring job is found
+ * by the id of its job. An id which is not registered is looked up on every shard and registered where it is
+ * found. The shards of the ids looked up are kept in memory until the next registration.
+ */
+@Component
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardDirectory {
+
+    private static final String FIND_SHARD = "SELECT shard FROM shard_directory WHERE id IN (?, ?)";
+    private static final String REGISTER = "MERGE INTO shard_directory (id, shard) KEY (id) VALUES (?, ?)";
+    private static final String COUNT_ROWS = "SELECT (SELECT COUNT(*) FROM job_process WHERE id IN (?, ?))"
+            + " + (SELECT COUNT(*) FROM shift WHERE id = ?)";
+
+    private final List<HikariDataSource> shards;
+    private final JdbcTemplate directory;
+    private final Cache<UUID, Integer> shardOfId;
+
+    public ShardDirectory(ShardRoutingDataSource shardRoutingDataSource,
+                          @Value("${sharding.directory-cache-size:100000}") long cacheSize) {
+        this.shards = shardRoutingDataSource.getShards();
+        this.directory = new JdbcTemplate(shards.get(0));
+        this.shardOfId = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * shardOf finds the shard of a job or shift whose id does not carry a bucket
+     *
+     * @param id the unique id of the job or shift
+     * @return the index of the shard, empty if the job or shift is not stored on any shard
+     */
+    public OptionalInt shardOf(UUID id) {
+        Integer cached = shardOfId.getIfPresent(id);
+        if (cached != null) {
+            return OptionalInt.of(cached);
+        }
+        byte[] jobIdBytes = UuidBytes.of(JobRecurrence.jobIdOf(id));
+        OptionalInt shard = directory.queryForList(FIND_SHARD, Integer.class, UuidBytes.of(id), jobIdBytes).stream()
+                .mapToInt(Integer::intValue)
+                .findFirst();
+        if (shard.isEmpty()) {
+            shard = findStoringShard(id, jobIdBytes);
+            shard.ifPresent(found -> store(List.of(id), found));
+        }
+        shard.ifPresent(found -> shardOfId.put(id, found));
+        return shard;
+    }
+
+    /**
+     * register records the shard of jobs and shifts, it replaces the shard they were registered on
+     *
+     * @param ids   the unique ids of the jobs and shifts
+     * @param shard the index of the shard they are stored on
+     */
+    public void register(Collection<UUID> ids, int shard) {
+        store(ids, shard);
+        // the shifts of a recurring job are kept by their own id, they may have moved with it
+        shardOfId.invalidateAll();
+    }
+
+    private void store(Collection<UUID> ids, int shard) {
+        directory.batchUpdate(REGISTER, ids.stream()
+                .map(id -> new Object[]{UuidBytes.of(id), shard})
+                .collect(Collectors.toList()));
+    }
+
+    private OptionalInt findStoringShard(UUID id, byte[] jobIdBytes) {
+        byte[] idBytes = UuidBytes.of(id);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            Long rows = new JdbcTemplate(shards.get(shard)).queryForObject(COUNT_ROWS, Long.class, idBytes, jobIdBytes, idBytes);
+            if (rows != null && rows > 0) {
+                return OptionalInt.of(shard);
+            }
+        }
+        return OptionalInt.empty();
+    }
+}
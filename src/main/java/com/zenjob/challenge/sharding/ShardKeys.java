@@ -0,0 +1,83 @@
+package com.zenjob.challenge.sharding;
+
+import java.util.UUID;
+
+/**
+ * This class places every job into one of 65536 buckets by a stable hash of its company.
+ * <p>
+ * The bucket is kept in the highest 16 bits of the id of the job, and the ids of the shifts of a recurring
+ * job are derived from the id of the job, so the bucket of a job or of a shift is read from its id
+ * without a lookup. The ShardRouter maps the buckets onto the shards.
+ * <p>
+ * An id with a bucket is marked with the version 8 of RFC 9562, which is the one of custom ids.
+ * Ids without the mark were created before the jobs were sharded, or belong to the shifts of a job which is not
+ * recurring, and are routed by the ShardDirectory instead.
+ */
+public final class ShardKeys {
+
+    public static final int BUCKETS = 1 << 16;
+
+    private static final int BUCKET_SHIFT = Long.SIZE - 16;
+    private static final long BUCKET_MASK = -1L << BUCKET_SHIFT;
+    private static final long VERSION_MASK = 0xF000L;
+    private static final long BUCKETED_VERSION = 0x8000L;
+
+    private ShardKeys() {
+    }
+
+    /**
+     * bucketOfCompany returns the bucket of all jobs of the company
+     *
+     * @param companyId the unique id of the company
+     * @return the bucket, from 0 to BUCKETS - 1
+     */
+    public static int bucketOfCompany(UUID companyId) {
+        return (int) (mix(companyId.getMostSignificantBits() ^ mix(companyId.getLeastSignificantBits())) >>> BUCKET_SHIFT);
+    }
+
+    /**
+     * bucketOf returns the bucket of a job or of a shift
+     *
+     * @param id the unique id of the job or shift
+     * @return the bucket, from 0 to BUCKETS - 1
+     */
+    public static int bucketOf(UUID id) {
+        return (int) (id.getMostSignificantBits() >>> BUCKET_SHIFT);
+    }
+
+    /**
+     * hasBucket checks if the id of a job or of a shift carries the bucket of its company
+     *
+     * @param id the unique id of the job or shift
+     * @return false for the ids created before sharding and for the shifts of jobs which are not recurring
+     */
+    public static boolean hasBucket(UUID id) {
+        return (id.getMostSignificantBits() & VERSION_MASK) == BUCKETED_VERSION;
+    }
+
+    /**
+     * inBucketOfCompany replaces the highest bits of a new job id by the bucket of its company and marks it,
+     * a job without a company keeps its id since it is rejected when it is stored
+     *
+     * @param id        the random id of the job
+     * @param companyId the unique id of the company of the job
+     * @return the id of the job in the bucket of its company
+     */
+    public static UUID inBucketOfCompany(UUID id, UUID companyId) {
+        if (companyId == null) {
+            return id;
+        }
+        long bucket = (long) bucketOfCompany(companyId) << BUCKET_SHIFT;
+        long mostSignificantBits = bucket | (id.getMostSignificantBits() & ~BUCKET_MASK & ~VERSION_MASK) | BUCKETED_VERSION;
+        return new UUID(mostSignificantBits, id.getLeastSignificantBits());
+    }
+
+    /**
+     * mix is the finalizer of SplitMix64, the placement of stored jobs depends on it so it must never change
+     */
+    static long mix(long value) {
+        long mixed = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94d049bb133111ebL;
+        return mixed ^ (mixed >>> 31);
+    }
+}
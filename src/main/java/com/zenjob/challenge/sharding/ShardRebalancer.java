@@ -0,0 +1,152 @@
+package com.zenjob.challenge.sharding;
+
+import com.zenjob.challenge.config.ShardingProperties;
+import com.zenjob.challenge.repository.UuidBytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * This class moves every job, with its shifts, which is stored on another shard than the one it belongs to.
+ * <p>
+ * Jobs have to be moved after a shard was appended to sharding.shards, since the new shard takes over some
+ * buckets of the others. The jobs are moved in batches, every batch is copied to its shard and then deleted
+ * from the shard it was stored on. Copies left on the target by an interrupted rebalancing are replaced,
+ * so it can be run again until it moves nothing. Jobs which are written while they are moved may lose the
+ * write, so it has to be run while the service is not writing, with sharding.rebalance-on-startup=true
+ * it runs before the service accepts requests.
+ * <p>
+ * A job whose id does not carry a bucket, since it was stored before the jobs were sharded, belongs to the shard
+ * of its company. It is registered with its shifts in the ShardDirectory on that shard, whether it was moved or not.
+ */
+@Component
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardRebalancer implements SmartInitializingSingleton {
+
+    private static final String FIND_JOB_IDS = "SELECT id, company_id FROM job_process";
+    private static final String FIND_JOBS = "SELECT * FROM job_process WHERE id IN (:ids)";
+    private static final String FIND_SHIFTS = "SELECT * FROM shift WHERE job_id IN (:ids)";
+    private static final String DELETE_JOBS = "DELETE FROM job_process WHERE id IN (:ids)";
+    private static final String DELETE_SHIFTS = "DELETE FROM shift WHERE job_id IN (:ids)";
+    private static final String FIND_SHIFT_IDS = "SELECT id FROM shift WHERE job_id IN (:ids)";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final List<? extends DataSource> shards;
+    private final ShardRouter shardRouter;
+    private final ShardDirectory shardDirectory;
+    private final ShardingProperties properties;
+
+    public ShardRebalancer(ShardRoutingDataSource shardRoutingDataSource, ShardRouter shardRouter,
+                           ShardDirectory shardDirectory, ShardingProperties properties) {
+        this.shards = shardRoutingDataSource.getShards();
+        this.shardRouter = shardRouter;
+        this.shardDirectory = shardDirectory;
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (properties.isRebalanceOnStartup()) {
+            rebalance();
+        }
+    }
+
+    /**
+     * rebalance moves the jobs of all shards to the shards they belong to
+     *
+     * @return the number of moved jobs
+     */
+    public int rebalance() {
+        int movedJobs = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            movedJobs += rebalance(shard);
+        }
+        logger.info("moved {} jobs to the shards they belong to", movedJobs);
+        return movedJobs;
+    }
+
+    private int rebalance(int source) {
+        Map<Integer, List<UUID>> jobIdsByTarget = new JdbcTemplate(shards.get(source)).queryForList(FIND_JOB_IDS).stream()
+                .collect(Collectors.groupingBy(this::targetOf,
+                        Collectors.mapping(job -> UuidBytes.toUuid((byte[]) job.get("id")), Collectors.toList())));
+        int movedJobs = 0;
+        for (Map.Entry<Integer, List<UUID>> jobIdsOfTarget : jobIdsByTarget.entrySet()) {
+            int target = jobIdsOfTarget.getKey();
+            List<UUID> jobIds = jobIdsOfTarget.getValue();
+            for (int from = 0; from < jobIds.size(); from += properties.getRebalanceBatchSize()) {
+                List<UUID> batch = jobIds.subList(from, Math.min(jobIds.size(), from + properties.getRebalanceBatchSize()));
+                if (target != source) {
+                    movedJobs += move(batch, source, target);
+                }
+                register(batch.stream().filter(jobId -> !ShardKeys.hasBucket(jobId)).collect(Collectors.toList()), target);
+            }
+            if (target != source) {
+                logger.info("moved {} jobs from shard {} to shard {}", jobIds.size(), source, target);
+            }
+        }
+        return movedJobs;
+    }
+
+    private int targetOf(Map<String, Object> job) {
+        UUID jobId = UuidBytes.toUuid((byte[]) job.get("id"));
+        return ShardKeys.hasBucket(jobId)
+                ? shardRouter.shardOf(jobId)
+                : shardRouter.shardOfCompany(UuidBytes.toUuid((byte[]) job.get("company_id")));
+    }
+
+    /**
+     * register records the jobs without a bucket and their stored shifts in the ShardDirectory
+     */
+    private void register(List<UUID> jobIds, int shard) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        Map<String, List<byte[]>> ids = Map.of("ids", jobIds.stream().map(UuidBytes::of).collect(Collectors.toList()));
+        List<UUID> registeredIds = new ArrayList<>(jobIds);
+        new NamedParameterJdbcTemplate(shards.get(shard)).queryForList(FIND_SHIFT_IDS, ids, byte[].class).stream()
+                .map(UuidBytes::toUuid)
+                .forEach(registeredIds::add);
+        shardDirectory.register(registeredIds, shard);
+    }
+
+    private int move(List<UUID> jobIds, int source, int target) {
+        Map<String, List<byte[]>> ids = Map.of("ids", jobIds.stream().map(UuidBytes::of).collect(Collectors.toList()));
+        NamedParameterJdbcTemplate sourceJdbc = new NamedParameterJdbcTemplate(shards.get(source));
+        NamedParameterJdbcTemplate targetJdbc = new NamedParameterJdbcTemplate(shards.get(target));
+        List<Map<String, Object>> jobs = sourceJdbc.queryForList(FIND_JOBS, ids);
+        List<Map<String, Object>> shifts = sourceJdbc.queryForList(FIND_SHIFTS, ids);
+        transactionOn(target).executeWithoutResult(status -> {
+            targetJdbc.update(DELETE_SHIFTS, ids);
+            targetJdbc.update(DELETE_JOBS, ids);
+            new SimpleJdbcInsert(shards.get(target)).withTableName("job_process").executeBatch(SqlParameterSourceUtils.createBatch(jobs));
+            if (!shifts.isEmpty()) {
+                new SimpleJdbcInsert(shards.get(target)).withTableName("shift").executeBatch(SqlParameterSourceUtils.createBatch(shifts));
+            }
+        });
+        transactionOn(source).executeWithoutResult(status -> {
+            sourceJdbc.update(DELETE_SHIFTS, ids);
+            sourceJdbc.update(DELETE_JOBS, ids);
+        });
+        return jobs.size();
+    }
+
+    private TransactionTemplate transactionOn(int shard) {
+        return new TransactionTemplate(new DataSourceTransactionManager(shards.get(shard)));
+    }
+}
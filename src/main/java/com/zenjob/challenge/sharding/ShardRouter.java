@@ -0,0 +1,275 @@
+package com.zenjob.challenge.sharding;
+
+import com.zenjob.challenge.config.ShardingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This class decides which shard a transaction reads and writes.
+ * <p>
+ * The buckets of ShardKeys are mapped onto the shards by rendezvous hashing: every bucket belongs to the shard
+ * with the highest score for it, so appending a shard only moves the buckets the new shard wins, about one in
+ * the number of shards, and leaves every other bucket where it is.
+ * <p>
+ * The shard of an id without a bucket is found by the ShardDirectory.
+ * <p>
+ * A transaction is bound to the shard of a job, shift or company before its first statement, the
+ * ShardRoutingDataSource hands out the connections of that shard. Queries which are not keyed by a job,
+ * such as the ones of a talent, are scattered to all shards, every shard is queried in its own transaction
+ * on its own virtual thread and the results are gathered. Without sharding there is one shard, nothing is
+ * bound and every query runs in the transaction of the caller.
+ */
+@Component
+public class ShardRouter {
+
+    private static final ThreadLocal<Integer> BOUND_SHARD = new ThreadLocal<>();
+
+    private final int shardCount;
+    private final int[] shardOfBucket;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final ShardDirectory shardDirectory;
+
+    public ShardRouter(ShardingProperties properties, PlatformTransactionManager transactionManager) {
+        this(properties, transactionManager, (ShardDirectory) null);
+    }
+
+    @Autowired
+    public ShardRouter(ShardingProperties properties, PlatformTransactionManager transactionManager,
+                       ObjectProvider<ShardDirectory> shardDirectory) {
+        this(properties, transactionManager, shardDirectory.getIfAvailable());
+    }
+
+    /**
+     * Without a directory the ids without a bucket are routed by their highest bits like the other ones
+     */
+    public ShardRouter(ShardingProperties properties, PlatformTransactionManager transactionManager, ShardDirectory shardDirectory) {
+        if (properties.isEnabled() && properties.getShards().isEmpty()) {
+            throw new IllegalStateException("sharding is enabled without sharding.shards");
+        }
+        this.shardCount = properties.isEnabled() ? properties.getShards().size() : 1;
+        this.shardOfBucket = IntStream.range(0, ShardKeys.BUCKETS)
+                .map(bucket -> highestScoringShard(bucket, shardCount))
+                .toArray();
+        if (shardCount > 1) {
+            this.transaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction.setReadOnly(true);
+            this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            this.transaction = null;
+            this.readOnlyTransaction = null;
+            this.executor = null;
+        }
+        this.shardDirectory = shardDirectory;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * shardOf returns the shard a job or shift belongs to
+     *
+     * @param id the unique id of the job or shift
+     * @return the index of the shard, the one of the highest bits of the id if it is not stored on any shard
+     */
+    public int shardOf(UUID id) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        if (shardDirectory == null || ShardKeys.hasBucket(id)) {
+            return shardOfBucket(ShardKeys.bucketOf(id));
+        }
+        return shardDirectory.shardOf(id).orElseGet(() -> shardOfBucket(ShardKeys.bucketOf(id)));
+    }
+
+    /**
+     * shardOfBucket returns the shard the jobs of the bucket belong to
+     *
+     * @param bucket the bucket, from 0 to ShardKeys.BUCKETS - 1
+     * @return the index of the shard
+     */
+    public int shardOfBucket(int bucket) {
+        return shardOfBucket[bucket];
+    }
+
+    /**
+     * shardOfCompany returns the shard the jobs of the company are created on
+     *
+     * @param companyId the unique id of the company
+     * @return the index of the shard
+     */
+    public int shardOfCompany(UUID companyId) {
+        return shardOfBucket[ShardKeys.bucketOfCompany(companyId)];
+    }
+
+    /**
+     * bindToShardOf routes the current transaction to the shard of the job or shift,
+     * it has to be called before the first statement of the transaction
+     *
+     * @param id the unique id of the job or shift
+     * @throws IllegalStateException if the transaction is bound to another shard
+     */
+    public void bindToShardOf(UUID id) {
+        bind(shardOf(id));
+    }
+
+    /**
+     * bindToShardOfCompany routes the current transaction to the shard of the jobs of the company,
+     * it has to be called before the first statement of the transaction
+     *
+     * @param companyId the unique id of the company
+     * @throws IllegalStateException if the transaction is bound to another shard
+     */
+    public void bindToShardOfCompany(UUID companyId) {
+        bind(shardOfCompany(companyId));
+    }
+
+    /**
+     * onShardOf runs the read in a transaction bound to the shard of the job or shift,
+     * without sharding it runs in the transaction of the caller if there is one
+     *
+     * @param id   the unique id of the job or shift
+     * @param read the read to be run on the shard
+     * @return the result of the read
+     */
+    public <T> T onShardOf(UUID id, Supplier<T> read) {
+        if (shardCount == 1) {
+            return read.get();
+        }
+        return readOnlyTransaction.execute(status -> {
+            bindToShardOf(id);
+            return read.get();
+        });
+    }
+
+    /**
+     * onEveryShard scatters the work to all shards and gathers the results
+     *
+     * @param readOnly true if the work only reads
+     * @param work     the work to be done on every shard, it is given the index of the shard
+     * @return the results of all shards, in the order of the shards
+     */
+    public <T> List<T> onEveryShard(boolean readOnly, IntFunction<List<T>> work) {
+        return onShards(IntStream.range(0, shardCount).boxed().collect(Collectors.toList()), readOnly, work);
+    }
+
+    /**
+     * onShards runs the work on each of the given shards in parallel, every shard in its own transaction,
+     * a transaction which failed on one shard does not roll back the ones of the other shards.
+     * Without sharding the work runs once in the transaction of the caller.
+     *
+     * @param shards   the indexes of the shards
+     * @param readOnly true if the work only reads
+     * @param work     the work to be done on every shard, it is given the index of the shard
+     * @return the results of the given shards, in the order of the shards
+     */
+    public <T> List<T> onShards(Collection<Integer> shards, boolean readOnly, IntFunction<List<T>> work) {
+        if (shardCount == 1) {
+            return shards.isEmpty() ? new ArrayList<>() : work.apply(0);
+        }
+        TransactionTemplate template = readOnly ? readOnlyTransaction : transaction;
+        List<Future<List<T>>> results = shards.stream()
+                .map(shard -> executor.submit(() -> template.execute(status -> {
+                    bind(shard);
+                    return work.apply(shard);
+                })))
+                .collect(Collectors.toList());
+        List<T> gathered = new ArrayList<>();
+        for (Future<List<T>> result : results) {
+            gathered.addAll(await(result));
+        }
+        return gathered;
+    }
+
+    /**
+     * boundShard tells the shard the transaction of the current thread is bound to
+     *
+     * @return the index of the shard, the first shard if the transaction is not bound
+     */
+    static int boundShard() {
+        Integer shard = BOUND_SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    private void bind(int shard) {
+        if (shardCount == 1) {
+            return;
+        }
+        Integer bound = BOUND_SHARD.get();
+        if (bound != null) {
+            if (bound != shard) {
+                throw new IllegalStateException("the transaction is bound to shard " + bound + " and cannot use shard " + shard);
+            }
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("only a transaction can be bound to a shard");
+        }
+        BOUND_SHARD.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                BOUND_SHARD.remove();
+            }
+        });
+    }
+
+    private static <T> List<T> await(Future<List<T>> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * the score of a shard for a bucket depends on both of them only, so it does not change when shards are appended
+     */
+    private static int highestScoringShard(int bucket, int shardCount) {
+        int shard = 0;
+        long highestScore = Long.MIN_VALUE;
+        for (int idx = 0; idx < shardCount; idx++) {
+            long score = ShardKeys.mix(((long) bucket << Integer.SIZE) | idx);
+            if (score > highestScore) {
+                highestScore = score;
+                shard = idx;
+            }
+        }
+        return shard;
+    }
+}
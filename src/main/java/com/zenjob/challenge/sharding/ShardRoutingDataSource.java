@@ -0,0 +1,46 @@
+package com.zenjob.challenge.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * This class hands out the connections of the shard the current transaction is bound to by the ShardRouter.
+ * <p>
+ * A connection which is not obtained for a bound transaction, such as the ones of the migrations
+ * and of the health check, comes from the first shard. The shard is known once the first statement
+ * is sent, so this class has to be wrapped into a LazyConnectionDataSourceProxy.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * getShards returns the connection pools of the shards, by the index of the shard
+     */
+    public List<HikariDataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return shards.get(ShardRouter.boundShard()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("the connections of the shards are configured with their pools");
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
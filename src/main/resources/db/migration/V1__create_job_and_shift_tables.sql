@@ -0,0 +1,25 @@
+CREATE TABLE job_process
+(
+    id         BINARY(16) NOT NULL,
+    version    BIGINT     NOT NULL,
+    company_id BINARY(16) NOT NULL,
+    start_time TIMESTAMP,
+    end_time   TIMESTAMP,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE shift
+(
+    id         BINARY(16) NOT NULL,
+    version    BIGINT     NOT NULL,
+    job_id     BINARY(16) NOT NULL,
+    talent_id  BINARY(16),
+    start_time TIMESTAMP,
+    end_time   TIMESTAMP,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_shift_job FOREIGN KEY (job_id) REFERENCES job_process (id)
+);
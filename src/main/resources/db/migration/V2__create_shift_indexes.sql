@@ -0,0 +1,6 @@
+-- talent schedules are read by talent and time range (booking, substitution)
+CREATE INDEX idx_shift_talent_id_start_time ON shift (talent_id, start_time);
+
+-- shift listings and cancellations are read by job, ordered by time
+CREATE INDEX idx_shift_job_id_start_time ON shift (job_id, start_time);
+
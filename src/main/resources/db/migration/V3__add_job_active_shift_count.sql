@@ -0,0 +1,5 @@
+-- number of shifts of the job which are not cancelled, maintained with the shifts
+-- so that the last shift of a job can be protected without counting its shifts
+ALTER TABLE job_process ADD COLUMN active_shift_count INT NOT NULL DEFAULT 0;
+
+UPDATE job_process j SET active_shift_count = (SELECT COUNT(*) FROM shift s WHERE s.job_id = j.id);
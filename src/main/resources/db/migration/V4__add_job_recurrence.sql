@@ -0,0 +1,6 @@
+-- the shifts of a recurring job are one shift per day from its start time until its end time,
+-- only the shifts which were booked or cancelled are stored
+ALTER TABLE job_process ADD COLUMN recurring BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- a cancelled shift of a recurring job is kept, so that the day is not listed again
+ALTER TABLE shift ADD COLUMN cancelled BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,2 @@
+-- shift exports are read by company and time range, ordered by the start of the jobs
+CREATE INDEX idx_job_process_company_id_start_time ON job_process (company_id, start_time);
@@ -0,0 +1,8 @@
+-- the shard of the jobs and shifts whose ids do not carry the bucket of their company,
+-- only the table of the first shard is used
+CREATE TABLE shard_directory
+(
+    id    BINARY(16) NOT NULL,
+    shard INT        NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,128 @@
+package com.zenjob.challenge.admission;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class AdmissionControlAspectTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    AdmissionControlAspect aspect = new AdmissionControlAspect(meterRegistry, 2, 1);
+
+    @Before
+    public void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @After
+    public void endRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testIfEveryPermitIsTakenThenCallIsRejectedWithoutWaiting() throws Throwable {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint blocking = mock(ProceedingJoinPoint.class);
+        when(blocking.proceed()).then(invocation -> {
+            started.countDown();
+            release.await();
+            return "done";
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(() -> admit(blocking));
+            Future<Object> second = executor.submit(() -> admit(blocking));
+            Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(2, aspect.inFlight());
+            Assert.assertEquals(2, meterRegistry.get(AdmissionControlAspect.IN_FLIGHT_NAME).gauge().value(), 0);
+
+            ProceedingJoinPoint rejected = mock(ProceedingJoinPoint.class);
+            try {
+                aspect.admit(rejected);
+                Assert.fail("expected " + ErrorMessages.TOO_MANY_CONCURRENT_REQUESTS);
+            } catch (TooManyRequestsException e) {
+                Assert.assertEquals(ErrorMessages.TOO_MANY_CONCURRENT_REQUESTS, e.getMessage());
+                Assert.assertEquals(1, e.getRetryAfterSeconds());
+            }
+            verify(rejected, never()).proceed();
+
+            release.countDown();
+            Assert.assertEquals("done", first.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals("done", second.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        Assert.assertEquals(0, aspect.inFlight());
+        Assert.assertEquals(2, decisions("admitted"), 0);
+        Assert.assertEquals(1, decisions("rejected"), 0);
+    }
+
+    @Test
+    public void testIfCallFailsThenItsPermitIsReleased() throws Throwable {
+        ProceedingJoinPoint failing = mock(ProceedingJoinPoint.class);
+        when(failing.proceed()).thenThrow(new IllegalStateException());
+
+        for (int idx = 0; idx < 3; idx++) {
+            try {
+                aspect.admit(failing);
+                Assert.fail("expected the failure of the call");
+            } catch (IllegalStateException e) {
+                Assert.assertEquals(0, aspect.inFlight());
+            }
+        }
+        Assert.assertEquals(3, decisions("admitted"), 0);
+    }
+
+    @Test
+    public void testIfCallIsNotMadeForARequestThenItIsNotLimited() throws Throwable {
+        RequestContextHolder.resetRequestAttributes();
+        ProceedingJoinPoint background = mock(ProceedingJoinPoint.class);
+        when(background.proceed()).then(invocation -> aspect.inFlight());
+
+        Assert.assertEquals(0, aspect.admit(background));
+        Assert.assertEquals(0, decisions("admitted"), 0);
+    }
+
+    /**
+     * admit calls the aspect like a request served on another thread
+     */
+    private Object admit(ProceedingJoinPoint joinPoint) throws Exception {
+        startRequest();
+        try {
+            return aspect.admit(joinPoint);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        } finally {
+            endRequest();
+        }
+    }
+
+    private double decisions(String outcome) {
+        return meterRegistry.get(CompanyRateLimiter.DECISIONS_NAME)
+                .tag("limiter", AdmissionControlAspect.LIMITER)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,180 @@
+package com.zenjob.challenge.admission;
+
+import com.zenjob.challenge.config.RateLimitProperties;
+import com.zenjob.challenge.config.ShardingProperties;
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import com.zenjob.challenge.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+public class CompanyRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    JobRepository jobRepository = mock(JobRepository.class);
+    ShiftRepository shiftRepository = mock(ShiftRepository.class);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AtomicLong now = new AtomicLong(-5 * SECOND);
+    RateLimitProperties properties = new RateLimitProperties();
+    UUID premiumCompanyId = UUID.randomUUID();
+
+    CompanyRateLimiter limiter;
+
+    @Before
+    public void initialize() {
+        RateLimitProperties.Tier standard = new RateLimitProperties.Tier();
+        standard.setCapacity(5);
+        standard.setRefillPerSecond(2);
+        RateLimitProperties.Tier premium = new RateLimitProperties.Tier();
+        premium.setCapacity(20);
+        premium.setRefillPerSecond(10);
+        properties.getTiers().put("standard", standard);
+        properties.getTiers().put("premium", premium);
+        properties.getCompanies().put(premiumCompanyId, "premium");
+        limiter = new CompanyRateLimiter(properties, jobRepository, shiftRepository, new ShardRouter(new ShardingProperties(), null), meterRegistry, now::get);
+    }
+
+    @Test
+    public void testIfBucketIsEmptyThenRequestsAreRejectedUntilItRefills() {
+        UUID companyId = UUID.randomUUID();
+        for (int idx = 0; idx < 5; idx++) {
+            Assert.assertEquals(0, limiter.tryAcquire(companyId, 1));
+        }
+        Assert.assertEquals(1, limiter.tryAcquire(companyId, 1));
+
+        now.addAndGet(SECOND / 2);
+        Assert.assertEquals(0, limiter.tryAcquire(companyId, 1));
+        Assert.assertEquals(1, limiter.tryAcquire(companyId, 1));
+
+        now.addAndGet(10 * SECOND);
+        Assert.assertEquals(0, limiter.tryAcquire(companyId, 5));
+        Assert.assertEquals(3, limiter.tryAcquire(companyId, 5));
+    }
+
+    @Test
+    public void testIfCompanyIsRejectedThenRetryAfterIsReported() {
+        UUID companyId = UUID.randomUUID();
+        limiter.acquire(companyId, 5);
+        try {
+            limiter.acquire(companyId, 4);
+            Assert.fail("expected " + ErrorMessages.RATE_LIMIT_EXCEEDED);
+        } catch (TooManyRequestsException e) {
+            Assert.assertEquals(ErrorMessages.RATE_LIMIT_EXCEEDED, e.getMessage());
+            Assert.assertEquals(2, e.getRetryAfterSeconds());
+            Assert.assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void testIfCompanyHasTierThenItsLimitsAreUsedAndDecisionsAreCounted() {
+        UUID companyId = UUID.randomUUID();
+        Assert.assertEquals(0, limiter.tryAcquire(premiumCompanyId, 20));
+        Assert.assertEquals(1, limiter.tryAcquire(premiumCompanyId, 1));
+        Assert.assertEquals(1, limiter.tryAcquire(companyId, 6));
+
+        Assert.assertEquals(1, decisions("premium", "admitted"), 0);
+        Assert.assertEquals(1, decisions("premium", "rejected"), 0);
+        Assert.assertEquals(0, decisions("standard", "admitted"), 0);
+        Assert.assertEquals(1, decisions("standard", "rejected"), 0);
+    }
+
+    @Test
+    public void testIfShiftIsOfRecurringJobThenCompanyOfJobIsLimitedAndCached() {
+        UUID companyId = UUID.randomUUID();
+        UUID jobId = new UUID(UUID.randomUUID().getMostSignificantBits(), 0);
+        UUID shiftId = new UUID(jobId.getMostSignificantBits(), 3);
+        Assert.assertEquals(jobId, JobRecurrence.jobIdOf(shiftId));
+        when(jobRepository.findCompanyIdById(jobId)).thenReturn(Optional.of(companyId));
+
+        for (int idx = 0; idx < 5; idx++) {
+            limiter.acquireForShift(shiftId);
+        }
+        Assert.assertEquals(1, limiter.tryAcquire(companyId, 1));
+        verify(jobRepository, times(1)).findCompanyIdById(jobId);
+        verify(shiftRepository, never()).findCompanyIdById(any(UUID.class));
+    }
+
+    @Test
+    public void testIfShiftDoesNotExistThenItIsNotLimited() {
+        UUID shiftId = UUID.randomUUID();
+        when(jobRepository.findCompanyIdById(any(UUID.class))).thenReturn(Optional.empty());
+        when(shiftRepository.findCompanyIdById(shiftId)).thenReturn(Optional.empty());
+
+        for (int idx = 0; idx < 10; idx++) {
+            limiter.acquireForShift(shiftId);
+        }
+        Assert.assertEquals(0, decisions("standard", "admitted"), 0);
+    }
+
+    @Test
+    public void testIfRateLimitIsDisabledThenEveryRequestIsAdmitted() {
+        properties.setEnabled(false);
+        UUID companyId = UUID.randomUUID();
+
+        Assert.assertEquals(0, limiter.tryAcquire(companyId, 100));
+        limiter.acquireForJob(UUID.randomUUID());
+        verifyNoInteractions(jobRepository);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIfCompanyHasUnknownTierThenLimiterIsNotCreated() {
+        properties.getCompanies().put(UUID.randomUUID(), "gold");
+
+        new CompanyRateLimiter(properties, jobRepository, shiftRepository, new ShardRouter(new ShardingProperties(), null), meterRegistry, now::get);
+    }
+
+    @Test
+    public void testIfCompanySendsConcurrentlyThenNoMoreThanCapacityIsAdmitted() throws Exception {
+        UUID companyId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int idx = 0; idx < 8; idx++) {
+                results.add(executor.submit((Callable<Integer>) () -> {
+                    int admitted = 0;
+                    for (int run = 0; run < 1_000; run++) {
+                        if (limiter.tryAcquire(companyId, 1) == 0) {
+                            admitted++;
+                        }
+                    }
+                    return admitted;
+                }));
+            }
+            int admitted = 0;
+            for (Future<Integer> result : results) {
+                admitted += result.get();
+            }
+            Assert.assertEquals(5, admitted);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private double decisions(String tier, String outcome) {
+        return meterRegistry.get(CompanyRateLimiter.DECISIONS_NAME)
+                .tag("limiter", CompanyRateLimiter.LIMITER)
+                .tag("tier", tier)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
@@ -4,21 +4,36 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zenjob.challenge.admission.CompanyRateLimiter;
+import com.zenjob.challenge.constants.APIConstants;
+import com.zenjob.challenge.constants.ErrorMessages;
 import com.zenjob.challenge.entity.Job;
 import com.zenjob.challenge.exceptions.GlobalExceptionHandler;
+import com.zenjob.challenge.dto.JobCancellationStatus;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import com.zenjob.challenge.service.JobCancellationTracker;
 import com.zenjob.challenge.service.JobService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import javax.validation.Validator;
+
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
 import java.util.UUID;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -30,6 +45,18 @@ public class JobControllerTest {
     @Mock
     JobService jobService;
 
+    @Mock
+    Validator validator;
+
+    @Mock
+    JobCancellationTracker jobCancellationTracker;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Mock
+    CompanyRateLimiter companyRateLimiter;
+
     @InjectMocks
     GlobalExceptionHandler exceptionHandler;
 
@@ -93,8 +120,8 @@ public class JobControllerTest {
     public void testIfAllFieldsAreValidThenResponse200() throws Exception {
         String content = "{\n" +
                 " \"companyId\" : \"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
-                " \"start\" : \"2020-09-22T15:10:00.176362\",\n" +
-                " \"end\" : \"2020-09-22T20:00:00.196362\"\n" +
+                " \"start\" : \"2100-09-22T15:10:00.176362\",\n" +
+                " \"end\" : \"2100-09-22T20:00:00.196362\"\n" +
                 "}";
         Job job = Job.builder().build();
         when(jobService.createJob(any(UUID.class), any(LocalDateTime.class), any(LocalDateTime.class)))
@@ -105,6 +132,24 @@ public class JobControllerTest {
         ).andExpect(status().isOk());
     }
 
+    @Test
+    public void testIfCompanySentTooManyRequestsThenResponse429WithRetryAfter() throws Exception {
+        String content = "{\n" +
+                " \"companyId\" : \"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
+                " \"start\" : \"2099-09-22T15:10:00.176362\",\n" +
+                " \"end\" : \"2099-09-22T20:00:00.196362\"\n" +
+                "}";
+        doThrow(new TooManyRequestsException(ErrorMessages.RATE_LIMIT_EXCEEDED, 3))
+                .when(companyRateLimiter).acquire(any(UUID.class), eq(1));
+        mockMvc.perform(post("/job")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content)
+        ).andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(jsonPath("$.errors[0].message").value(ErrorMessages.RATE_LIMIT_EXCEEDED));
+        verify(jobService, never()).createJob(any(UUID.class), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
     @Test
     public void testIfJobIdToBeCancelledIsInvalidThenReturn400() throws Exception {
         mockMvc.perform(delete("/job/123344")
@@ -117,4 +162,247 @@ public class JobControllerTest {
         ).andExpect(status().isNoContent());
     }
 
+    @Test
+    public void testIfJobIsCancelledAsynchronouslyThenReturn202() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(jobCancellationTracker.submit(jobId)).thenReturn(JobCancellationStatus.builder()
+                .jobId(jobId)
+                .state(JobCancellationStatus.State.PENDING)
+                .build());
+        mockMvc.perform(delete("/job/" + jobId).param("async", "true")
+        ).andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/job/" + jobId + "/cancellation"))
+                .andExpect(jsonPath("$.data.state").value("PENDING"));
+        verify(jobService, never()).cancelJob(jobId);
+    }
+
+    @Test
+    public void testIfJobToBeCancelledAsynchronouslyIsNotPresentThenReturn400() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(jobCancellationTracker.submit(jobId)).thenThrow(new ConstraintViolationException(ErrorMessages.JOB_ID_NOT_PRESENT));
+        mockMvc.perform(delete("/job/" + jobId).param("async", "true")
+        ).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testIfCancellationIsCompletedThenItsStatusIsReturned() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(jobCancellationTracker.statusOf(jobId)).thenReturn(Optional.of(JobCancellationStatus.builder()
+                .jobId(jobId)
+                .state(JobCancellationStatus.State.COMPLETED)
+                .shiftsRemoved(365)
+                .build()));
+        mockMvc.perform(get("/job/" + jobId + "/cancellation")
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.data.shiftsRemoved").value(365));
+    }
+
+    @Test
+    public void testIfNoCancellationIsKnownThenReturn400() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(jobCancellationTracker.statusOf(jobId)).thenReturn(Optional.empty());
+        mockMvc.perform(get("/job/" + jobId + "/cancellation")
+        ).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testIfBatchContainsInvalidJobThenOnlyValidJobsAreCreated() throws Exception {
+        String content = "[{\n" +
+                " \"companyId\" : \"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
+                " \"start\" : \"2099-09-22T15:10:00.176362\",\n" +
+                " \"end\" : \"2099-09-24T20:00:00.196362\"\n" +
+                "}, {\n" +
+                " \"companyId\" : \"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
+                " \"start\" : \"2099-09-22T10:10:00.176362\",\n" +
+                " \"end\" : \"2099-09-22T20:00:00.196362\"\n" +
+                "}]";
+        UUID jobId = UUID.randomUUID();
+        when(jobService.createJobs(anyList()))
+                .thenReturn(Collections.singletonList(Job.builder().id(jobId).build()));
+        mockMvc.perform(post("/job/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content)
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.jobs[0].jobId").value(jobId.toString()))
+                .andExpect(jsonPath("$.data.jobs[0].errors").isEmpty())
+                .andExpect(jsonPath("$.data.jobs[1].jobId").doesNotExist())
+                .andExpect(jsonPath("$.data.jobs[1].errors[0].message").value(ErrorMessages.SHIFT_TIMING_RANGE_INVALID));
+        verify(jobService, times(1)).createJobs(anyList());
+    }
+
+    @Test
+    public void testIfBatchHasNoValidJobThenNoJobIsCreated() throws Exception {
+        String content = "[{\n" +
+                " \"companyId\" : \"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
+                " \"start\" : \"2099-09-22T10:10:00.176362\",\n" +
+                " \"end\" : \"2099-09-22T20:00:00.196362\"\n" +
+                "}]";
+        mockMvc.perform(post("/job/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content)
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.jobs[0].errors[0].message").value(ErrorMessages.SHIFT_TIMING_RANGE_INVALID));
+        verify(jobService, never()).createJobs(anyList());
+    }
+
+    @Test
+    public void testIfBatchHasTooManyJobsThenResponse400() throws Exception {
+        StringBuilder content = new StringBuilder("[");
+        for (int idx = 0; idx <= APIConstants.MAX_BATCH_SIZE; idx++) {
+            content.append(idx == 0 ? "" : ",")
+                    .append("{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-22T15:10:00\",\"end\":\"2099-09-24T20:00:00\"}");
+        }
+        content.append("]");
+        mockMvc.perform(post("/job/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content.toString())
+        ).andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].message").value(ErrorMessages.BATCH_SIZE_INVALID));
+        verify(jobService, never()).createJobs(anyList());
+    }
+
+    @Test
+    public void testIfBatchJobHasTooManyDaysThenItIsRejected() throws Exception {
+        String content = "[{\n" +
+                " \"companyId\" : \"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
+                " \"start\" : \"2099-09-22T15:10:00\",\n" +
+                " \"end\" : \"5099-09-22T20:00:00\"\n" +
+                "}]";
+        mockMvc.perform(post("/job/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content)
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.jobs[0].errors[0].message").value(ErrorMessages.SHIFT_END_DATE_TIME_INVALID));
+        verify(jobService, never()).createJobs(anyList());
+    }
+
+    @Test
+    public void testIfCompanyOfBatchSentTooManyRequestsThenItsJobsAreRejected() throws Exception {
+        String content = "[{\n" +
+                " \"companyId\" : \"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
+                " \"start\" : \"2099-09-22T15:10:00.176362\",\n" +
+                " \"end\" : \"2099-09-24T20:00:00.196362\"\n" +
+                "}, {\n" +
+                " \"companyId\" : \"D56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
+                " \"start\" : \"2099-09-22T15:10:00.176362\",\n" +
+                " \"end\" : \"2099-09-24T20:00:00.196362\"\n" +
+                "}, {\n" +
+                " \"companyId\" : \"D56A4180-65AA-42EC-A945-5FD21DEC0538\",\n" +
+                " \"start\" : \"2099-09-25T15:10:00.176362\",\n" +
+                " \"end\" : \"2099-09-26T20:00:00.196362\"\n" +
+                "}]";
+        UUID jobId = UUID.randomUUID();
+        when(companyRateLimiter.tryAcquire(UUID.fromString("D56A4180-65AA-42EC-A945-5FD21DEC0538"), 2)).thenReturn(1L);
+        when(jobService.createJobs(anyList()))
+                .thenReturn(Collections.singletonList(Job.builder().id(jobId).build()));
+        mockMvc.perform(post("/job/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content)
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.jobs[0].jobId").value(jobId.toString()))
+                .andExpect(jsonPath("$.data.jobs[1].jobId").doesNotExist())
+                .andExpect(jsonPath("$.data.jobs[1].errors[0].message").value(ErrorMessages.RATE_LIMIT_EXCEEDED))
+                .andExpect(jsonPath("$.data.jobs[2].errors[0].message").value(ErrorMessages.RATE_LIMIT_EXCEEDED));
+        verify(jobService, times(1)).createJobs(argThat(jobs -> jobs.size() == 1));
+    }
+
+    @Test
+    public void testIfNdjsonIsImportedThenInvalidLinesAreReported() throws Exception {
+        String content = "{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-22T10:00:00\",\"end\":\"2099-09-23T14:00:00\"}\n" +
+                "{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-22T10:00:00\",\"end\":\"2099-09-23T20:00:00\"}\n" +
+                "\n" +
+                "not a job\n" +
+                "{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-24T10:00:00\",\"end\":\"2099-09-24T14:00:00\"}\n";
+        mockMvc.perform(post("/job/import")
+                .contentType(APIConstants.APPLICATION_NDJSON_VALUE)
+                .content(content)
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported").value(2))
+                .andExpect(jsonPath("$.data.rejected").value(2))
+                .andExpect(jsonPath("$.data.errors[0].line").value(2))
+                .andExpect(jsonPath("$.data.errors[0].errors[0].message").value(ErrorMessages.SHIFT_TIMING_RANGE_INVALID))
+                .andExpect(jsonPath("$.data.errors[1].line").value(4))
+                .andExpect(jsonPath("$.data.errors[1].errors[0].message").value(ErrorMessages.IMPORT_RECORD_INVALID));
+        verify(jobService, times(1)).createJobs(anyList());
+    }
+
+    @Test
+    public void testIfCsvIsImportedThenJobsAreCreatedInChunks() throws Exception {
+        StringBuilder content = new StringBuilder("companyId,start,end\n");
+        for (int idx = 0; idx < APIConstants.IMPORT_CHUNK_SIZE + 1; idx++) {
+            content.append(UUID.randomUUID()).append(",2099-09-22T10:00:00,2099-09-22T14:00:00\n");
+        }
+        content.append("not-a-uuid,2099-09-22T10:00:00,2099-09-22T14:00:00\n")
+                .append(UUID.randomUUID()).append(",2099-09-22,2099-09-22T14:00:00\n")
+                .append("one,column\n");
+        mockMvc.perform(post("/job/import")
+                .contentType(APIConstants.TEXT_CSV_VALUE)
+                .content(content.toString())
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported").value(APIConstants.IMPORT_CHUNK_SIZE + 1))
+                .andExpect(jsonPath("$.data.rejected").value(3))
+                .andExpect(jsonPath("$.data.errors[0].line").value(APIConstants.IMPORT_CHUNK_SIZE + 3))
+                .andExpect(jsonPath("$.data.errors[0].errors[0].message").value(ErrorMessages.COMPANY_ID_INVALID))
+                .andExpect(jsonPath("$.data.errors[1].errors[0].message").value(ErrorMessages.SHIFT_START_DATE_TIME_INVALID))
+                .andExpect(jsonPath("$.data.errors[2].errors[0].message").value(ErrorMessages.IMPORT_RECORD_INVALID));
+        verify(jobService, times(2)).createJobs(anyList());
+    }
+
+    @Test
+    public void testIfImportHasTooLongLineOrTooManyDaysThenLinesAreReported() throws Exception {
+        String content = "{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-22T10:00:00\",\"end\":\"2099-09-23T14:00:00\"}\r\n" +
+                "{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-22T10:00:00\",\"end\":\"5099-09-22T14:00:00\"}\r\n" +
+                "{\"companyId\":\"" + "C".repeat(APIConstants.MAX_IMPORT_RECORD_LENGTH) + "\"}\r\n" +
+                "{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-24T10:00:00\",\"end\":\"2099-09-24T14:00:00\"}";
+        mockMvc.perform(post("/job/import")
+                .contentType(APIConstants.APPLICATION_NDJSON_VALUE)
+                .content(content)
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported").value(2))
+                .andExpect(jsonPath("$.data.rejected").value(2))
+                .andExpect(jsonPath("$.data.errors[0].line").value(2))
+                .andExpect(jsonPath("$.data.errors[0].errors[0].message").value(ErrorMessages.SHIFT_END_DATE_TIME_INVALID))
+                .andExpect(jsonPath("$.data.errors[1].line").value(3))
+                .andExpect(jsonPath("$.data.errors[1].errors[0].message").value(ErrorMessages.IMPORT_RECORD_TOO_LONG));
+        verify(jobService, times(1)).createJobs(anyList());
+    }
+
+    @Test
+    public void testIfChunkOfImportIsNotAdmittedThenItsLinesAreReported() throws Exception {
+        StringBuilder content = new StringBuilder("companyId,start,end\n");
+        for (int idx = 0; idx < APIConstants.IMPORT_CHUNK_SIZE + 1; idx++) {
+            content.append(UUID.randomUUID()).append(",2099-09-22T10:00:00,2099-09-22T14:00:00\n");
+        }
+        when(jobService.createJobs(argThat(jobs -> jobs.size() == APIConstants.IMPORT_CHUNK_SIZE)))
+                .thenThrow(new TooManyRequestsException(ErrorMessages.TOO_MANY_CONCURRENT_REQUESTS, 1));
+        mockMvc.perform(post("/job/import")
+                .contentType(APIConstants.TEXT_CSV_VALUE)
+                .content(content.toString())
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported").value(1))
+                .andExpect(jsonPath("$.data.rejected").value(APIConstants.IMPORT_CHUNK_SIZE))
+                .andExpect(jsonPath("$.data.errors[0].line").value(2))
+                .andExpect(jsonPath("$.data.errors[0].errors[0].message").value(ErrorMessages.TOO_MANY_CONCURRENT_REQUESTS));
+        verify(jobService, times(2)).createJobs(anyList());
+    }
+
+    @Test
+    public void testIfCompanyOfImportSentTooManyRequestsThenItsLinesAreRejected() throws Exception {
+        String content = "{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-22T10:00:00\",\"end\":\"2099-09-23T14:00:00\"}\n" +
+                "{\"companyId\":\"D56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-22T10:00:00\",\"end\":\"2099-09-23T14:00:00\"}\n" +
+                "{\"companyId\":\"C56A4180-65AA-42EC-A945-5FD21DEC0538\",\"start\":\"2099-09-24T10:00:00\",\"end\":\"2099-09-24T14:00:00\"}\n";
+        when(companyRateLimiter.tryAcquire(UUID.fromString("C56A4180-65AA-42EC-A945-5FD21DEC0538"), 2)).thenReturn(1L);
+        mockMvc.perform(post("/job/import")
+                .contentType(APIConstants.APPLICATION_NDJSON_VALUE)
+                .content(content)
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported").value(1))
+                .andExpect(jsonPath("$.data.rejected").value(2))
+                .andExpect(jsonPath("$.data.errors[0].line").value(1))
+                .andExpect(jsonPath("$.data.errors[0].errors[0].message").value(ErrorMessages.RATE_LIMIT_EXCEEDED))
+                .andExpect(jsonPath("$.data.errors[1].line").value(3))
+                .andExpect(jsonPath("$.data.errors[1].errors[0].message").value(ErrorMessages.RATE_LIMIT_EXCEEDED));
+        verify(jobService, times(1)).createJobs(argThat(jobs -> jobs.size() == 1));
+    }
 }
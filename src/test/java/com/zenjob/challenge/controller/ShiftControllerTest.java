@@ -1,20 +1,41 @@
 package com.zenjob.challenge.controller;
 
+import com.zenjob.challenge.admission.CompanyRateLimiter;
+import com.zenjob.challenge.constants.APIConstants;
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.exceptions.ConflictException;
 import com.zenjob.challenge.exceptions.GlobalExceptionHandler;
+import com.zenjob.challenge.service.BookingCoordinator;
 import com.zenjob.challenge.service.JobService;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Consumer;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.mockito.Mockito.*;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 public class ShiftControllerTest {
@@ -25,6 +46,17 @@ public class ShiftControllerTest {
     @Mock
     JobService jobService;
 
+    @Mock
+    BookingCoordinator bookingCoordinator;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Mock
+    CompanyRateLimiter companyRateLimiter;
+
     @InjectMocks
     GlobalExceptionHandler exceptionHandler;
 
@@ -68,4 +100,117 @@ public class ShiftControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void testBookTalentByValidShiftIdThenResponse204() throws Exception {
+        UUID shiftId = UUID.randomUUID();
+        UUID talentId = UUID.fromString("c56a4180-65aa-42ec-a945-5fd21dec0538");
+        String body = "{\n" +
+                "    \"talent\" : \"" + talentId + "\"\n" +
+                "}";
+        mockMvc.perform(patch("/shift/" + shiftId + "/book").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isNoContent());
+        verify(bookingCoordinator).book(shiftId, talentId);
+    }
+
+    @Test
+    public void testBookTalentWhenShiftIsModifiedConcurrentlyThenResponse409() throws Exception {
+        String body = "{\n" +
+                "    \"talent\" : \"c56a4180-65aa-42ec-a945-5fd21dec0538\"\n" +
+                "}";
+        doThrow(new ConflictException(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY))
+                .when(bookingCoordinator).book(any(UUID.class), any(UUID.class));
+        mockMvc.perform(patch("/shift/" + UUID.randomUUID() + "/book").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testGetShiftsWithInvalidCursorThenResponse400() throws Exception {
+        mockMvc.perform(get("/shift/" + UUID.randomUUID()).param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetShiftsWithInvalidLimitThenResponse400() throws Exception {
+        mockMvc.perform(get("/shift/" + UUID.randomUUID()).param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetShiftsWithLimitThenResponseContainsNextCursor() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        ShiftView first = new ShiftView(UUID.randomUUID(), null, jobId, Instant.parse("2020-07-20T08:00:00Z"), Instant.parse("2020-07-20T12:00:00Z"));
+        ShiftView second = new ShiftView(UUID.randomUUID(), null, jobId, Instant.parse("2020-07-21T08:00:00Z"), Instant.parse("2020-07-21T12:00:00Z"));
+        when(jobService.getShiftViews(eq(jobId), isNull(), eq(2))).thenReturn(Arrays.asList(first, second));
+        mockMvc.perform(get("/shift/" + jobId).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.shifts.length()").value(1))
+                .andExpect(jsonPath("$.data.shifts[0].id").value(first.getId().toString()))
+                .andExpect(jsonPath("$.data.nextCursor").value(ShiftCursor.after(first).encode()));
+    }
+
+    @Test
+    public void testStreamShiftsThenResponseHasOneShiftPerLine() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        ShiftView first = new ShiftView(UUID.randomUUID(), null, jobId, Instant.parse("2020-07-20T08:00:00Z"), Instant.parse("2020-07-20T12:00:00Z"));
+        ShiftView second = new ShiftView(UUID.randomUUID(), UUID.randomUUID(), jobId, Instant.parse("2020-07-21T08:00:00Z"), Instant.parse("2020-07-21T12:00:00Z"));
+        doAnswer(invocation -> {
+            Consumer<ShiftView> consumer = invocation.getArgument(1);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(jobService).streamShifts(eq(jobId), any());
+
+        MvcResult result = mockMvc.perform(get("/shift/" + jobId + "/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        Assert.assertEquals(2, lines.length);
+        Assert.assertEquals(first.getId().toString(), objectMapper.readTree(lines[0]).get("id").asText());
+        Assert.assertEquals("2020-07-21T08:00:00Z", objectMapper.readTree(lines[1]).get("start").asText());
+    }
+
+    @Test
+    public void testExportShiftsAsCsvThenResponseHasHeaderAndOneShiftPerLine() throws Exception {
+        UUID companyId = UUID.randomUUID();
+        ShiftView first = new ShiftView(UUID.randomUUID(), null, UUID.randomUUID(), Instant.parse("2020-07-20T08:00:00Z"), Instant.parse("2020-07-20T12:00:00Z"));
+        ShiftView second = new ShiftView(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), Instant.parse("2020-07-21T08:00:00Z"), Instant.parse("2020-07-21T12:00:00Z"));
+        doAnswer(invocation -> {
+            Consumer<ShiftView> consumer = invocation.getArgument(3);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(jobService).streamShiftsOfCompany(eq(companyId), eq(Instant.parse("2020-07-01T00:00:00Z")),
+                eq(Instant.parse("2020-08-01T00:00:00Z")), any());
+
+        MvcResult result = mockMvc.perform(get("/shift/export")
+                .param("companyId", companyId.toString())
+                .param("from", "2020-07-01T00:00:00")
+                .param("to", "2020-08-01T00:00:00")
+                .accept(APIConstants.TEXT_CSV_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        Assert.assertEquals(3, lines.length);
+        Assert.assertEquals("id,talentId,jobId,start,end", lines[0]);
+        Assert.assertEquals(first.getId() + ",," + first.getJobId() + ",2020-07-20T08:00:00Z,2020-07-20T12:00:00Z", lines[1]);
+        Assert.assertTrue(lines[2].startsWith(second.getId() + "," + second.getTalentId() + ","));
+    }
+
+    @Test
+    public void testExportShiftsWithEmptyRangeThenResponse400() throws Exception {
+        mockMvc.perform(get("/shift/export")
+                .param("companyId", UUID.randomUUID().toString())
+                .param("from", "2020-08-01T00:00:00")
+                .param("to", "2020-08-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].message").value(ErrorMessages.TIME_RANGE_INVALID));
+        verify(jobService, never()).streamShiftsOfCompany(any(), any(), any(), any());
+    }
+
 }
@@ -0,0 +1,93 @@
+package com.zenjob.challenge.controller;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.exceptions.GlobalExceptionHandler;
+import com.zenjob.challenge.service.JobService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class TalentControllerTest {
+
+    private static final Instant FROM = Instant.parse("2020-07-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2020-08-01T00:00:00Z");
+
+    @InjectMocks
+    TalentController talentController;
+
+    @Mock
+    JobService jobService;
+
+    @InjectMocks
+    GlobalExceptionHandler exceptionHandler;
+
+    MockMvc mockMvc;
+
+    @Before
+    public void initializeTests() {
+        mockMvc = MockMvcBuilders.standaloneSetup(talentController)
+                .setControllerAdvice(exceptionHandler)
+                .build();
+    }
+
+    @Test
+    public void testGetTalentShiftsWithLimitThenResponseHasNextCursor() throws Exception {
+        UUID talentId = UUID.randomUUID();
+        ShiftView first = new ShiftView(UUID.randomUUID(), talentId, UUID.randomUUID(), Instant.parse("2020-07-20T08:00:00Z"), Instant.parse("2020-07-20T12:00:00Z"));
+        ShiftView second = new ShiftView(UUID.randomUUID(), talentId, UUID.randomUUID(), Instant.parse("2020-07-21T08:00:00Z"), Instant.parse("2020-07-21T12:00:00Z"));
+        when(jobService.getTalentShiftViews(talentId, FROM, TO, null, 2)).thenReturn(Arrays.asList(first, second));
+
+        mockMvc.perform(get("/talent/" + talentId + "/shifts")
+                .param("from", "2020-07-01T00:00:00")
+                .param("to", "2020-08-01T00:00:00")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.shifts.length()").value(1))
+                .andExpect(jsonPath("$.data.shifts[0].id").value(first.getId().toString()))
+                .andExpect(jsonPath("$.data.shifts[0].jobId").value(first.getJobId().toString()))
+                .andExpect(jsonPath("$.data.nextCursor").value(ShiftCursor.after(first).encode()));
+    }
+
+    @Test
+    public void testGetTalentShiftsWithCursorThenNextPageIsRead() throws Exception {
+        UUID talentId = UUID.randomUUID();
+        ShiftCursor cursor = new ShiftCursor(Instant.parse("2020-07-20T08:00:00Z"), UUID.randomUUID());
+
+        mockMvc.perform(get("/talent/" + talentId + "/shifts")
+                .param("from", "2020-07-01T00:00:00")
+                .param("to", "2020-08-01T00:00:00")
+                .param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.shifts").isEmpty())
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+        verify(jobService).getTalentShiftViews(talentId, FROM, TO, cursor, 101);
+    }
+
+    @Test
+    public void testGetTalentShiftsWithInvalidRangeThenResponse400() throws Exception {
+        mockMvc.perform(get("/talent/" + UUID.randomUUID() + "/shifts")
+                .param("from", "2020-08-01T00:00:00")
+                .param("to", "2020-07-01T00:00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].message").value(ErrorMessages.TIME_RANGE_INVALID));
+        verifyNoInteractions(jobService);
+    }
+}
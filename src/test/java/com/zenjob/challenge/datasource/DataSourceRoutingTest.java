@@ -0,0 +1,157 @@
+package com.zenjob.challenge.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.repository.UuidBytes;
+import com.zenjob.challenge.service.JobService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * This test routes the service to two in-memory databases standing in for the primary and the replica,
+ * rows are copied to the replica by the test when it has to see them,
+ * the written ids expire by advancing the clock of the service past the sticky time
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(properties = {
+        "datasource-routing.enabled=true",
+        "datasource-routing.sticky-millis=300",
+        "datasource-routing.replica-retry-millis=60000",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "spring.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.username=zenjob",
+        "spring.datasource.replica.password=challenge",
+        "spring.datasource.replica.connection-timeout=250"
+})
+public class DataSourceRoutingTest {
+
+    @Autowired
+    JobService jobService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    HikariDataSource replicaDataSource;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    AdjustableClock clock;
+
+    @Before
+    public void initialize() {
+        Flyway.configure().dataSource(replicaDataSource).load().migrate();
+    }
+
+    @Test
+    public void testIfJobWasWrittenThenItIsReadFromThePrimaryUntilTheReplicaIsUsedAgain() {
+        double replicaReads = routed("replica", "read");
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-06-01T08:00:00"), LocalDateTime.parse("2100-06-02T12:00:00"));
+
+        Assert.assertEquals(1, count(primaryDataSource, job), 0);
+        Assert.assertEquals(0, count(replicaDataSource, job), 0);
+        Assert.assertTrue(jobService.jobExists(job.getId()));
+        Assert.assertEquals(2, jobService.getShiftViews(job.getId()).size());
+
+        clock.advance(Duration.ofMillis(400));
+        Assert.assertFalse(jobService.jobExists(job.getId()));
+        replicate(job);
+        Assert.assertTrue(jobService.jobExists(job.getId()));
+        Assert.assertEquals(2, routed("replica", "read") - replicaReads, 0);
+        Assert.assertTrue(routed("primary", "read-your-writes") >= 2);
+    }
+
+    @Test
+    @DirtiesContext
+    public void testIfReplicaIsUnavailableThenReadsFallBackToThePrimary() {
+        double fallbacks = routed("primary", "replica-unavailable");
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-07-01T08:00:00"), LocalDateTime.parse("2100-07-02T12:00:00"));
+        clock.advance(Duration.ofMillis(400));
+
+        replicaDataSource.close();
+
+        Assert.assertTrue(jobService.jobExists(job.getId()));
+        Assert.assertTrue(jobService.jobExists(job.getId()));
+        Assert.assertEquals(2, routed("primary", "replica-unavailable") - fallbacks, 0);
+    }
+
+    private static long count(HikariDataSource dataSource, Job job) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM job_process WHERE id = ?", Long.class, UuidBytes.of(job.getId()));
+    }
+
+    private void replicate(Job job) {
+        new SimpleJdbcInsert(replicaDataSource).withTableName("job_process")
+                .execute(new JdbcTemplate(primaryDataSource).queryForMap("SELECT * FROM job_process WHERE id = ?", UuidBytes.of(job.getId())));
+    }
+
+    private double routed(String target, String reason) {
+        return meterRegistry.get(ReadWriteRoutingDataSource.ROUTED_NAME)
+                .tag("target", target)
+                .tag("reason", reason)
+                .functionCounter()
+                .count();
+    }
+
+    @TestConfiguration
+    static class AdjustableClockConfig {
+
+        @Bean
+        @Primary
+        AdjustableClock adjustableClock() {
+            return new AdjustableClock();
+        }
+    }
+
+    /**
+     * This clock runs with the system clock and can be moved forward by the test
+     */
+    static class AdjustableClock extends Clock {
+
+        private volatile Duration offset = Duration.ZERO;
+
+        void advance(Duration duration) {
+            offset = offset.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.now().plus(offset);
+        }
+    }
+}
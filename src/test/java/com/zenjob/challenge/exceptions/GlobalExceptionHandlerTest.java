@@ -0,0 +1,82 @@
+package com.zenjob.challenge.exceptions;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.Error;
+import com.zenjob.challenge.dto.Errors;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GlobalExceptionHandlerTest {
+
+    GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    public void testIfRejectionIsPreallocatedThenItIsSharedAndStackless() {
+        ConstraintViolationException exception = ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT);
+
+        Assert.assertSame(exception, ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT));
+        Assert.assertSame(ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY), ConflictException.of(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY));
+        Assert.assertEquals(0, exception.getStackTrace().length);
+        Assert.assertNotSame(ConstraintViolationException.of("custom"), ConstraintViolationException.of("custom"));
+    }
+
+    @Test
+    public void testIfRejectionIsHandledThenResponseIsShared() {
+        Errors errors = handler.handleConstraintViolationExceptions(ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT));
+
+        Assert.assertSame(errors, handler.handleConstraintViolationExceptions(ConstraintViolationException.of(ErrorMessages.SHIFT_NOT_PRESENT)));
+        Assert.assertEquals(ErrorMessages.SHIFT_NOT_PRESENT, errors.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    public void testIfRequestIsNotAdmittedThenResponse429WithRetryAfter() {
+        ResponseEntity<Errors> response = handler.handleTooManyRequestsExceptions(new TooManyRequestsException(ErrorMessages.RATE_LIMIT_EXCEEDED, 4));
+
+        Assert.assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        Assert.assertEquals("4", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assert.assertEquals(ErrorMessages.RATE_LIMIT_EXCEEDED, response.getBody().getErrors().get(0).getMessage());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIfResponseIsSharedThenItCannotBeModified() {
+        Errors errors = Errors.of(ErrorMessages.SHIFT_NOT_PRESENT);
+
+        errors.getErrors().add(new Error(ErrorMessages.JOB_ID_NOT_PRESENT));
+    }
+
+    @Test
+    public void testIfRejectionsAreHandledConcurrentlyThenEveryResponseHasItsOwnMessage() throws Exception {
+        String[] messages = {ErrorMessages.SHIFT_NOT_PRESENT, ErrorMessages.JOB_ID_NOT_PRESENT, ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID, "custom"};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int idx = 0; idx < 8; idx++) {
+                results.add(executor.submit((Callable<Boolean>) () -> {
+                    for (int run = 0; run < 10_000; run++) {
+                        String message = messages[run % messages.length];
+                        Errors errors = handler.handleConflictExceptions(ConflictException.of(message));
+                        if (!message.equals(errors.getErrors().get(0).getMessage())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.zenjob.challenge.metrics;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.service.JobService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PersistenceMetricsTest {
+
+    @Autowired
+    JobService jobService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void testIfJobServiceOperationsAreTimedWithTheirOutcome() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-03-01T08:00:00"), LocalDateTime.parse("2100-03-02T12:00:00"));
+        List<Shift> shifts = jobService.getShifts(job.getId());
+        jobService.cancelShiftByShiftId(shifts.get(0).getId());
+        try {
+            jobService.cancelShiftByShiftId(shifts.get(1).getId());
+            Assert.fail("the last shift of a job must not be cancelled");
+        } catch (ConstraintViolationException e) {
+            // expected
+        }
+
+        Timer succeeded = meterRegistry.get(JobServiceMetricsAspect.TIMER_NAME)
+                .tags("operation", "cancelShiftByShiftId", "outcome", "success", "reason", "none")
+                .timer();
+        Timer rejected = meterRegistry.get(JobServiceMetricsAspect.TIMER_NAME)
+                .tags("operation", "cancelShiftByShiftId", "outcome", "rejected", "reason", "SHIFT_NOT_CANCELLABLE")
+                .timer();
+        Assert.assertTrue(succeeded.count() >= 1);
+        Assert.assertTrue(rejected.count() >= 1);
+    }
+
+    @Test
+    public void testIfStatementsAndEntitiesArePerOperation() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-04-01T08:00:00"), LocalDateTime.parse("2100-04-10T12:00:00"));
+        double statementsBefore = total(JobServiceMetricsAspect.STATEMENTS_NAME);
+        double entitiesBefore = total(JobServiceMetricsAspect.ENTITIES_NAME);
+
+        Assert.assertEquals(10, jobService.getShifts(job.getId()).size());
+
+        // the job and its stored shifts are read with one statement each, the other shifts are generated
+        Assert.assertEquals(2, total(JobServiceMetricsAspect.STATEMENTS_NAME) - statementsBefore, 0);
+        Assert.assertEquals(1, total(JobServiceMetricsAspect.ENTITIES_NAME) - entitiesBefore, 0);
+    }
+
+    @Test
+    public void testIfStatementsArePerRequest() throws Exception {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-05-01T08:00:00"), LocalDateTime.parse("2100-05-03T12:00:00"));
+        mockMvc.perform(get("/shift/" + job.getId()).param("limit", "2"))
+                .andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.get(PersistenceActivityFilter.STATEMENTS_NAME)
+                .tags("method", "GET", "uri", "/shift/{jobId}", "status", "200")
+                .summary();
+        Assert.assertTrue(statements.count() >= 1);
+        Assert.assertTrue(statements.max() >= 1);
+    }
+
+    @Test
+    public void testIfHibernateAndConnectionPoolMetricsAreBound() {
+        Assert.assertNotNull(meterRegistry.find("hibernate.statements").functionCounter());
+        Assert.assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer());
+    }
+
+    private double total(String name) {
+        DistributionSummary summary = meterRegistry.find(name).tag("operation", "getShifts").summary();
+        return summary == null ? 0 : summary.totalAmount();
+    }
+}
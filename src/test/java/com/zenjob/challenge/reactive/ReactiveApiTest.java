@@ -0,0 +1,313 @@
+package com.zenjob.challenge.reactive;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = ReactiveApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.main.web-application-type=reactive", "substitution.candidates=" + ReactiveApiTest.CANDIDATE_ID + "," + ReactiveApiTest.OTHER_CANDIDATE_ID})
+@ActiveProfiles(ReactiveApplication.PROFILE)
+public class ReactiveApiTest {
+
+    static final String CANDIDATE_ID = "5f0c5b0e-3c1d-4a8e-9c53-2f7d6f1a9b10";
+    static final String OTHER_CANDIDATE_ID = "8d4e2a61-7b3f-4f0c-a5e9-1c6b0d2f3a47";
+
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON = new ParameterizedTypeReference<Map<String, Object>>() {
+    };
+
+    @LocalServerPort
+    int port;
+
+    WebTestClient webTestClient;
+
+    @Before
+    public void initialize() {
+        webTestClient = WebTestClient.bindToServer()
+                .baseUrl(baseUrl())
+                .build();
+    }
+
+    @Test
+    public void testIfJobIsCreatedThenOneShiftPerDayIsListed() {
+        String jobId = createJob("2100-01-01T08:00:00", "2100-01-05T12:00:00");
+
+        webTestClient.get().uri("/shift/{jobId}", jobId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.shifts.length()").isEqualTo(5)
+                .jsonPath("$.data.shifts[0].jobId").isEqualTo(jobId)
+                .jsonPath("$.data.shifts[0].start").isEqualTo("2100-01-01T08:00:00Z")
+                .jsonPath("$.data.shifts[4].end").isEqualTo("2100-01-05T12:00:00Z");
+    }
+
+    @Test
+    public void testIfShiftTimingsAreInvalidThenResponse400() {
+        webTestClient.post().uri("/job")
+                .bodyValue(jobRequest(UUID.randomUUID().toString(), "2100-01-01T08:00:00", "2100-01-05T18:00:00"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.SHIFT_TIMING_RANGE_INVALID);
+    }
+
+    @Test
+    public void testIfCompanyIsMissingThenResponse400() {
+        webTestClient.post().uri("/job")
+                .bodyValue(jobRequest(null, "2100-01-01T08:00:00", "2100-01-05T12:00:00"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.COMPANY_ID_INVALID);
+    }
+
+    @Test
+    public void testIfJobIdIsInvalidThenResponse400() {
+        webTestClient.get().uri("/shift/{jobId}", "not-a-uuid")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0].message").isEqualTo("value 'not-a-uuid' provided is Invalid");
+    }
+
+    @Test
+    public void testIfShiftsArePagedThenEveryShiftIsListedOnce() {
+        String jobId = createJob("2100-02-01T08:00:00", "2100-02-05T12:00:00");
+
+        Map<String, Object> first = getShiftPage(jobId, null);
+        Map<String, Object> second = getShiftPage(jobId, (String) first.get("nextCursor"));
+        Map<String, Object> third = getShiftPage(jobId, (String) second.get("nextCursor"));
+
+        Assert.assertEquals(2, ((List<?>) first.get("shifts")).size());
+        Assert.assertEquals(2, ((List<?>) second.get("shifts")).size());
+        Assert.assertEquals(1, ((List<?>) third.get("shifts")).size());
+        Assert.assertNull(third.get("nextCursor"));
+    }
+
+    @Test
+    public void testIfShiftsAreStreamedThenEveryShiftIsWrittenAsOneLine() {
+        String jobId = createJob("2100-03-01T08:00:00", "2101-02-28T12:00:00");
+
+        List<Map<String, Object>> shifts = webTestClient.get().uri("/shift/{jobId}/stream", jobId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(JSON)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        Assert.assertEquals(365, shifts.size());
+        Assert.assertEquals("2100-03-01T08:00:00Z", shifts.get(0).get("start"));
+        Assert.assertEquals("2101-02-28T08:00:00Z", shifts.get(364).get("start"));
+    }
+
+    @Test
+    public void testIfTalentHasNoBreakBetweenShiftsThenBookingIsRejected() {
+        String morningShift = firstShiftId(createJob("2100-04-01T08:00:00", "2100-04-01T12:00:00"));
+        String afternoonShift = firstShiftId(createJob("2100-04-01T14:00:00", "2100-04-01T18:00:00"));
+        String nextDayShift = firstShiftId(createJob("2100-04-02T08:00:00", "2100-04-02T12:00:00"));
+        UUID talentId = UUID.randomUUID();
+
+        book(morningShift, talentId).expectStatus().isNoContent();
+        book(morningShift, talentId).expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.TALENT_ALREADY_WORKING_FOR_PROVIDED_SHIFT);
+        book(afternoonShift, talentId).expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID);
+        book(nextDayShift, talentId).expectStatus().isNoContent();
+    }
+
+    @Test
+    public void testIfTalentIsBookedConcurrentlyThenOnlyOneBookingSucceeds() {
+        List<String> shiftIds = Flux.range(0, 16)
+                .map(idx -> firstShiftId(createJob("2100-05-01T08:00:00", "2100-05-01T12:00:00")))
+                .collectList()
+                .block();
+        UUID talentId = UUID.randomUUID();
+        WebClient webClient = WebClient.create(baseUrl());
+
+        List<HttpStatus> statuses = Flux.fromIterable(shiftIds)
+                .flatMap(shiftId -> webClient.patch().uri("/shift/{id}/book", shiftId)
+                        .bodyValue(Collections.singletonMap("talent", talentId))
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode())))
+                .collectList()
+                .block();
+
+        Assert.assertEquals(1, statuses.stream().filter(HttpStatus.NO_CONTENT::equals).count());
+        Assert.assertEquals(15, statuses.stream().filter(HttpStatus.BAD_REQUEST::equals).count());
+    }
+
+    @Test
+    public void testIfLastShiftOfJobIsCancelledThenResponse400() {
+        String jobId = createJob("2100-06-01T08:00:00", "2100-06-02T12:00:00");
+        List<String> shiftIds = shiftIds(jobId);
+
+        webTestClient.delete().uri("/shift/{shiftId}", shiftIds.get(0))
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.delete().uri("/shift/{shiftId}", shiftIds.get(1))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.SHIFT_NOT_CANCELLABLE);
+        Assert.assertEquals(1, shiftIds(jobId).size());
+    }
+
+    @Test
+    public void testIfJobIsCancelledThenItsShiftsAreCancelled() {
+        String jobId = createJob("2100-07-01T08:00:00", "2100-07-10T12:00:00");
+
+        webTestClient.delete().uri("/job/{jobId}", jobId)
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.delete().uri("/job/{jobId}", jobId)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.JOB_ID_NOT_PRESENT);
+        Assert.assertTrue(shiftIds(jobId).isEmpty());
+    }
+
+    @Test
+    public void testIfTalentIsCancelledThenShiftsAreGivenToANewTalent() {
+        String jobId = createJob("2100-08-01T08:00:00", "2100-08-01T12:00:00");
+        UUID talentId = UUID.randomUUID();
+        book(shiftIds(jobId).get(0), talentId).expectStatus().isNoContent();
+
+        webTestClient.patch().uri("/shift/talent/{talentId}", talentId)
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.patch().uri("/shift/talent/{talentId}", talentId)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.NO_TALENT_WITH_SHIFT_PRESENT);
+        webTestClient.get().uri("/shift/{jobId}", jobId)
+                .exchange()
+                .expectBody()
+                .jsonPath("$.data.shifts[0].talentId").value(newTalentId -> Assert.assertNotEquals(talentId.toString(), newTalentId));
+    }
+
+    @Test
+    public void testIfTalentIsCancelledThenCandidateOnlyGetsShiftsWithSixHoursBreak() {
+        String jobId = createJob("2100-09-01T08:00:00", "2100-09-02T12:00:00");
+        String eveningShift = firstShiftId(createJob("2100-09-01T14:00:00", "2100-09-01T18:00:00"));
+        List<String> shiftIds = shiftIds(jobId);
+        UUID talentId = UUID.randomUUID();
+        book(shiftIds.get(0), talentId).expectStatus().isNoContent();
+        book(shiftIds.get(1), talentId).expectStatus().isNoContent();
+        book(eveningShift, UUID.fromString(CANDIDATE_ID)).expectStatus().isNoContent();
+
+        webTestClient.patch().uri("/shift/talent/{talentId}", talentId)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.get().uri("/shift/{jobId}", jobId)
+                .exchange()
+                .expectBody()
+                .jsonPath("$.data.shifts[0].talentId").isEqualTo(OTHER_CANDIDATE_ID)
+                .jsonPath("$.data.shifts[1].talentId").value(newTalentId -> Assert.assertNotEquals(talentId.toString(), newTalentId));
+    }
+
+    @Test
+    public void testIfNoCandidateCanWorkAShiftThenTalentKeepsTheShifts() {
+        String shiftId = firstShiftId(createJob("2100-10-01T08:00:00", "2100-10-01T12:00:00"));
+        book(firstShiftId(createJob("2100-10-01T14:00:00", "2100-10-01T18:00:00")), UUID.fromString(CANDIDATE_ID)).expectStatus().isNoContent();
+        book(firstShiftId(createJob("2100-10-01T15:00:00", "2100-10-01T19:00:00")), UUID.fromString(OTHER_CANDIDATE_ID)).expectStatus().isNoContent();
+        UUID talentId = UUID.randomUUID();
+        book(shiftId, talentId).expectStatus().isNoContent();
+
+        webTestClient.patch().uri("/shift/talent/{talentId}", talentId)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.NO_SUBSTITUTE_AVAILABLE);
+        webTestClient.patch().uri("/shift/talent/{talentId}", talentId)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errors[0].message").isEqualTo(ErrorMessages.NO_SUBSTITUTE_AVAILABLE);
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + port + "/backend-challenge";
+    }
+
+    private Map<String, Object> jobRequest(String companyId, String start, String end) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("companyId", companyId);
+        request.put("start", start);
+        request.put("end", end);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String createJob(String start, String end) {
+        Map<String, Object> response = webTestClient.post().uri("/job")
+                .bodyValue(jobRequest(UUID.randomUUID().toString(), start, end))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JSON)
+                .returnResult()
+                .getResponseBody();
+        return (String) ((Map<String, Object>) response.get("data")).get("jobId");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getShiftPage(String jobId, String cursor) {
+        Map<String, Object> response = webTestClient.get()
+                .uri(builder -> {
+                    builder.path("/shift/{jobId}").queryParam("limit", 2);
+                    if (cursor != null) {
+                        builder.queryParam("cursor", cursor);
+                    }
+                    return builder.build(jobId);
+                })
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JSON)
+                .returnResult()
+                .getResponseBody();
+        return (Map<String, Object>) response.get("data");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> shiftIds(String jobId) {
+        Map<String, Object> response = webTestClient.get().uri("/shift/{jobId}", jobId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(JSON)
+                .returnResult()
+                .getResponseBody();
+        List<Map<String, Object>> shifts = (List<Map<String, Object>>) ((Map<String, Object>) response.get("data")).get("shifts");
+        return Flux.fromIterable(shifts)
+                .map(shift -> (String) shift.get("id"))
+                .collectList()
+                .block();
+    }
+
+    private String firstShiftId(String jobId) {
+        return shiftIds(jobId).get(0);
+    }
+
+    private WebTestClient.ResponseSpec book(String shiftId, UUID talentId) {
+        return webTestClient.patch().uri("/shift/{id}/book", shiftId)
+                .bodyValue(Collections.singletonMap("talent", talentId))
+                .exchange();
+    }
+}
@@ -0,0 +1,116 @@
+package com.zenjob.challenge.repository;
+
+import com.zenjob.challenge.config.SecondLevelCacheMetricsConfig;
+import com.zenjob.challenge.constants.CacheRegions;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * This test reads jobs and shifts in transactions of their own
+ * so that they are put into and served from the second-level cache
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+@ActiveProfiles("l2cache")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheTest {
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @Before
+    public void initialize() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testIfJobIsReadAgainThenItIsServedFromTheCache() {
+        Job job = createJob();
+
+        jobRepository.findById(job.getId()).orElseThrow();
+        long queries = statistics.getPrepareStatementCount();
+        Job cached = jobRepository.findById(job.getId()).orElseThrow();
+
+        Assert.assertEquals(queries, statistics.getPrepareStatementCount());
+        Assert.assertEquals(job.getCompanyId(), cached.getCompanyId());
+        Assert.assertTrue(statistics.getDomainDataRegionStatistics(CacheRegions.JOB).getHitCount() > 0);
+    }
+
+    @Test
+    public void testIfShiftIsWrittenThenCachedShiftsOfJobAreReadAgain() {
+        Job job = createJob();
+        Shift shift = createShift(job, "2100-01-01T08:00:00Z");
+
+        Assert.assertEquals(1, shiftRepository.findAllByJob_Id(job.getId()).size());
+        Assert.assertEquals(1, shiftRepository.findAllByJob_Id(job.getId()).size());
+        Assert.assertEquals(1, statistics.getQueryRegionStatistics(CacheRegions.SHIFTS_OF_JOB).getHitCount());
+
+        UUID talentId = UUID.randomUUID();
+        shiftRepository.save(shiftRepository.findById(shift.getId()).orElseThrow().setTalentId(talentId));
+        createShift(job, "2100-01-02T08:00:00Z");
+
+        Assert.assertEquals(2, shiftRepository.findAllByJob_Id(job.getId()).size());
+        Assert.assertEquals(talentId, shiftRepository.findAllByJob_Id(job.getId()).get(0).getTalentId());
+    }
+
+    @Test
+    public void testIfCacheIsEnabledThenRegionsAreExported() {
+        Job job = createJob();
+        jobRepository.findById(job.getId()).orElseThrow();
+        jobRepository.findById(job.getId()).orElseThrow();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new SecondLevelCacheMetricsConfig().secondLevelCacheMetrics(entityManagerFactory).bindTo(registry);
+
+        Assert.assertTrue(registry.get("cache.hit.ratio").tag("cache", CacheRegions.JOB).gauge().value() > 0);
+        Assert.assertTrue(registry.get("cache.size").tag("cache", CacheRegions.JOB).gauge().value() > 0);
+        Assert.assertTrue(registry.get("cache.memory.estimated").tag("cache", CacheRegions.JOB).gauge().value() > 0);
+        Assert.assertNotNull(registry.get("cache.size").tag("cache", CacheRegions.SHIFTS_OF_JOB).gauge());
+    }
+
+    private Job createJob() {
+        return jobRepository.save(Job.builder()
+                .id(UUID.randomUUID())
+                .companyId(UUID.randomUUID())
+                .startTime(Instant.parse("2100-01-01T08:00:00Z"))
+                .endTime(Instant.parse("2100-01-02T12:00:00Z"))
+                .activeShiftCount(2)
+                .build());
+    }
+
+    private Shift createShift(Job job, String start) {
+        Instant startTime = Instant.parse(start);
+        return shiftRepository.save(Shift.builder()
+                .id(UUID.randomUUID())
+                .job(job)
+                .startTime(startTime)
+                .endTime(startTime.plusSeconds(4 * 3600))
+                .build());
+    }
+}
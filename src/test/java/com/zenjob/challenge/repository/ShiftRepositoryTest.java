@@ -0,0 +1,45 @@
+package com.zenjob.challenge.repository;
+
+import com.zenjob.challenge.constants.DatabaseQueries;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class ShiftRepositoryTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testIfTalentShiftsAreReadWithTalentIndex() {
+        String plan = explain("SELECT * FROM shift WHERE talent_id = X'00' AND start_time >= TIMESTAMP '2020-07-20 00:00:00' AND start_time < TIMESTAMP '2020-07-21 00:00:00'");
+        Assert.assertFalse(plan, plan.contains("TABLESCAN"));
+        Assert.assertTrue(plan, plan.contains("IDX_SHIFT_TALENT_ID_START_TIME"));
+    }
+
+    @Test
+    public void testIfJobShiftsAreReadWithJobIndex() {
+        String plan = explain("SELECT * FROM shift WHERE job_id = X'00' AND start_time >= TIMESTAMP '2020-07-20 00:00:00' ORDER BY start_time");
+        Assert.assertFalse(plan, plan.contains("TABLESCAN"));
+        Assert.assertTrue(plan, plan.contains("JOB_ID = X'00'"));
+    }
+
+    @Test
+    public void testIfCompanyExportIsReadWithCompanyIndex() {
+        String plan = explain(DatabaseQueries.STREAM_SHIFTS_FOR_COMPANY
+                .replace("?", "TIMESTAMP '2020-07-20 00:00:00'")
+                .replace("j.company_id = TIMESTAMP '2020-07-20 00:00:00'", "j.company_id = X'00'"));
+        Assert.assertTrue(plan, plan.contains("IDX_JOB_PROCESS_COMPANY_ID_START_TIME"));
+        Assert.assertTrue(plan, plan.contains("IDX_SHIFT_JOB_ID_START_TIME"));
+    }
+
+    private String explain(String query) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + query, String.class).toUpperCase();
+    }
+}
@@ -0,0 +1,246 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.exceptions.ServiceUnavailableException;
+import com.zenjob.challenge.exceptions.TooManyRequestsException;
+import com.zenjob.challenge.repository.ShiftRepository;
+import com.zenjob.challenge.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * This test books talents through the booking batcher from many threads at once and checks that
+ * every caller gets the outcome of its own booking and no talent is double booked for every batch window,
+ * and that callers never wait longer than the timeout, whatever happens to the batch of their booking
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "booking.batching.enabled=true")
+public class BookingBatcherTest {
+
+    private static final long[] WINDOW_MILLIS = {0, 1, 2, 5};
+    private static final int THREADS = 32;
+    private static final int BOOKINGS_PER_RUN = 1200;
+    private static final int TALENTS = 16;
+    private static final int PARALLEL_JOBS = 6;
+    private static final int DAYS = 5;
+
+    @Autowired
+    BookingCoordinator bookingCoordinator;
+
+    @Autowired
+    BookingBatcher bookingBatcher;
+
+    @Autowired
+    JobService jobService;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void testIfBookingsAreBatchedThenEveryCallerGetsItsOwnOutcome() throws Exception {
+        Assert.assertTrue(bookingBatcher.isEnabled());
+        UUID talentId = UUID.randomUUID();
+        UUID otherTalentId = UUID.randomUUID();
+        List<UUID> shifts = createOverlappingShifts();
+        UUID shiftId = shifts.get(0);
+        UUID overlappingShiftId = shifts.get(DAYS);
+        UUID nextDayShiftId = shifts.get(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Future<?> booking = executor.submit(() -> bookingCoordinator.book(shiftId, talentId));
+        Future<?> nextDayBooking = executor.submit(() -> bookingCoordinator.book(nextDayShiftId, talentId));
+        Future<?> otherBooking = executor.submit(() -> bookingCoordinator.book(overlappingShiftId, otherTalentId));
+        booking.get();
+        nextDayBooking.get();
+        otherBooking.get();
+        executor.shutdown();
+        try {
+            bookingCoordinator.book(overlappingShiftId, talentId);
+            Assert.fail();
+        } catch (ConstraintViolationException e) {
+            Assert.assertEquals(ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID, e.getMessage());
+        }
+
+        Assert.assertEquals(talentId, shiftRepository.findById(shiftId).orElseThrow().getTalentId());
+        Assert.assertEquals(talentId, shiftRepository.findById(nextDayShiftId).orElseThrow().getTalentId());
+        Assert.assertEquals(otherTalentId, shiftRepository.findById(overlappingShiftId).orElseThrow().getTalentId());
+        Assert.assertTrue(meterRegistry.summary("booking.batch.size").count() > 0);
+    }
+
+    @Test
+    public void testIfConcurrentBatchedBookingsNeverDoubleBookATalentPerWindow() throws Exception {
+        assertNoTalentIsDoubleBooked(bookingCoordinator(batcher(false, 0)));
+        for (long windowMillis : WINDOW_MILLIS) {
+            BookingBatcher batcher = batcher(true, windowMillis);
+            try {
+                assertNoTalentIsDoubleBooked(bookingCoordinator(batcher));
+            } finally {
+                batcher.close();
+            }
+        }
+    }
+
+    @Test
+    public void testIfBatchDoesNotCompleteInTimeThenCallersStopWaiting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        JobService blockedJobService = mock(JobService.class);
+        when(blockedJobService.bookTalents(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return Collections.singletonList(null);
+        });
+        BookingBatcher batcher = new BookingBatcher(blockedJobService, shardRouter, new SimpleMeterRegistry(), true, 0, 64, 200);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> inFlight = executor.submit(() -> batcher.book(UUID.randomUUID(), UUID.randomUUID()));
+            verify(blockedJobService, timeout(1000)).bookTalents(anyList());
+            try {
+                batcher.book(UUID.randomUUID(), UUID.randomUUID());
+                Assert.fail();
+            } catch (TooManyRequestsException e) {
+                Assert.assertEquals(ErrorMessages.TOO_MANY_CONCURRENT_REQUESTS, e.getMessage());
+            }
+            try {
+                inFlight.get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ConflictException);
+                Assert.assertEquals(ErrorMessages.BOOKING_NOT_COMPLETED_IN_TIME, e.getCause().getMessage());
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            batcher.close();
+        }
+        verify(blockedJobService, times(1)).bookTalents(anyList());
+    }
+
+    @Test
+    public void testIfBatchFailsThenItsCallersGetTheFailureAndTheBatcherKeepsBooking() {
+        JobService failingJobService = mock(JobService.class);
+        when(failingJobService.bookTalents(anyList())).thenThrow(new StackOverflowError());
+        BookingBatcher batcher = new BookingBatcher(failingJobService, shardRouter, new SimpleMeterRegistry(), true, 0, 64, 1000);
+        try {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try {
+                    batcher.book(UUID.randomUUID(), UUID.randomUUID());
+                    Assert.fail();
+                } catch (StackOverflowError e) {
+                    // the failure of the batch is handed to its caller
+                }
+            }
+        } finally {
+            batcher.close();
+        }
+        try {
+            batcher.book(UUID.randomUUID(), UUID.randomUUID());
+            Assert.fail();
+        } catch (ServiceUnavailableException e) {
+            // a stopped batcher rejects bookings at once
+            Assert.assertEquals(ErrorMessages.BOOKING_NOT_ACCEPTED, e.getMessage());
+        }
+    }
+
+    /**
+     * assertNoTalentIsDoubleBooked books random talents for random shifts from many threads, every booking has to
+     * be either booked or rejected, and every talent has to keep a 6 hours break between the shifts it is booked for
+     */
+    private void assertNoTalentIsDoubleBooked(BookingCoordinator coordinator) throws Exception {
+        List<UUID> talents = IntStream.range(0, TALENTS)
+                .mapToObj(idx -> UUID.randomUUID())
+                .collect(Collectors.toList());
+        List<UUID> shifts = createOverlappingShifts();
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int idx = 0; idx < BOOKINGS_PER_RUN; idx++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    coordinator.book(shifts.get(random.nextInt(shifts.size())), talents.get(random.nextInt(talents.size())));
+                    booked.incrementAndGet();
+                } catch (ConstraintViolationException | ConflictException e) {
+                    rejected.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(BOOKINGS_PER_RUN, booked.get() + rejected.get());
+        Assert.assertTrue(booked.get() > 0);
+        talents.forEach(this::assertNoShiftsCloserThanSixHours);
+    }
+
+    private BookingBatcher batcher(boolean enabled, long windowMillis) {
+        return new BookingBatcher(jobService, shardRouter, new SimpleMeterRegistry(), enabled, windowMillis, 64, 5000);
+    }
+
+    private BookingCoordinator bookingCoordinator(BookingBatcher batcher) {
+        return new BookingCoordinator(jobService, batcher, new SimpleMeterRegistry(), 64, 3, 10);
+    }
+
+    /**
+     * Every day has several jobs at the same time and one job two hours later,
+     * so a talent can only work one shift per day
+     */
+    private List<UUID> createOverlappingShifts() {
+        LocalDateTime start = LocalDateTime.parse("2100-01-01T08:00:00");
+        List<Job> jobs = new ArrayList<>();
+        for (int idx = 0; idx < PARALLEL_JOBS; idx++) {
+            jobs.add(jobService.createJob(UUID.randomUUID(), start, start.plusDays(DAYS - 1).withHour(12)));
+        }
+        jobs.add(jobService.createJob(UUID.randomUUID(), start.withHour(14), start.plusDays(DAYS - 1).withHour(18)));
+        return jobs.stream()
+                .flatMap(job -> jobService.getShifts(job.getId()).stream())
+                .map(Shift::getId)
+                .collect(Collectors.toList());
+    }
+
+    private void assertNoShiftsCloserThanSixHours(UUID talentId) {
+        List<Shift> shifts = shiftRepository.findAllShiftForTalent(talentId);
+        Assert.assertTrue("talent " + talentId + " works more than one shift a day", shifts.size() <= DAYS);
+        shifts.sort(Comparator.comparing(Shift::getStartTime));
+        for (int idx = 1; idx < shifts.size(); idx++) {
+            Duration gap = Duration.between(shifts.get(idx - 1).getEndTime(), shifts.get(idx).getStartTime());
+            Assert.assertTrue("talent " + talentId + " is double booked", gap.compareTo(TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS) >= 0);
+        }
+    }
+}
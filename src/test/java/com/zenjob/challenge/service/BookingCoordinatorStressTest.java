@@ -0,0 +1,113 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConflictException;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.repository.ShiftRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This test books a small group of talents for shifts which overlap each other
+ * from many threads at once and checks that no talent ends up with two shifts
+ * less than 6 hours apart, for every thread count
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class BookingCoordinatorStressTest {
+
+    private static final int[] THREAD_COUNTS = {1, 8, 32};
+    private static final int BOOKINGS_PER_RUN = 1200;
+    private static final int TALENTS = 16;
+    private static final int PARALLEL_JOBS = 6;
+    private static final int DAYS = 5;
+
+    @Autowired
+    BookingCoordinator bookingCoordinator;
+
+    @Autowired
+    JobService jobService;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Test
+    public void testIfConcurrentBookingsNeverDoubleBookATalent() throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            List<UUID> talents = IntStream.range(0, TALENTS)
+                    .mapToObj(idx -> UUID.randomUUID())
+                    .collect(Collectors.toList());
+            List<UUID> shifts = createOverlappingShifts();
+
+            AtomicInteger booked = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int idx = 0; idx < BOOKINGS_PER_RUN; idx++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        bookingCoordinator.book(shifts.get(random.nextInt(shifts.size())), talents.get(random.nextInt(talents.size())));
+                        booked.incrementAndGet();
+                    } catch (ConstraintViolationException | ConflictException e) {
+                        rejected.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            Assert.assertEquals(BOOKINGS_PER_RUN, booked.get() + rejected.get());
+            Assert.assertTrue(booked.get() > 0);
+            talents.forEach(this::assertNoShiftsCloserThanSixHours);
+        }
+    }
+
+    /**
+     * Every day has several jobs at the same time and one job two hours later,
+     * so a talent can only work one shift per day
+     */
+    private List<UUID> createOverlappingShifts() {
+        LocalDateTime start = LocalDateTime.parse("2100-01-01T08:00:00");
+        List<Job> jobs = new ArrayList<>();
+        for (int idx = 0; idx < PARALLEL_JOBS; idx++) {
+            jobs.add(jobService.createJob(UUID.randomUUID(), start, start.plusDays(DAYS - 1).withHour(12)));
+        }
+        jobs.add(jobService.createJob(UUID.randomUUID(), start.withHour(14), start.plusDays(DAYS - 1).withHour(18)));
+        return jobs.stream()
+                .flatMap(job -> jobService.getShifts(job.getId()).stream())
+                .map(Shift::getId)
+                .collect(Collectors.toList());
+    }
+
+    private void assertNoShiftsCloserThanSixHours(UUID talentId) {
+        List<Shift> shifts = shiftRepository.findAllShiftForTalent(talentId);
+        Assert.assertTrue("talent " + talentId + " works more than one shift a day", shifts.size() <= DAYS);
+        shifts.sort(Comparator.comparing(Shift::getStartTime));
+        for (int idx = 1; idx < shifts.size(); idx++) {
+            Duration gap = Duration.between(shifts.get(idx - 1).getEndTime(), shifts.get(idx).getStartTime());
+            Assert.assertTrue("talent " + talentId + " is double booked", gap.compareTo(TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS) >= 0);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class BookingCoordinatorTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    JobService jobService;
+
+    @Mock
+    BookingBatcher bookingBatcher;
+
+    MeterRegistry meterRegistry;
+
+    BookingCoordinator bookingCoordinator;
+
+    UUID shiftId = UUID.randomUUID();
+    UUID talentId = UUID.randomUUID();
+
+    @Before
+    public void initialize() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingCoordinator = new BookingCoordinator(jobService, bookingBatcher, meterRegistry, 64, MAX_ATTEMPTS, 1);
+    }
+
+    @Test
+    public void testIfOptimisticLockIsLostThenBookingIsRetried() {
+        doThrow(lockFailure())
+                .doThrow(new DataIntegrityViolationException("shift was inserted concurrently"))
+                .doNothing()
+                .when(jobService).bookTalent(shiftId, talentId);
+
+        bookingCoordinator.book(shiftId, talentId);
+
+        verify(jobService, times(3)).bookTalent(shiftId, talentId);
+        Assert.assertEquals(2, meterRegistry.counter("booking.retries").count(), 0);
+        Assert.assertEquals(0, meterRegistry.counter("booking.retries.exhausted").count(), 0);
+    }
+
+    @Test
+    public void testIfOptimisticLockIsLostOnEveryAttemptThenBookingIsRejected() {
+        doThrow(lockFailure()).when(jobService).bookTalent(shiftId, talentId);
+
+        try {
+            bookingCoordinator.book(shiftId, talentId);
+            Assert.fail();
+        } catch (ConflictException e) {
+            Assert.assertEquals(ErrorMessages.SHIFT_MODIFIED_CONCURRENTLY, e.getMessage());
+        }
+
+        verify(jobService, times(MAX_ATTEMPTS)).bookTalent(shiftId, talentId);
+        Assert.assertEquals(MAX_ATTEMPTS - 1, meterRegistry.counter("booking.retries").count(), 0);
+        Assert.assertEquals(1, meterRegistry.counter("booking.retries.exhausted").count(), 0);
+    }
+
+    @Test
+    public void testIfSubstituteIsBookedConcurrentlyThenSubstitutesArePlannedAgain() {
+        doThrow(ConflictException.of(ErrorMessages.SUBSTITUTE_BOOKED_CONCURRENTLY))
+                .doNothing()
+                .when(jobService).cancelShiftForTalentId(talentId);
+
+        bookingCoordinator.substitute(talentId);
+
+        verify(jobService, times(2)).cancelShiftForTalentId(talentId);
+        Assert.assertEquals(1, meterRegistry.counter("booking.retries").count(), 0);
+    }
+
+    private ObjectOptimisticLockingFailureException lockFailure() {
+        return new ObjectOptimisticLockingFailureException(Shift.class, shiftId);
+    }
+}
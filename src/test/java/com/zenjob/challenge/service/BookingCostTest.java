@@ -0,0 +1,112 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This test books a talent with a growing shift history and checks that, once the schedule
+ * of the talent is loaded, a booking prepares the same statements and loads the same entities
+ * whatever the size of the history
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class BookingCostTest {
+
+    private static final int[] HISTORY_SIZES = {10, 1000};
+    private static final int MEASURED_BOOKINGS = 10;
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    JobService jobService;
+
+    Statistics statistics;
+
+    @Before
+    public void initialize() {
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).build();
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void testIfBookingCostDoesNotDependOnHistoryOfTalent() {
+        long[][] costs = new long[HISTORY_SIZES.length][];
+        for (int idx = 0; idx < HISTORY_SIZES.length; idx++) {
+            UUID talentId = UUID.randomUUID();
+            seedHistory(talentId, HISTORY_SIZES[idx]);
+            costs[idx] = measureBookings(talentId);
+        }
+        Assert.assertEquals("statements per booking must not grow with the history of the talent", costs[0][0], costs[1][0]);
+        Assert.assertEquals("entities loaded per booking must not grow with the history of the talent", costs[0][1], costs[1][1]);
+    }
+
+    /**
+     * The history is one booked shift per day of a past year long job
+     */
+    private void seedHistory(UUID talentId, int size) {
+        LocalDateTime start = LocalDateTime.parse("1990-01-01T08:00:00");
+        Job job = jobService.createJob(UUID.randomUUID(), start, start.plusDays(size - 1).withHour(12));
+        for (int day = 0; day < size; day++) {
+            LocalDateTime shiftStart = start.plusDays(day);
+            em.persist(Shift.builder()
+                    .id(UUID.randomUUID())
+                    .job(job)
+                    .talentId(talentId)
+                    .startTime(shiftStart.toInstant(ZoneOffset.UTC))
+                    .endTime(shiftStart.plusHours(4).toInstant(ZoneOffset.UTC))
+                    .build());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * Each booking starts with an empty persistence context, like a request does
+     *
+     * @return the statements prepared and the entities loaded by the measured bookings
+     */
+    private long[] measureBookings(UUID talentId) {
+        LocalDateTime start = LocalDateTime.parse("2100-01-01T08:00:00");
+        Job job = jobService.createJob(UUID.randomUUID(), start, start.plusDays(MEASURED_BOOKINGS).withHour(12));
+        List<Shift> shifts = jobService.getShifts(job.getId());
+
+        // the first booking loads the schedule of the talent
+        jobService.bookTalent(shifts.get(0).getId(), talentId);
+        em.flush();
+        em.clear();
+        statistics.clear();
+        for (int idx = 0; idx < MEASURED_BOOKINGS; idx++) {
+            jobService.bookTalent(shifts.get(idx + 1).getId(), talentId);
+            em.flush();
+            em.clear();
+        }
+        return new long[]{statistics.getPrepareStatementCount(), statistics.getEntityLoadCount()};
+    }
+}
@@ -0,0 +1,100 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.dto.JobRequest;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This test compares creating jobs one by one, each flushed like its own request,
+ * with creating them through the batch path in one flush, which sends the inserts in JDBC batches
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class JobBatchCreationTest {
+
+    private static final int JOBS = 300;
+
+    /**
+     * the hibernate.jdbc.batch_size of the test configuration
+     */
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    JobService jobService;
+
+    Statistics statistics;
+
+    @Before
+    public void initialize() {
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).build();
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void testIfBatchCreationSendsTheInsertsInJdbcBatches() {
+        long singleStatements = countStatements(this::createOneByOne);
+        long batchStatements = countStatements(this::createInBatch);
+
+        Assert.assertTrue("every job created on its own is one insert", singleStatements >= JOBS);
+        Assert.assertTrue("the jobs of a batch are inserted " + JDBC_BATCH_SIZE + " at a time", batchStatements <= JOBS / JDBC_BATCH_SIZE);
+        Assert.assertEquals(2 * JOBS, jobRepository.count());
+    }
+
+    private long countStatements(Runnable creation) {
+        statistics.clear();
+        creation.run();
+        long statements = statistics.getPrepareStatementCount();
+        em.clear();
+        return statements;
+    }
+
+    private void createOneByOne() {
+        jobRequests().forEach(jobRequest -> {
+            jobService.createJob(jobRequest.getCompanyId(), jobRequest.getStart(), jobRequest.getEnd());
+            em.flush();
+        });
+    }
+
+    private void createInBatch() {
+        jobService.createJobs(jobRequests());
+        em.flush();
+    }
+
+    /**
+     * Every job has a week of shifts
+     */
+    private List<JobRequest> jobRequests() {
+        LocalDateTime start = LocalDateTime.parse("2100-01-01T08:00:00");
+        return IntStream.range(0, JOBS)
+                .mapToObj(idx -> new JobRequest(UUID.randomUUID(), start, start.plusDays(6).withHour(16)))
+                .collect(Collectors.toList());
+    }
+}
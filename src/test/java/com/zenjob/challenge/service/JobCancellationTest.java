@@ -0,0 +1,96 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This test counts the SQL statements needed to cancel a job
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class JobCancellationTest {
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    JobService jobService;
+
+    Statistics statistics;
+
+    @Before
+    public void initialize() {
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).build();
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void testIfCancellationCostDoesNotDependOnNumberOfShifts() {
+        Job shortJob = createJob(LocalDateTime.parse("2020-07-20T08:00:00"), LocalDateTime.parse("2020-07-24T12:00:00"));
+        Job longJob = createJob(LocalDateTime.parse("2020-01-01T08:00:00"), LocalDateTime.parse("2020-12-30T12:00:00"));
+
+        long shortJobStatements = countStatements(() -> Assert.assertEquals(5, jobService.cancelJob(shortJob.getId())));
+        long longJobStatements = countStatements(() -> Assert.assertEquals(365, jobService.cancelJob(longJob.getId())));
+
+        Assert.assertEquals(4, shortJobStatements);
+        Assert.assertEquals(shortJobStatements, longJobStatements);
+        Assert.assertTrue(shiftRepository.findAllByJob_Id(longJob.getId()).isEmpty());
+        Assert.assertFalse(jobRepository.existsById(longJob.getId()));
+    }
+
+    @Test
+    public void testIfBookedTalentIsFreedWhenJobIsCancelled() {
+        Job job = createJob(LocalDateTime.parse("2020-07-20T08:00:00"), LocalDateTime.parse("2020-07-20T12:00:00"));
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(jobService.getShifts(job.getId()).get(0).getId(), talentId);
+        jobService.cancelJob(job.getId());
+
+        Job otherJob = createJob(LocalDateTime.parse("2020-07-20T14:00:00"), LocalDateTime.parse("2020-07-20T18:00:00"));
+        List<Shift> shifts = jobService.getShifts(otherJob.getId());
+        jobService.bookTalent(shifts.get(0).getId(), talentId);
+    }
+
+    @Test(expected = ConstraintViolationException.class)
+    public void testIfJobIdIsNotPresentThenCancellationFails() {
+        jobService.cancelJob(UUID.randomUUID());
+    }
+
+    private Job createJob(LocalDateTime start, LocalDateTime end) {
+        Job job = jobService.createJob(UUID.randomUUID(), start, end);
+        em.flush();
+        em.clear();
+        return job;
+    }
+
+    private long countStatements(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,95 @@
+package com.zenjob.challenge.service;
+
+import static org.mockito.Mockito.*;
+
+import com.zenjob.challenge.dto.JobCancellationStatus;
+import com.zenjob.challenge.dto.JobCancellationStatus.State;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class JobCancellationTrackerTest {
+
+    JobService jobService;
+
+    JobCancellationTracker tracker;
+
+    @Before
+    public void initialize() {
+        jobService = mock(JobService.class);
+        tracker = new JobCancellationTracker(jobService, Clock.systemUTC(), 1, 10, 60);
+    }
+
+    @After
+    public void shutdown() {
+        tracker.shutdown();
+    }
+
+    @Test
+    public void testIfCancellationCompletesInTheBackground() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(jobService.jobExists(jobId)).thenReturn(true);
+        when(jobService.cancelJob(jobId)).thenReturn(365);
+
+        Assert.assertEquals(State.PENDING, tracker.submit(jobId).getState());
+
+        JobCancellationStatus status = awaitFinished(jobId);
+        Assert.assertEquals(State.COMPLETED, status.getState());
+        Assert.assertEquals(Integer.valueOf(365), status.getShiftsRemoved());
+    }
+
+    @Test
+    public void testIfFailedCancellationIsReported() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        when(jobService.jobExists(jobId)).thenReturn(true);
+        when(jobService.cancelJob(jobId)).thenThrow(new ConstraintViolationException("failed"));
+
+        tracker.submit(jobId);
+
+        JobCancellationStatus status = awaitFinished(jobId);
+        Assert.assertEquals(State.FAILED, status.getState());
+        Assert.assertEquals("failed", status.getError());
+    }
+
+    @Test
+    public void testIfRunningCancellationIsNotSubmittedTwice() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        when(jobService.jobExists(jobId)).thenReturn(true);
+        when(jobService.cancelJob(jobId)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 5;
+        });
+
+        tracker.submit(jobId);
+        Assert.assertFalse(tracker.submit(jobId).isFinished());
+        release.countDown();
+
+        awaitFinished(jobId);
+        verify(jobService, times(1)).cancelJob(jobId);
+    }
+
+    @Test(expected = ConstraintViolationException.class)
+    public void testIfJobIdIsNotPresentThenNothingIsSubmitted() {
+        tracker.submit(UUID.randomUUID());
+    }
+
+    private JobCancellationStatus awaitFinished(UUID jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            JobCancellationStatus status = tracker.statusOf(jobId).orElse(null);
+            if (status != null && status.isFinished()) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("cancellation of job " + jobId + " did not finish");
+    }
+}
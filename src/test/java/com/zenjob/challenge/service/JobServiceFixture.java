@@ -0,0 +1,77 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.config.ShardingProperties;
+import com.zenjob.challenge.config.SubstitutionProperties;
+import com.zenjob.challenge.datasource.ReadYourWrites;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import com.zenjob.challenge.repository.ShiftStreamRepository;
+import com.zenjob.challenge.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This class builds a JobService without a Spring context for the tests and benchmarks,
+ * on a single shard, without datasource routing and without substitution candidates unless they are given.
+ * Every collaborator which is not given is created from the repositories.
+ */
+public class JobServiceFixture {
+
+    private final JobRepository jobRepository;
+    private final ShiftRepository shiftRepository;
+    private final ShardRouter shardRouter = new ShardRouter(new ShardingProperties(), null);
+
+    private ShiftStreamRepository shiftStreamRepository;
+    private TalentScheduleIndex talentScheduleIndex;
+    private ShiftViewCache shiftViewCache;
+    private List<UUID> candidates = List.of();
+
+    private JobServiceFixture(JobRepository jobRepository, ShiftRepository shiftRepository) {
+        this.jobRepository = jobRepository;
+        this.shiftRepository = shiftRepository;
+    }
+
+    public static JobServiceFixture of(JobRepository jobRepository, ShiftRepository shiftRepository) {
+        return new JobServiceFixture(jobRepository, shiftRepository);
+    }
+
+    /**
+     * dataSource gives the database the shifts of a company are exported from
+     */
+    public JobServiceFixture dataSource(DataSource dataSource) {
+        this.shiftStreamRepository = new ShiftStreamRepository(dataSource);
+        return this;
+    }
+
+    public JobServiceFixture talentScheduleIndex(TalentScheduleIndex talentScheduleIndex) {
+        this.talentScheduleIndex = talentScheduleIndex;
+        return this;
+    }
+
+    public JobServiceFixture shiftViewCache(ShiftViewCache shiftViewCache) {
+        this.shiftViewCache = shiftViewCache;
+        return this;
+    }
+
+    public JobServiceFixture candidates(UUID... candidates) {
+        this.candidates = List.of(candidates);
+        return this;
+    }
+
+    public ShardRouter getShardRouter() {
+        return shardRouter;
+    }
+
+    public JobService build() {
+        SubstitutionProperties substitutionProperties = new SubstitutionProperties();
+        substitutionProperties.setCandidates(candidates);
+        return new JobService(jobRepository, shiftRepository, shiftStreamRepository,
+                talentScheduleIndex == null ? new TalentScheduleIndex(shiftRepository, shardRouter) : talentScheduleIndex,
+                shiftViewCache == null ? new ShiftViewCache(new SimpleMeterRegistry(), 1000, 30) : shiftViewCache,
+                new ReadYourWrites(false, 0, 0, Clock.systemUTC()), shardRouter, new TalentSubstitutionPlanner(substitutionProperties));
+    }
+}
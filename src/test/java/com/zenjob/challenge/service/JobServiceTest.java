@@ -1,7 +1,12 @@
 package com.zenjob.challenge.service;
 
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.JobRequest;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
 import com.zenjob.challenge.entity.Job;
 import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConflictException;
 import com.zenjob.challenge.exceptions.ConstraintViolationException;
 import com.zenjob.challenge.repository.JobRepository;
 import com.zenjob.challenge.repository.ShiftRepository;
@@ -14,7 +19,12 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import javax.sql.DataSource;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -33,16 +43,19 @@ public class JobServiceTest {
     @Autowired
     ShiftRepository shiftRepository;
 
+    @Autowired
+    DataSource dataSource;
+
     @Before
     public void initialize() {
-        jobService = new JobService(jobRepository, shiftRepository);
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).build();
     }
 
     @Test
     public void testIfJobHasAtLeastOneShift() {
         UUID companyId = UUID.randomUUID();
         Job job = jobService.createJob(companyId, LocalDateTime.parse("2020-07-16T12:00:00"), LocalDateTime.parse("2020-07-20T20:00:00"));
-        List<Shift> shifts = shiftRepository.findAllByJob_Id(job.getId());
+        List<Shift> shifts = jobService.getShifts(job.getId());
         Assert.assertTrue(shifts.size() > 0);
     }
 
@@ -68,6 +81,30 @@ public class JobServiceTest {
         jobService.bookTalent(shifts2.get(1).getId(), talentId);
     }
 
+    @Test
+    public void testIfShiftBookedByAnotherInstanceIsCloseThenBookingIsRejected() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T12:00:00"), LocalDateTime.parse("2020-07-21T15:00:00"));
+        List<Shift> shifts = jobService.getShifts(job.getId());
+        UUID talentId = UUID.randomUUID();
+        // the schedule of the talent is loaded before another instance books the talent
+        jobService.bookTalent(shifts.get(1).getId(), talentId);
+        Instant otherStart = LocalDateTime.parse("2020-07-20T17:00:00").toInstant(ZoneOffset.UTC);
+        em.persist(Shift.builder()
+                .id(UUID.randomUUID())
+                .job(job)
+                .talentId(talentId)
+                .startTime(otherStart)
+                .endTime(otherStart.plusSeconds(7200))
+                .build());
+
+        try {
+            jobService.bookTalent(shifts.get(0).getId(), talentId);
+            Assert.fail();
+        } catch (ConstraintViolationException e) {
+            Assert.assertEquals(ErrorMessages.BREAK_BETWEEN_SHIFT_INVALID, e.getMessage());
+        }
+    }
+
     @Test
     public void testIfJobGetsCancelledAllShiftsGetsCancelled() {
         Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T18:00:00"), LocalDateTime.parse("2020-07-24T20:00:00"));
@@ -82,11 +119,21 @@ public class JobServiceTest {
         Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T18:00:00"), LocalDateTime.parse("2020-07-24T20:00:00"));
         List<Shift> shifts = jobService.getShifts(job.getId());
         jobService.cancelShiftByShiftId(shifts.get(1).getId());
-        Assert.assertTrue(jobService.getShifts(job.getId()).size() == 5);
+        Assert.assertTrue(jobService.getShifts(job.getId()).size() == 4);
+        Assert.assertEquals(4, jobRepository.findById(job.getId()).get().getActiveShiftCount());
+    }
+
+    @Test(expected = ConstraintViolationException.class)
+    public void testIfLastShiftOfJobCannotBeCancelled() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T18:00:00"), LocalDateTime.parse("2020-07-21T20:00:00"));
+        List<Shift> shifts = jobService.getShifts(job.getId());
+        jobService.cancelShiftByShiftId(shifts.get(0).getId());
+        jobService.cancelShiftByShiftId(shifts.get(1).getId());
     }
 
     @Test
     public void testCancelShiftForSpecificTalentAndReplaceWithNewTalent() {
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).candidates(UUID.randomUUID()).build();
         Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T18:00:00"), LocalDateTime.parse("2020-07-24T20:00:00"));
         List<Shift> shifts = jobService.getShifts(job.getId());
         UUID talentId = UUID.randomUUID();
@@ -99,4 +146,126 @@ public class JobServiceTest {
         Assert.assertTrue(shifts.stream().filter(shift -> shift.getTalentId() != null && shift.getTalentId().equals(talentId)).count() == 0);
     }
 
+    @Test
+    public void testIfSubstituteIsOnlyPickedForShiftsWithSixHoursBreak() {
+        UUID candidateId = UUID.randomUUID();
+        UUID otherCandidateId = UUID.randomUUID();
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).candidates(candidateId, otherCandidateId).build();
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-08-10T08:00:00"), LocalDateTime.parse("2020-08-11T12:00:00"));
+        Job eveningJob = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-08-10T14:00:00"), LocalDateTime.parse("2020-08-10T18:00:00"));
+        List<Shift> shifts = jobService.getShifts(job.getId());
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(shifts.get(0).getId(), talentId);
+        jobService.bookTalent(shifts.get(1).getId(), talentId);
+        jobService.bookTalent(jobService.getShifts(eveningJob.getId()).get(0).getId(), candidateId);
+
+        jobService.cancelShiftForTalentId(talentId);
+
+        shifts = jobService.getShifts(job.getId());
+        Assert.assertEquals(otherCandidateId, shifts.get(0).getTalentId());
+        Assert.assertNotEquals(talentId, shifts.get(1).getTalentId());
+    }
+
+    @Test
+    public void testIfNoCandidateCanWorkAShiftThenSubstitutionIsRejected() {
+        UUID candidateId = UUID.randomUUID();
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).candidates(candidateId).build();
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-08-10T08:00:00"), LocalDateTime.parse("2020-08-11T12:00:00"));
+        Job eveningJob = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-08-10T14:00:00"), LocalDateTime.parse("2020-08-10T18:00:00"));
+        List<Shift> shifts = jobService.getShifts(job.getId());
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(shifts.get(0).getId(), talentId);
+        jobService.bookTalent(shifts.get(1).getId(), talentId);
+        jobService.bookTalent(jobService.getShifts(eveningJob.getId()).get(0).getId(), candidateId);
+
+        try {
+            jobService.cancelShiftForTalentId(talentId);
+            Assert.fail();
+        } catch (ConstraintViolationException e) {
+            Assert.assertEquals(ErrorMessages.NO_SUBSTITUTE_AVAILABLE, e.getMessage());
+        }
+        Assert.assertTrue(jobService.getShifts(job.getId()).stream().allMatch(shift -> talentId.equals(shift.getTalentId())));
+    }
+
+    @Test
+    public void testIfCandidateBookedAfterThePlanThenSubstitutionConflicts() {
+        UUID candidateId = UUID.randomUUID();
+        JobServiceFixture fixture = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).candidates(candidateId);
+        TalentScheduleIndex talentScheduleIndex = new TalentScheduleIndex(shiftRepository, fixture.getShardRouter());
+        jobService = fixture.talentScheduleIndex(talentScheduleIndex).build();
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-08-10T08:00:00"), LocalDateTime.parse("2020-08-10T12:00:00"));
+        Job eveningJob = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-08-10T14:00:00"), LocalDateTime.parse("2020-08-10T18:00:00"));
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(jobService.getShifts(job.getId()).get(0).getId(), talentId);
+        // the booking of another transaction is in the schedule of the candidate but not yet in the database the plan reads
+        talentScheduleIndex.book(candidateId, jobService.getShifts(eveningJob.getId()).get(0));
+
+        try {
+            jobService.cancelShiftForTalentId(talentId);
+            Assert.fail();
+        } catch (ConflictException e) {
+            Assert.assertEquals(ErrorMessages.SUBSTITUTE_BOOKED_CONCURRENTLY, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testIfAllJobsOfBatchAreCreatedWithTheirShifts() {
+        List<Job> jobs = jobService.createJobs(Arrays.asList(
+                new JobRequest(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T18:00:00"), LocalDateTime.parse("2020-07-24T20:00:00")),
+                new JobRequest(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T08:00:00"), LocalDateTime.parse("2020-07-21T12:00:00"))));
+        Assert.assertEquals(2, jobs.size());
+        Assert.assertEquals(5, jobService.getShifts(jobs.get(0).getId()).size());
+        Assert.assertEquals(2, jobService.getShifts(jobs.get(1).getId()).size());
+    }
+
+    @Test
+    public void testIfShiftsCanBeReadPageByPage() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T18:00:00"), LocalDateTime.parse("2020-07-24T20:00:00"));
+        List<ShiftView> firstPage = jobService.getShiftViews(job.getId(), null, 2);
+        List<ShiftView> secondPage = jobService.getShiftViews(job.getId(), ShiftCursor.after(firstPage.get(1)), 2);
+        List<ShiftView> lastPage = jobService.getShiftViews(job.getId(), ShiftCursor.after(secondPage.get(1)), 2);
+        Assert.assertEquals(2, firstPage.size());
+        Assert.assertEquals(2, secondPage.size());
+        Assert.assertEquals(1, lastPage.size());
+        Assert.assertTrue(firstPage.get(1).getStart().isBefore(secondPage.get(0).getStart()));
+        Assert.assertEquals(LocalDateTime.parse("2020-07-24T18:00:00").toInstant(ZoneOffset.UTC), lastPage.get(0).getStart());
+    }
+
+    @Test
+    public void testIfTalentShiftsInRangeCanBeReadPageByPage() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T08:00:00"), LocalDateTime.parse("2020-07-26T12:00:00"));
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        UUID talentId = UUID.randomUUID();
+        for (ShiftView shift : shifts) {
+            jobService.bookTalent(shift.getId(), talentId);
+        }
+        jobService.bookTalent(jobService.getShiftViews(
+                jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-22T08:00:00"), LocalDateTime.parse("2020-07-22T12:00:00")).getId())
+                .get(0).getId(), UUID.randomUUID());
+        em.flush();
+        Instant from = LocalDateTime.parse("2020-07-21T00:00:00").toInstant(ZoneOffset.UTC);
+        Instant to = LocalDateTime.parse("2020-07-26T00:00:00").toInstant(ZoneOffset.UTC);
+
+        List<ShiftView> firstPage = jobService.getTalentShiftViews(talentId, from, to, null, 3);
+        List<ShiftView> lastPage = jobService.getTalentShiftViews(talentId, from, to, ShiftCursor.after(firstPage.get(2)), 3);
+
+        Assert.assertEquals(3, firstPage.size());
+        Assert.assertEquals(2, lastPage.size());
+        Assert.assertEquals(shifts.get(1).getId(), firstPage.get(0).getId());
+        Assert.assertEquals(shifts.get(5).getId(), lastPage.get(1).getId());
+        Assert.assertEquals(talentId, lastPage.get(1).getTalentId());
+    }
+
+    @Test
+    public void testIfAllShiftsAreStreamedInOrder() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-20T18:00:00"), LocalDateTime.parse("2020-07-24T20:00:00"));
+        em.flush();
+        List<ShiftView> shifts = new ArrayList<>();
+        jobService.streamShifts(job.getId(), shifts::add);
+        Assert.assertEquals(5, shifts.size());
+        Assert.assertEquals(job.getId(), shifts.get(0).getJobId());
+        Assert.assertEquals(LocalDateTime.parse("2020-07-20T18:00:00").toInstant(ZoneOffset.UTC), shifts.get(0).getStart());
+        Assert.assertEquals(LocalDateTime.parse("2020-07-24T20:00:00").toInstant(ZoneOffset.UTC), shifts.get(4).getEnd());
+    }
+
 }
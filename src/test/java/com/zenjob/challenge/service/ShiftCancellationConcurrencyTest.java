@@ -0,0 +1,77 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.repository.JobRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This test cancels every shift of a job at the same time
+ * and checks that exactly one shift survives
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class ShiftCancellationConcurrencyTest {
+
+    private static final int SHIFTS = 16;
+
+    @Autowired
+    JobService jobService;
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Test
+    public void testIfParallelCancellationsKeepExactlyOneShift() throws Exception {
+        LocalDateTime start = LocalDateTime.parse("2100-01-01T08:00:00");
+        Job job = jobService.createJob(UUID.randomUUID(), start, start.plusDays(SHIFTS - 1).withHour(12));
+        List<Shift> shifts = jobService.getShifts(job.getId());
+        Assert.assertEquals(SHIFTS, shifts.size());
+
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(SHIFTS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Shift shift : shifts) {
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    jobService.cancelShiftByShiftId(shift.getId());
+                    cancelled.incrementAndGet();
+                } catch (ConstraintViolationException e) {
+                    Assert.assertEquals(ErrorMessages.SHIFT_NOT_CANCELLABLE, e.getMessage());
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(SHIFTS - 1, cancelled.get());
+        Assert.assertEquals(1, rejected.get());
+        Assert.assertEquals(1, jobService.getShifts(job.getId()).size());
+        Assert.assertEquals(1, jobRepository.findById(job.getId()).get().getActiveShiftCount());
+    }
+}
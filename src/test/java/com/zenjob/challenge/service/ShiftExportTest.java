@@ -0,0 +1,114 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * This test exports the shifts of a company in a time range
+ * from recurring jobs and from jobs which store all of their shifts
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class ShiftExportTest {
+
+    private static final Instant FROM = Instant.parse("2100-01-03T00:00:00Z");
+    private static final Instant TO = Instant.parse("2100-01-06T00:00:00Z");
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    JobService jobService;
+
+    UUID companyId;
+
+    @Before
+    public void initialize() {
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).build();
+        companyId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testIfRecurringJobIsExportedThenOnlyShiftsInRangeAreWritten() {
+        Job job = jobService.createJob(companyId, LocalDateTime.parse("2100-01-01T08:00:00"), LocalDateTime.parse("2100-01-10T12:00:00"));
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(shifts.get(2).getId(), talentId);
+        jobService.cancelShiftByShiftId(shifts.get(3).getId());
+        jobService.bookTalent(shifts.get(8).getId(), talentId);
+        jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-01-01T08:00:00"), LocalDateTime.parse("2100-01-10T12:00:00"));
+        jobService.createJob(companyId, LocalDateTime.parse("2100-01-06T08:00:00"), LocalDateTime.parse("2100-01-10T12:00:00"));
+        em.flush();
+
+        List<ShiftView> exported = export();
+
+        Assert.assertEquals(2, exported.size());
+        Assert.assertEquals(shifts.get(2).getId(), exported.get(0).getId());
+        Assert.assertEquals(talentId, exported.get(0).getTalentId());
+        Assert.assertEquals(shifts.get(4), exported.get(1));
+    }
+
+    @Test
+    public void testIfJobsAreExportedThenStoredShiftsAreWrittenWithGeneratedOnes() {
+        Job legacyJob = em.persist(Job.builder()
+                .id(UUID.randomUUID())
+                .companyId(companyId)
+                .startTime(Instant.parse("2100-01-02T08:00:00Z"))
+                .endTime(Instant.parse("2100-01-04T12:00:00Z"))
+                .activeShiftCount(3)
+                .build());
+        for (int day = 2; day <= 4; day++) {
+            em.persist(Shift.builder()
+                    .id(UUID.randomUUID())
+                    .job(legacyJob)
+                    .startTime(Instant.parse("2100-01-0" + day + "T08:00:00Z"))
+                    .endTime(Instant.parse("2100-01-0" + day + "T12:00:00Z"))
+                    .build());
+        }
+        Job recurringJob = jobService.createJob(companyId, LocalDateTime.parse("2100-01-05T14:00:00"), LocalDateTime.parse("2100-01-07T18:00:00"));
+        em.flush();
+
+        List<ShiftView> exported = export();
+
+        Assert.assertEquals(3, exported.size());
+        Assert.assertEquals(legacyJob.getId(), exported.get(0).getJobId());
+        Assert.assertEquals(Instant.parse("2100-01-03T08:00:00Z"), exported.get(0).getStart());
+        Assert.assertEquals(Instant.parse("2100-01-04T08:00:00Z"), exported.get(1).getStart());
+        Assert.assertEquals(recurringJob.getId(), exported.get(2).getJobId());
+        Assert.assertEquals(Instant.parse("2100-01-05T18:00:00Z"), exported.get(2).getEnd());
+        Assert.assertEquals(exported.size(), exported.stream().map(ShiftView::getId).collect(Collectors.toSet()).size());
+    }
+
+    private List<ShiftView> export() {
+        List<ShiftView> exported = new ArrayList<>();
+        jobService.streamShiftsOfCompany(companyId, FROM, TO, exported::add);
+        return exported;
+    }
+}
@@ -0,0 +1,64 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * This test checks the statements of listing the shifts of a year long job from the cache,
+ * the allocation of the read paths is compared by the ShiftReadPathBenchmark
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class ShiftReadPathStatementTest {
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    JobService jobService;
+
+    Statistics statistics;
+
+    @Before
+    public void initialize() {
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).build();
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void testIfCachedViewsAreNotReadFromTheDatabase() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-01-01T08:00:00"), LocalDateTime.parse("2020-12-31T12:00:00"));
+        em.flush();
+        em.clear();
+
+        Assert.assertEquals(366, jobService.getShiftViews(job.getId()).size());
+        em.clear();
+        statistics.clear();
+
+        Assert.assertEquals(366, jobService.getShiftViews(job.getId()).size());
+        Assert.assertEquals("cached views must not be read from the database", 0, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,126 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This test counts the SQL statements and entities needed to list the shifts of a job
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class ShiftReadPathTest {
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    JobService jobService;
+
+    Statistics statistics;
+
+    MeterRegistry meterRegistry;
+
+    Job job;
+
+    @Before
+    public void initialize() {
+        meterRegistry = new SimpleMeterRegistry();
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository)
+                .dataSource(dataSource)
+                .shiftViewCache(new ShiftViewCache(meterRegistry, 1000, 30))
+                .candidates(UUID.randomUUID())
+                .build();
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-07-01T08:00:00"), LocalDateTime.parse("2020-07-30T12:00:00"));
+        em.flush();
+        em.clear();
+        statistics.clear();
+    }
+
+    @Test
+    public void testIfShiftViewsAreReadWithTwoStatementsAndNoEntities() {
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        Assert.assertEquals(30, shifts.size());
+        Assert.assertEquals(job.getId(), shifts.get(0).getJobId());
+        // the recurrence of the job and its stored shifts
+        Assert.assertEquals(2, statistics.getPrepareStatementCount());
+        Assert.assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testIfShiftEntitiesAreReadWithTheirJob() {
+        Assert.assertEquals(30, jobService.getShifts(job.getId()).size());
+        Assert.assertEquals(2, statistics.getPrepareStatementCount());
+        // only the job is loaded, none of its shifts is stored
+        Assert.assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testIfRepeatedShiftListingIsServedFromCache() {
+        jobService.getShiftViews(job.getId());
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        Assert.assertEquals(30, shifts.size());
+        Assert.assertEquals(2, statistics.getPrepareStatementCount());
+        Assert.assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", ShiftViewCache.CACHE_NAME).tag("result", "hit").functionCounter().count(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", ShiftViewCache.CACHE_NAME).tag("result", "miss").functionCounter().count(), 0);
+    }
+
+    @Test
+    public void testIfBookingInvalidatesTheListingOfItsJob() {
+        Job otherJob = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2020-08-01T08:00:00"), LocalDateTime.parse("2020-08-02T12:00:00"));
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        jobService.getShiftViews(otherJob.getId());
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(shifts.get(0).getId(), talentId);
+        em.flush();
+        statistics.clear();
+
+        Assert.assertEquals(talentId, jobService.getShiftViews(job.getId()).get(0).getTalentId());
+        Assert.assertEquals(2, statistics.getPrepareStatementCount());
+        jobService.getShiftViews(otherJob.getId());
+        Assert.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testIfCancellationsInvalidateTheListingOfTheirJob() {
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        jobService.cancelShiftByShiftId(shifts.get(0).getId());
+        Assert.assertEquals(29, jobService.getShiftViews(job.getId()).size());
+
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(shifts.get(1).getId(), talentId);
+        jobService.getShiftViews(job.getId());
+        jobService.cancelShiftForTalentId(talentId);
+        Assert.assertNotEquals(talentId, jobService.getShiftViews(job.getId()).get(0).getTalentId());
+
+        jobService.cancelJob(job.getId());
+        Assert.assertTrue(jobService.getShiftViews(job.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,179 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.dto.JobRecurrence;
+import com.zenjob.challenge.dto.ShiftCursor;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.repository.JobRepository;
+import com.zenjob.challenge.repository.ShiftRepository;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * This test checks that a recurring job stores only the shifts
+ * which were booked or cancelled and still lists all of its shifts
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class ShiftRecurrenceTest {
+
+    @Autowired
+    TestEntityManager em;
+
+    @Autowired
+    JobRepository jobRepository;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    JobService jobService;
+
+    @Before
+    public void initialize() {
+        jobService = JobServiceFixture.of(jobRepository, shiftRepository).dataSource(dataSource).build();
+    }
+
+    @Test
+    public void testIfJobIsCreatedThenNoShiftIsStored() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-01-01T08:00:00"), LocalDateTime.parse("2100-12-31T12:00:00"));
+        em.flush();
+
+        Assert.assertTrue(shiftRepository.findAllByJob_Id(job.getId()).isEmpty());
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        Assert.assertEquals(365, shifts.size());
+        Assert.assertEquals(Instant.parse("2100-12-31T08:00:00Z"), shifts.get(364).getStart());
+        Assert.assertEquals(Instant.parse("2100-12-31T12:00:00Z"), shifts.get(364).getEnd());
+        Assert.assertEquals(job.getId(), JobRecurrence.jobIdOf(shifts.get(364).getId()));
+    }
+
+    @Test
+    public void testIfShiftIsBookedThenOnlyItIsStored() {
+        Job job = createJob();
+        ShiftView shift = jobService.getShiftViews(job.getId()).get(2);
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(shift.getId(), talentId);
+        em.flush();
+
+        List<Shift> stored = shiftRepository.findAllByJob_Id(job.getId());
+        Assert.assertEquals(1, stored.size());
+        Assert.assertEquals(shift.getId(), stored.get(0).getId());
+        Assert.assertEquals(talentId, jobService.getShiftViews(job.getId()).get(2).getTalentId());
+    }
+
+    @Test
+    public void testIfShiftIsCancelledThenItIsNotListedAgain() {
+        Job job = createJob();
+        ShiftView shift = jobService.getShiftViews(job.getId()).get(1);
+        jobService.cancelShiftByShiftId(shift.getId());
+        em.flush();
+
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        Assert.assertEquals(4, shifts.size());
+        Assert.assertTrue(shifts.stream().noneMatch(view -> view.getId().equals(shift.getId())));
+        Assert.assertTrue(shiftRepository.findAllByJob_Id(job.getId()).get(0).isCancelled());
+        assertRejected(ErrorMessages.SHIFT_NOT_PRESENT, () -> jobService.bookTalent(shift.getId(), UUID.randomUUID()));
+        assertRejected(ErrorMessages.SHIFT_NOT_PRESENT, () -> jobService.cancelShiftByShiftId(shift.getId()));
+    }
+
+    @Test
+    public void testIfBookedShiftIsCancelledThenItsTalentIsFreed() {
+        Job job = createJob();
+        ShiftView shift = jobService.getShiftViews(job.getId()).get(0);
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(shift.getId(), talentId);
+        jobService.cancelShiftByShiftId(shift.getId());
+        em.flush();
+
+        Assert.assertEquals(4, jobService.getShiftViews(job.getId()).size());
+        Assert.assertNull(shiftRepository.findAllByJob_Id(job.getId()).get(0).getTalentId());
+        Job otherJob = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-01-01T14:00:00"), LocalDateTime.parse("2100-01-01T18:00:00"));
+        jobService.bookTalent(jobService.getShiftViews(otherJob.getId()).get(0).getId(), talentId);
+    }
+
+    @Test
+    public void testIfShiftsArePagedAcrossCancelledShiftsThenEveryShiftIsListedOnce() {
+        Job job = createJob();
+        List<ShiftView> shifts = jobService.getShiftViews(job.getId());
+        jobService.cancelShiftByShiftId(shifts.get(2).getId());
+
+        List<ShiftView> first = jobService.getShiftViews(job.getId(), null, 2);
+        ShiftView last = first.get(1);
+        List<ShiftView> second = jobService.getShiftViews(job.getId(), new ShiftCursor(last.getStart(), last.getId()), 2);
+
+        Assert.assertEquals(shifts.subList(0, 2), first);
+        Assert.assertEquals(shifts.subList(3, 5), second);
+    }
+
+    @Test
+    public void testIfJobIsNotRecurringThenItsStoredShiftsAreListed() {
+        Job job = em.persist(Job.builder()
+                .id(UUID.randomUUID())
+                .companyId(UUID.randomUUID())
+                .startTime(Instant.parse("2100-01-01T08:00:00Z"))
+                .endTime(Instant.parse("2100-01-02T12:00:00Z"))
+                .activeShiftCount(2)
+                .build());
+        Shift shift = em.persist(Shift.builder()
+                .id(UUID.randomUUID())
+                .job(job)
+                .startTime(Instant.parse("2100-01-01T08:00:00Z"))
+                .endTime(Instant.parse("2100-01-01T12:00:00Z"))
+                .build());
+        em.persist(Shift.builder()
+                .id(UUID.randomUUID())
+                .job(job)
+                .startTime(Instant.parse("2100-01-02T08:00:00Z"))
+                .endTime(Instant.parse("2100-01-02T12:00:00Z"))
+                .build());
+        em.flush();
+
+        Assert.assertEquals(2, jobService.getShiftViews(job.getId()).size());
+        jobService.cancelShiftByShiftId(shift.getId());
+        em.flush();
+        Assert.assertEquals(1, shiftRepository.findAllByJob_Id(job.getId()).size());
+        Assert.assertEquals(1, jobService.getShiftViews(job.getId()).size());
+    }
+
+    @Test
+    public void testIfShiftIdIsNotOneOfTheJobThenShiftIsNotPresent() {
+        Job job = createJob();
+        UUID pastLastDay = new UUID(job.getId().getMostSignificantBits(), job.getId().getLeastSignificantBits() | 6);
+
+        assertRejected(ErrorMessages.SHIFT_NOT_PRESENT, () -> jobService.bookTalent(pastLastDay, UUID.randomUUID()));
+        assertRejected(ErrorMessages.SHIFT_NOT_PRESENT, () -> jobService.bookTalent(job.getId(), UUID.randomUUID()));
+        assertRejected(ErrorMessages.SHIFT_NOT_PRESENT, () -> jobService.cancelShiftByShiftId(pastLastDay));
+    }
+
+    private Job createJob() {
+        Job job = jobService.createJob(UUID.randomUUID(), LocalDateTime.parse("2100-01-01T08:00:00"), LocalDateTime.parse("2100-01-05T12:00:00"));
+        em.flush();
+        return job;
+    }
+
+    private void assertRejected(String message, Runnable action) {
+        try {
+            action.run();
+            Assert.fail("expected " + message);
+        } catch (ConstraintViolationException e) {
+            Assert.assertEquals(message, e.getMessage());
+        }
+    }
+}
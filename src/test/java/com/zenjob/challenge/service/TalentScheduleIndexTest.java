@@ -0,0 +1,103 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.config.ShardingProperties;
+import com.zenjob.challenge.entity.Shift;
+import com.zenjob.challenge.repository.ShiftRepository;
+import com.zenjob.challenge.sharding.ShardRouter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class TalentScheduleIndexTest {
+
+    @Mock
+    ShiftRepository shiftRepository;
+
+    TalentScheduleIndex talentScheduleIndex;
+
+    ShardRouter shardRouter = new ShardRouter(new ShardingProperties(), null);
+
+    @Before
+    public void initialize() {
+        when(shiftRepository.findAllShiftForTalent(any(UUID.class))).thenReturn(Collections.emptyList());
+        talentScheduleIndex = new TalentScheduleIndex(shiftRepository, shardRouter);
+    }
+
+    @Test
+    public void testIfShiftLessThanSixHoursApartIsConflicting() {
+        UUID talentId = UUID.randomUUID();
+        talentScheduleIndex.book(talentId, shift("2020-07-20T12:00:00Z", "2020-07-20T15:00:00Z"));
+        Assert.assertTrue(hasConflict(talentId, "2020-07-20T18:00:00Z", "2020-07-20T20:00:00Z"));
+        Assert.assertTrue(hasConflict(talentId, "2020-07-20T04:00:00Z", "2020-07-20T06:30:00Z"));
+        Assert.assertTrue(hasConflict(talentId, "2020-07-20T13:00:00Z", "2020-07-20T14:00:00Z"));
+    }
+
+    @Test
+    public void testIfShiftAtLeastSixHoursApartIsNotConflicting() {
+        UUID talentId = UUID.randomUUID();
+        talentScheduleIndex.book(talentId, shift("2020-07-20T12:00:00Z", "2020-07-20T15:00:00Z"));
+        Assert.assertFalse(hasConflict(talentId, "2020-07-20T21:00:00Z", "2020-07-20T23:00:00Z"));
+        Assert.assertFalse(hasConflict(talentId, "2020-07-20T02:00:00Z", "2020-07-20T06:00:00Z"));
+        Assert.assertFalse(hasConflict(talentId, "2020-07-21T12:00:00Z", "2020-07-21T15:00:00Z"));
+    }
+
+    @Test
+    public void testIfReleasedShiftIsNotConflicting() {
+        UUID talentId = UUID.randomUUID();
+        Shift shift = shift("2020-07-20T12:00:00Z", "2020-07-20T15:00:00Z");
+        talentScheduleIndex.book(talentId, shift);
+        talentScheduleIndex.release(talentId, shift);
+        Assert.assertFalse(hasConflict(talentId, "2020-07-20T18:00:00Z", "2020-07-20T20:00:00Z"));
+    }
+
+    @Test
+    public void testIfReassignedShiftsMoveToTheNewTalent() {
+        UUID currentTalentId = UUID.randomUUID();
+        UUID newTalentId = UUID.randomUUID();
+        talentScheduleIndex.book(currentTalentId, shift("2020-07-20T12:00:00Z", "2020-07-20T15:00:00Z"));
+        talentScheduleIndex.reassign(currentTalentId, newTalentId);
+        Assert.assertFalse(hasConflict(currentTalentId, "2020-07-20T18:00:00Z", "2020-07-20T20:00:00Z"));
+        Assert.assertTrue(hasConflict(newTalentId, "2020-07-20T18:00:00Z", "2020-07-20T20:00:00Z"));
+    }
+
+    @Test
+    public void testIfTryBookRejectsShiftLessThanSixHoursApart() {
+        UUID talentId = UUID.randomUUID();
+        Assert.assertTrue(talentScheduleIndex.tryBook(talentId, shift("2020-07-20T12:00:00Z", "2020-07-20T15:00:00Z")));
+        Assert.assertFalse(talentScheduleIndex.tryBook(talentId, shift("2020-07-20T18:00:00Z", "2020-07-20T20:00:00Z")));
+        Assert.assertTrue(talentScheduleIndex.tryBook(talentId, shift("2020-07-20T21:00:00Z", "2020-07-20T23:00:00Z")));
+        Assert.assertTrue(hasConflict(talentId, "2020-07-21T04:00:00Z", "2020-07-21T06:00:00Z"));
+    }
+
+    @Test
+    public void testIfScheduleIsLoadedOnlyOnce() {
+        UUID talentId = UUID.randomUUID();
+        when(shiftRepository.findAllShiftForTalent(talentId))
+                .thenReturn(Collections.singletonList(shift("2020-07-20T12:00:00Z", "2020-07-20T15:00:00Z")));
+        Assert.assertTrue(hasConflict(talentId, "2020-07-20T18:00:00Z", "2020-07-20T20:00:00Z"));
+        Assert.assertFalse(hasConflict(talentId, "2020-07-21T18:00:00Z", "2020-07-21T20:00:00Z"));
+        verify(shiftRepository, times(1)).findAllShiftForTalent(talentId);
+    }
+
+    private boolean hasConflict(UUID talentId, String start, String end) {
+        return talentScheduleIndex.hasConflictingShift(talentId, UUID.randomUUID(), Instant.parse(start), Instant.parse(end));
+    }
+
+    private Shift shift(String start, String end) {
+        return Shift.builder()
+                .id(UUID.randomUUID())
+                .startTime(Instant.parse(start))
+                .endTime(Instant.parse(end))
+                .build();
+    }
+}
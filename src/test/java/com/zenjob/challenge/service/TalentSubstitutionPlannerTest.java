@@ -0,0 +1,95 @@
+package com.zenjob.challenge.service;
+
+import com.zenjob.challenge.config.SubstitutionProperties;
+import com.zenjob.challenge.dto.ShiftView;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+public class TalentSubstitutionPlannerTest {
+
+    private static final int DAYS = 60;
+
+    UUID talentId = UUID.randomUUID();
+    UUID firstCandidate = UUID.randomUUID();
+    UUID secondCandidate = UUID.randomUUID();
+
+    @Test
+    public void testIfEveryShiftIsSubstitutedWithSixHoursBreakAcrossTasks() {
+        List<ShiftView> shifts = dayAndEveningShifts();
+        Map<UUID, UUID> substitutes = planner(firstCandidate, secondCandidate).plan(talentId, shifts, (candidate, shift) -> false);
+
+        Assert.assertEquals(shifts.size(), substitutes.size());
+        assertSixHoursBreak(shifts, substitutes);
+        Set<UUID> used = new HashSet<>(substitutes.values());
+        Assert.assertTrue(used.contains(firstCandidate));
+        Assert.assertTrue(used.contains(secondCandidate));
+        Assert.assertFalse(used.contains(talentId));
+    }
+
+    @Test
+    public void testIfCandidateWithBookedConflictIsNotPicked() {
+        List<ShiftView> shifts = dayAndEveningShifts();
+        Map<UUID, UUID> substitutes = planner(firstCandidate, secondCandidate)
+                .plan(talentId, shifts, (candidate, shift) -> candidate.equals(firstCandidate));
+
+        Assert.assertFalse(substitutes.containsValue(firstCandidate));
+        assertSixHoursBreak(shifts, substitutes);
+        // the shifts of one half of every day are left without a substitute since the second candidate works the other half
+        Assert.assertEquals(DAYS, substitutes.size());
+        Assert.assertTrue(substitutes.values().stream().allMatch(secondCandidate::equals));
+    }
+
+    @Test
+    public void testIfSubstitutedTalentIsNeverPicked() {
+        List<ShiftView> shifts = dayAndEveningShifts();
+        Map<UUID, UUID> substitutes = planner(talentId).plan(talentId, shifts, (candidate, shift) -> false);
+
+        Assert.assertTrue(substitutes.isEmpty());
+    }
+
+    private TalentSubstitutionPlanner planner(UUID... candidates) {
+        SubstitutionProperties properties = new SubstitutionProperties();
+        properties.setCandidates(List.of(candidates));
+        properties.setDaysPerTask(2);
+        return new TalentSubstitutionPlanner(properties);
+    }
+
+    /**
+     * Every day has a shift from 08:00 to 16:00 and one from 18:00 to 22:00,
+     * so nobody can work both shifts of a day
+     */
+    private List<ShiftView> dayAndEveningShifts() {
+        Instant start = Instant.parse("2100-01-01T08:00:00Z");
+        List<ShiftView> shifts = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            Instant dayStart = start.plus(Duration.ofDays(day));
+            shifts.add(new ShiftView(UUID.randomUUID(), talentId, null, dayStart, dayStart.plus(Duration.ofHours(8))));
+            shifts.add(new ShiftView(UUID.randomUUID(), talentId, null, dayStart.plus(Duration.ofHours(10)), dayStart.plus(Duration.ofHours(14))));
+        }
+        return shifts;
+    }
+
+    private static void assertSixHoursBreak(List<ShiftView> shifts, Map<UUID, UUID> substitutes) {
+        Map<UUID, List<ShiftView>> shiftsBySubstitute = shifts.stream()
+                .filter(shift -> substitutes.containsKey(shift.getId()))
+                .collect(Collectors.groupingBy(shift -> substitutes.get(shift.getId())));
+        shiftsBySubstitute.values().forEach(substituted -> {
+            substituted.sort(Comparator.comparing(ShiftView::getStart));
+            for (int idx = 1; idx < substituted.size(); idx++) {
+                Duration gap = Duration.between(substituted.get(idx - 1).getEnd(), substituted.get(idx).getStart());
+                Assert.assertTrue(gap.compareTo(TalentScheduleIndex.MINIMUM_BREAK_BETWEEN_SHIFTS) >= 0);
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.zenjob.challenge.sharding;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zenjob.challenge.config.ShardingProperties;
+import com.zenjob.challenge.dto.JobRecurrence;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ShardRouterTest {
+
+    @Test
+    public void testIfShardsAreAppendedThenBucketsOnlyMoveToTheNewShards() {
+        ShardRouter threeShards = router(3);
+        ShardRouter fourShards = router(4);
+        int[] bucketsOfShard = new int[4];
+        int movedBuckets = 0;
+        for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+            UUID id = new UUID((long) bucket << 48, 0);
+            int shard = fourShards.shardOf(id);
+            bucketsOfShard[shard]++;
+            if (shard != threeShards.shardOf(id)) {
+                Assert.assertEquals(3, shard);
+                movedBuckets++;
+            }
+        }
+        Assert.assertEquals(bucketsOfShard[3], movedBuckets);
+        for (int buckets : bucketsOfShard) {
+            Assert.assertEquals(ShardKeys.BUCKETS / 4, buckets, ShardKeys.BUCKETS / 40);
+        }
+    }
+
+    @Test
+    public void testIfJobIsCreatedThenItAndItsShiftsAreOnTheShardOfItsCompany() {
+        ShardRouter router = router(5);
+        for (int idx = 0; idx < 100; idx++) {
+            UUID companyId = UUID.randomUUID();
+            UUID jobId = ShardKeys.inBucketOfCompany(JobRecurrence.newJobId(), companyId);
+            JobRecurrence recurrence = new JobRecurrence(jobId, null, null, true, 1);
+            Assert.assertEquals(ShardKeys.bucketOfCompany(companyId), ShardKeys.bucketOf(jobId));
+            Assert.assertEquals(router.shardOfCompany(companyId), router.shardOf(jobId));
+            Assert.assertEquals(router.shardOf(jobId), router.shardOf(recurrence.shiftIdOf(idx)));
+            Assert.assertEquals(jobId, JobRecurrence.jobIdOf(recurrence.shiftIdOf(idx)));
+        }
+    }
+
+    @Test
+    public void testIfNotShardedThenWorkRunsOnceInTheCallersTransaction() {
+        ShardRouter router = new ShardRouter(new ShardingProperties(), null);
+        AtomicInteger runs = new AtomicInteger();
+        List<Integer> shards = router.onEveryShard(false, shard -> {
+            runs.incrementAndGet();
+            return Collections.singletonList(shard);
+        });
+        Assert.assertEquals(Collections.singletonList(0), shards);
+        Assert.assertEquals(1, runs.get());
+        Assert.assertEquals(0, router.shardOf(UUID.randomUUID()));
+        router.bindToShardOf(UUID.randomUUID());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIfShardingIsEnabledWithoutShardsThenRouterIsNotCreated() {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        new ShardRouter(properties, null);
+    }
+
+    private static ShardRouter router(int shards) {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setEnabled(true);
+        for (int idx = 0; idx < shards; idx++) {
+            properties.getShards().add(new HikariConfig());
+        }
+        return new ShardRouter(properties, null);
+    }
+}
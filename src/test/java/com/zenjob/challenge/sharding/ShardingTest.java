@@ -0,0 +1,234 @@
+package com.zenjob.challenge.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zenjob.challenge.constants.ErrorMessages;
+import com.zenjob.challenge.datasource.ReadWriteRoutingDataSource;
+import com.zenjob.challenge.dto.ShiftView;
+import com.zenjob.challenge.entity.Job;
+import com.zenjob.challenge.exceptions.ConstraintViolationException;
+import com.zenjob.challenge.repository.ShiftRepository;
+import com.zenjob.challenge.repository.UuidBytes;
+import com.zenjob.challenge.service.JobService;
+import com.zenjob.challenge.service.TalentScheduleIndex;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * This test shards the service over three in-memory databases
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(properties = {
+        "sharding.enabled=true",
+        // the shards have no replicas, the routing to the replica is left out
+        "datasource-routing.enabled=true",
+        "sharding.rebalance-batch-size=2",
+        "substitution.candidates=2b7e1f3c-9a4d-4c61-8e0f-5d3a7b9c1e24",
+        "sharding.shards[0].jdbc-url=jdbc:h2:mem:sharding-0;DB_CLOSE_DELAY=-1",
+        "sharding.shards[0].username=zenjob",
+        "sharding.shards[0].password=challenge",
+        "sharding.shards[1].jdbc-url=jdbc:h2:mem:sharding-1;DB_CLOSE_DELAY=-1",
+        "sharding.shards[1].username=zenjob",
+        "sharding.shards[1].password=challenge",
+        "sharding.shards[2].jdbc-url=jdbc:h2:mem:sharding-2;DB_CLOSE_DELAY=-1",
+        "sharding.shards[2].username=zenjob",
+        "sharding.shards[2].password=challenge"
+})
+public class ShardingTest {
+
+    private static final Instant FROM = Instant.parse("2100-01-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2101-01-01T00:00:00Z");
+
+    @Autowired
+    JobService jobService;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired
+    ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    ShardRebalancer shardRebalancer;
+
+    @Autowired
+    ShiftRepository shiftRepository;
+
+    @Autowired
+    ApplicationContext applicationContext;
+
+    @Test
+    public void testIfReplicaRoutingIsEnabledTooThenTheShardsAreTheOnlyDataSource() {
+        Assert.assertTrue(applicationContext.getBeansOfType(ReadWriteRoutingDataSource.class).isEmpty());
+        Assert.assertEquals(1, applicationContext.getBeansOfType(ShardRoutingDataSource.class).size());
+    }
+
+    @Test
+    public void testIfJobsAreCreatedThenEveryJobIsStoredOnTheShardOfItsCompanyOnly() {
+        List<Job> jobs = List.of(createJob(companyOnShard(0), "2100-03-01T08:00:00"),
+                createJob(companyOnShard(1), "2100-03-01T08:00:00"),
+                createJob(companyOnShard(2), "2100-03-01T08:00:00"));
+
+        for (int shard = 0; shard < 3; shard++) {
+            Job job = jobs.get(shard);
+            for (int other = 0; other < 3; other++) {
+                Assert.assertEquals(shard == other ? 1 : 0, count(other, job));
+            }
+            Assert.assertTrue(jobService.jobExists(job.getId()));
+            Assert.assertEquals(2, jobService.getShiftViews(job.getId()).size());
+        }
+    }
+
+    @Test
+    public void testIfTalentIsBookedOnSeveralShardsThenItsShiftsAreGatheredFromAllOfThem() {
+        UUID talentId = UUID.randomUUID();
+        Job firstJob = createJob(companyOnShard(0), "2100-04-01T08:00:00");
+        Job secondJob = createJob(companyOnShard(2), "2100-04-03T08:00:00");
+        ShiftView firstShift = jobService.getShiftViews(firstJob.getId()).get(1);
+        ShiftView secondShift = jobService.getShiftViews(secondJob.getId()).get(0);
+        jobService.bookTalent(secondShift.getId(), talentId);
+        jobService.bookTalent(firstShift.getId(), talentId);
+
+        List<UUID> shiftIds = jobService.getTalentShiftViews(talentId, FROM, TO, null, 10).stream()
+                .map(ShiftView::getId)
+                .collect(Collectors.toList());
+        Assert.assertEquals(List.of(firstShift.getId(), secondShift.getId()), shiftIds);
+        Assert.assertEquals(List.of(firstShift.getId()), jobService.getTalentShiftViews(talentId, FROM, TO, null, 1).stream()
+                .map(ShiftView::getId)
+                .collect(Collectors.toList()));
+
+        TalentScheduleIndex loadedIndex = new TalentScheduleIndex(shiftRepository, shardRouter);
+        Assert.assertTrue(loadedIndex.hasConflictingShift(talentId, UUID.randomUUID(), firstShift.getEnd().plusSeconds(3600), firstShift.getEnd().plusSeconds(7200)));
+        Assert.assertTrue(loadedIndex.hasConflictingShift(talentId, UUID.randomUUID(), secondShift.getEnd().plusSeconds(3600), secondShift.getEnd().plusSeconds(7200)));
+
+        jobService.cancelShiftForTalentId(talentId);
+        Assert.assertTrue(jobService.getTalentShiftViews(talentId, FROM, TO, null, 10).isEmpty());
+        try {
+            jobService.cancelShiftForTalentId(talentId);
+            Assert.fail();
+        } catch (ConstraintViolationException e) {
+            Assert.assertEquals(ErrorMessages.NO_TALENT_WITH_SHIFT_PRESENT, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testIfJobIsStoredOnAnotherShardThenRebalancingMovesItWithItsShifts() {
+        Job job = createJob(companyOnShard(1), "2100-05-01T08:00:00");
+        Job otherJob = createJob(companyOnShard(1), "2100-05-01T08:00:00");
+        Job stayingJob = createJob(companyOnShard(0), "2100-05-01T08:00:00");
+        UUID talentId = UUID.randomUUID();
+        jobService.bookTalent(jobService.getShiftViews(job.getId()).get(0).getId(), talentId);
+        move(job, 1, 2);
+        move(otherJob, 1, 0);
+        Assert.assertFalse(jobService.jobExists(job.getId()));
+
+        Assert.assertEquals(2, shardRebalancer.rebalance());
+
+        Assert.assertEquals(0, shardRebalancer.rebalance());
+        for (Job movedJob : List.of(job, otherJob)) {
+            Assert.assertEquals(1, count(1, movedJob));
+            Assert.assertEquals(0, count(0, movedJob) + count(2, movedJob));
+            Assert.assertTrue(jobService.jobExists(movedJob.getId()));
+        }
+        Assert.assertEquals(1, count(0, stayingJob));
+        Assert.assertEquals(talentId, jobService.getShiftViews(job.getId()).get(0).getTalentId());
+    }
+
+    @Test
+    public void testIfJobWasStoredBeforeShardingThenItsShiftsAreBookedCancelledAndRebalancedByCompany() {
+        UUID companyId = companyOnShard(2);
+        UUID jobId = UUID.randomUUID();
+        UUID bookedShiftId = UUID.randomUUID();
+        UUID cancelledShiftId = UUID.randomUUID();
+        Instant start = Instant.parse("2100-06-01T08:00:00Z");
+        // the database of the service before sharding is the first shard
+        jdbc(0).update("INSERT INTO job_process (id, version, company_id, start_time, end_time, active_shift_count, recurring) VALUES (?, 0, ?, ?, ?, 2, FALSE)",
+                UuidBytes.of(jobId), UuidBytes.of(companyId), Timestamp.from(start), Timestamp.from(start.plusSeconds(86400 + 4 * 3600)));
+        insertShift(bookedShiftId, jobId, start);
+        insertShift(cancelledShiftId, jobId, start.plusSeconds(86400));
+        Assert.assertFalse(ShardKeys.hasBucket(jobId));
+
+        UUID talentId = UUID.randomUUID();
+        Assert.assertTrue(jobService.jobExists(jobId));
+        jobService.bookTalent(bookedShiftId, talentId);
+        jobService.cancelShiftByShiftId(cancelledShiftId);
+        Assert.assertEquals(List.of(bookedShiftId), jobService.getShiftViews(jobId).stream().map(ShiftView::getId).collect(Collectors.toList()));
+
+        Assert.assertEquals(1, shardRebalancer.rebalance());
+        Assert.assertEquals(0, count(0, jobId));
+        Assert.assertEquals(1, count(2, jobId));
+        Assert.assertEquals(talentId, jobService.getShiftViews(jobId).get(0).getTalentId());
+        List<UUID> exported = new ArrayList<>();
+        jobService.streamShiftsOfCompany(companyId, FROM, TO, shift -> exported.add(shift.getId()));
+        Assert.assertEquals(List.of(bookedShiftId), exported);
+        try {
+            jobService.cancelShiftByShiftId(bookedShiftId);
+            Assert.fail();
+        } catch (ConstraintViolationException e) {
+            Assert.assertEquals(ErrorMessages.SHIFT_NOT_CANCELLABLE, e.getMessage());
+        }
+    }
+
+    private void insertShift(UUID shiftId, UUID jobId, Instant start) {
+        jdbc(0).update("INSERT INTO shift (id, version, job_id, start_time, end_time) VALUES (?, 0, ?, ?, ?)",
+                UuidBytes.of(shiftId), UuidBytes.of(jobId), Timestamp.from(start), Timestamp.from(start.plusSeconds(4 * 3600)));
+    }
+
+    private Job createJob(UUID companyId, String start) {
+        LocalDateTime startTime = LocalDateTime.parse(start);
+        return jobService.createJob(companyId, startTime, startTime.plusDays(1).plusHours(4));
+    }
+
+    private UUID companyOnShard(int shard) {
+        UUID companyId = UUID.randomUUID();
+        while (shardRouter.shardOfCompany(companyId) != shard) {
+            companyId = UUID.randomUUID();
+        }
+        return companyId;
+    }
+
+    private long count(int shard, Job job) {
+        return count(shard, job.getId());
+    }
+
+    private long count(int shard, UUID jobId) {
+        return jdbc(shard).queryForObject("SELECT COUNT(*) FROM job_process WHERE id = ?", Long.class, UuidBytes.of(jobId));
+    }
+
+    /**
+     * move stores the job with its shifts on another shard than the one it belongs to,
+     * the way a shard which was appended finds the jobs it took over
+     */
+    private void move(Job job, int source, int target) {
+        byte[] jobId = UuidBytes.of(job.getId());
+        Map<String, Object> jobRow = jdbc(source).queryForMap("SELECT * FROM job_process WHERE id = ?", jobId);
+        List<Map<String, Object>> shiftRows = jdbc(source).queryForList("SELECT * FROM shift WHERE job_id = ?", jobId);
+        new SimpleJdbcInsert(shard(target)).withTableName("job_process").execute(jobRow);
+        shiftRows.forEach(shiftRow -> new SimpleJdbcInsert(shard(target)).withTableName("shift").execute(shiftRow));
+        jdbc(source).update("DELETE FROM shift WHERE job_id = ?", jobId);
+        jdbc(source).update("DELETE FROM job_process WHERE id = ?", jobId);
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return new JdbcTemplate(shard(shard));
+    }
+
+    private HikariDataSource shard(int shard) {
+        return shardRoutingDataSource.getShards().get(shard);
+    }
+}